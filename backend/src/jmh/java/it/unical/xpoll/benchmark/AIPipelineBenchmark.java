@@ -0,0 +1,111 @@
+package it.unical.xpoll.benchmark;
+
+import it.unical.xpoll.XPollApplication;
+import it.unical.xpoll.service.PollAIService;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.PollData;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.QuestionData;
+import it.unical.xpoll.service.ai.stream.PollStreamListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//End-to-end AI pipeline on the stub provider: bulkhead, model call, parsing and validation, without network.
+//Every invocation uses a new prompt and the result cache is off, so each one reaches the provider.
+//Run with: mvn -Pbenchmark -DskipTests test-compile exec:exec -Djmh.args="AIPipelineBenchmark -p latencyDistribution=exponential"
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AIPipelineBenchmark {
+
+    @Param({ "fixed", "exponential" })
+    public String latencyDistribution;
+
+    @Param({ "200" })
+    public long latencyMs;
+
+    @Param({ "10" })
+    public int questions;
+
+    @Param({ "0", "0.1" })
+    public double failureRate;
+
+    ConfigurableApplicationContext context;
+    PollAIService pollAIService;
+    final AtomicLong prompts = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(XPollApplication.class)
+                .profiles("bench")
+                .properties("app.ai.provider=stub",
+                        "app.ai.stub.latency-distribution=" + latencyDistribution,
+                        "app.ai.stub.latency-ms=" + latencyMs,
+                        "app.ai.stub.latency-jitter-ms=" + latencyMs / 4,
+                        "app.ai.stub.failure-rate=" + failureRate,
+                        "app.ai.stub.questions=" + questions,
+                        "app.ai.cache.max-entries=0",
+                        // Above the benchmark threads: measures the pipeline, not rejections
+                        "app.ai.max-concurrent=64")
+                .run();
+        pollAIService = context.getBean(PollAIService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //Blocking generation: time until the validated poll is returned (null for simulated failures).
+    @Benchmark
+    public PollData generatePoll() {
+        return pollAIService.generatePollFromPrompt("benchmark topic " + prompts.incrementAndGet());
+    }
+
+    //Streamed generation: time until the first question reaches the listener.
+    @Benchmark
+    public Object streamFirstQuestion() throws Exception {
+        CompletableFuture<Object> first = new CompletableFuture<>();
+        pollAIService.streamPollFromPrompt("benchmark topic " + prompts.incrementAndGet(), new PollStreamListener() {
+            @Override
+            public void onField(String name, String value) {
+            }
+
+            @Override
+            public void onQuestion(QuestionData question) {
+                first.complete(question);
+            }
+
+            @Override
+            public void onComplete(int questionCount) {
+                first.complete(questionCount);
+            }
+
+            @Override
+            public void onError(String message) {
+                first.complete(message);
+            }
+        });
+        return first.get(30, TimeUnit.SECONDS);
+    }
+}
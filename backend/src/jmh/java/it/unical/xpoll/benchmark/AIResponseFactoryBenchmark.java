@@ -0,0 +1,76 @@
+package it.unical.xpoll.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Parsing of model responses into polls and answer lists. No database involved,
+//so only the poll shape (questions, options per question) is a parameter; 200 questions stands for a large response.
+//Run with: mvn -Pbenchmark -DskipTests test-compile exec:exec -Djmh.args="AIResponseFactoryBenchmark -prof gc"
+//To compare two parser versions, run it on both revisions on the same machine and JDK; no results are kept here.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AIResponseFactoryBenchmark {
+
+    @Param({ "5", "20", "200" })
+    public int questions;
+
+    @Param({ "4", "8" })
+    public int options;
+
+    AIResponseFactory factory;
+    String pollResponse;
+    String answersResponse;
+
+    @Setup
+    public void setUp() {
+        factory = new AIResponseFactory(new ObjectMapper());
+
+        StringBuilder poll = new StringBuilder("Sure! Here is your poll:\n```json\n{\"title\": \"Benchmark <b>poll</b>\", ")
+                .append("\"description\": \"Generated for benchmarking\", \"questions\": [");
+        for (int q = 0; q < questions; q++) {
+            poll.append(q > 0 ? "," : "").append("{\"text\": \"Question ").append(q).append("?\", \"options\": ")
+                    .append(options(q));
+            poll.append('}');
+        }
+        pollResponse = poll.append("]}\n```\nLet me know if you need changes.").toString();
+        answersResponse = "Here are the answers:\n" + options(0) + "\nGood luck!";
+    }
+
+    private String options(int seed) {
+        StringBuilder json = new StringBuilder("[");
+        for (int o = 0; o < options; o++) {
+            json.append(o > 0 ? "," : "").append("{\"text\": \"Option <b>").append(seed).append('-').append(o)
+                    .append("</b>\", \"points\": ").append(o == 0 ? 1 : 0)
+                    .append(", \"isCorrect\": ").append(o == 0).append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    @Benchmark
+    public AIResponseFactory.PollData createPollFromJson() {
+        return factory.createPollFromJson(pollResponse);
+    }
+
+    @Benchmark
+    public List<AIResponseFactory.OptionData> createAnswersFromJson() {
+        return factory.createAnswersFromJson(answersResponse);
+    }
+}
@@ -0,0 +1,92 @@
+package it.unical.xpoll.benchmark;
+
+import it.unical.xpoll.controller.SessionController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//Session hot paths against an open session where every participant already answered.
+//Run with: mvn -Pbenchmark -DskipTests test-compile exec:exec -Djmh.args="SessionBenchmark"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int participants;
+
+    @Param({ "5", "20" })
+    public int questions;
+
+    @Param({ "4" })
+    public int options;
+
+    SessionFixture fixture;
+    SessionController sessionController;
+    TransactionTemplate transactionTemplate;
+    String participantName;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new SessionFixture(participants, questions, options);
+        sessionController = fixture.context.getBean(SessionController.class);
+        transactionTemplate = fixture.context.getBean(TransactionTemplate.class);
+        participantName = fixture.participantNames.get(fixture.participantNames.size() / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    //A participant that joined but did not answer yet, so every invocation submits a full set of answers.
+    @State(Scope.Thread)
+    public static class Voter {
+        String name;
+        Map<String, Object> answers;
+
+        @Setup(Level.Invocation)
+        public void join(SessionBenchmark benchmark) {
+            name = benchmark.fixture.join();
+            answers = benchmark.fixture.answers(name.hashCode() & 0xff, benchmark.options);
+        }
+    }
+
+    @Benchmark
+    public boolean submitVotes(Voter voter) {
+        return fixture.sessionService.submitVotes(fixture.code, voter.name, voter.answers);
+    }
+
+    @Benchmark
+    public Map<String, Object> getResults() {
+        return fixture.sessionService.getResults(fixture.code);
+    }
+
+    @Benchmark
+    public Map<String, Object> getParticipantResults() {
+        return fixture.sessionService.getParticipantResults(fixture.code, participantName);
+    }
+
+    //GET /api/sessions/{code} builds its payload with sessionToMap; the transaction stands in for open-in-view.
+    @Benchmark
+    public Object sessionToMap() {
+        return transactionTemplate.execute(status -> sessionController.getSession(fixture.code));
+    }
+}
@@ -0,0 +1,91 @@
+package it.unical.xpoll.benchmark;
+
+import it.unical.xpoll.XPollApplication;
+import it.unical.xpoll.domain.Session;
+import it.unical.xpoll.service.SessionService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Starts the application on the in-memory "bench" profile and fills an open session:
+//questions with the given number of options, participants that already answered every question.
+class SessionFixture {
+    static final String CREATOR_ID = "bench-creator";
+
+    final ConfigurableApplicationContext context;
+    final SessionService sessionService;
+    final String code;
+    final List<Long> questionIds = new ArrayList<>();
+    final List<String> participantNames = new ArrayList<>();
+
+    SessionFixture(int participants, int questions, int options) {
+        this(participants, questions, options, new Class<?>[0]);
+    }
+
+    //Extra configuration classes (e.g. stubbed services) and properties on top of the bench profile.
+    SessionFixture(int participants, int questions, int options, Class<?>[] sources, String... properties) {
+        context = new SpringApplicationBuilder(XPollApplication.class)
+                .sources(sources)
+                .profiles("bench")
+                .properties(properties)
+                .run();
+        sessionService = context.getBean(SessionService.class);
+
+        Session session = sessionService.createSession(CREATOR_ID, null, "Benchmark poll", 600,
+                questions(questions, options));
+        code = session.getCode();
+        session.getPoll().getQuestions().forEach(q -> questionIds.add(q.getId()));
+        sessionService.launchPoll(code, CREATOR_ID);
+
+        for (int i = 0; i < participants; i++) {
+            String name = join();
+            sessionService.submitVotes(code, name, answers(i, options));
+            participantNames.add(name);
+        }
+    }
+
+    //Joins a new participant and returns their name.
+    String join() {
+        String name = "bench-" + System.nanoTime();
+        sessionService.joinSession(code, name, null);
+        return name;
+    }
+
+    //One answer per question, spread over the options.
+    Map<String, Object> answers(int seed, int options) {
+        Map<String, Object> answers = new HashMap<>();
+        for (int q = 0; q < questionIds.size(); q++) {
+            answers.put(String.valueOf(questionIds.get(q)), (seed + q) % options);
+        }
+        return answers;
+    }
+
+    void close() {
+        context.close();
+    }
+
+    private static List<Map<String, Object>> questions(int questions, int options) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int q = 0; q < questions; q++) {
+            List<Map<String, Object>> optionList = new ArrayList<>();
+            for (int o = 0; o < options; o++) {
+                Map<String, Object> option = new HashMap<>();
+                option.put("text", "Option " + o);
+                option.put("value", o == 0 ? 2 : 0);
+                option.put("isCorrect", o == 0);
+                optionList.add(option);
+            }
+
+            Map<String, Object> question = new HashMap<>();
+            question.put("text", "Question " + q);
+            question.put("type", "SINGLE_CHOICE");
+            question.put("options", optionList);
+            result.add(question);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,136 @@
+package it.unical.xpoll.benchmark;
+
+import it.unical.xpoll.model.AccessMode;
+import it.unical.xpoll.model.User;
+import it.unical.xpoll.repository.UserRepository;
+import it.unical.xpoll.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+//Vote latency over HTTP while slow AI generations hold request threads, with platform and virtual threads.
+//Tomcat gets only tomcatThreads threads and aiClients clients keep calling /api/ai/generate-poll, whose
+//(stub provider) model call blocks for aiLatencyMs. It checks whether votes queue behind those calls on platform
+//threads and whether virtual threads avoid it; compare the two virtualThreads results, nothing is assumed here.
+//Run with: mvn -Pbenchmark -DskipTests test-compile exec:exec -Djmh.args="ThreadStarvationBenchmark"
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadStarvationBenchmark {
+    @Param({ "false", "true" })
+    public boolean virtualThreads;
+
+    @Param({ "8" })
+    public int tomcatThreads;
+
+    @Param({ "32" })
+    public int aiClients;
+
+    @Param({ "500" })
+    public long aiLatencyMs;
+
+    SessionFixture fixture;
+    HttpClient http;
+    ExecutorService aiLoad;
+    String baseUrl;
+    String authorization;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new SessionFixture(0, 5, 4, new Class<?>[0],
+                "app.ai.stub.latency-ms=" + aiLatencyMs,
+                "app.ai.cache.max-entries=0",
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "server.tomcat.threads.max=" + tomcatThreads,
+                "server.tomcat.threads.min-spare=" + tomcatThreads);
+        baseUrl = "http://localhost:" + fixture.context.getEnvironment().getProperty("local.server.port");
+
+        User user = fixture.context.getBean(UserRepository.class).save(User.builder()
+                .email("bench@xpoll.local")
+                .username("bench")
+                .accessMode(AccessMode.LOCAL)
+                .build());
+        authorization = "Bearer " + fixture.context.getBean(JwtTokenProvider.class).returnValidationToken(user);
+
+        http = HttpClient.newBuilder()
+                .executor(Executors.newCachedThreadPool())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        aiLoad = Executors.newFixedThreadPool(aiClients);
+        for (int i = 0; i < aiClients; i++) {
+            aiLoad.execute(this::generateLoop);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        aiLoad.shutdownNow();
+        aiLoad.awaitTermination(10, TimeUnit.SECONDS);
+        fixture.close();
+    }
+
+    //A participant that joined but did not answer yet.
+    @State(Scope.Thread)
+    public static class Voter {
+        String body;
+
+        @Setup(Level.Invocation)
+        public void join(ThreadStarvationBenchmark benchmark) {
+            String name = benchmark.fixture.join();
+            StringBuilder answers = new StringBuilder();
+            for (Long questionId : benchmark.fixture.questionIds) {
+                answers.append(answers.isEmpty() ? "" : ",").append('"').append(questionId).append("\":0");
+            }
+            body = "{\"participantName\":\"" + name + "\",\"answers\":{" + answers + "}}";
+        }
+    }
+
+    @Benchmark
+    public int submitVotes(Voter voter) throws Exception {
+        return post("/api/sessions/" + fixture.code + "/votes", voter.body, null).statusCode();
+    }
+
+    private void generateLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                post("/api/ai/generate-poll", "{\"prompt\":\"Benchmark topic\"}", authorization);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                // Connection refused while shutting down: stops on the interrupt
+            }
+        }
+    }
+
+    private HttpResponse<String> post(String path, String body, String auth) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (auth != null) {
+            request.header("Authorization", auth);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,11 @@
+package it.unical.xpoll.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+//Enables @Async methods (e.g. password reset emails). They run on the application task executor,
+//which uses virtual threads when spring.threads.virtual.enabled=true
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
@@ -2,15 +2,17 @@ package it.unical.xpoll.config;
 
 import com.google.genai.Client;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+//Only with the Gemini provider, so the stub provider starts without GEMINI_API_KEY
 @Configuration
-
+@ConditionalOnProperty(name = "app.ai.provider", havingValue = "gemini", matchIfMissing = true)
 public class GeminiConfig {
 
-    @Value("${gemini.api.key}")
+    @Value("${gemini.api.key:}")
     private String apiKey;
 
     @Bean
@@ -0,0 +1,56 @@
+package it.unical.xpoll.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+//Moves id sequences past the ids created when votes, options, questions and participants used IDENTITY columns.
+//Runs once the schema is updated (after the EntityManagerFactory) and is a no-op when sequences are already ahead
+//or the database is not PostgreSQL.
+@Slf4j
+@Component
+public class IdSequenceMigration {
+    //must match the allocationSize of the @SequenceGenerator mappings
+    private static final int ALLOCATION_SIZE = 50;
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "votes", "votes_seq",
+            "options", "options_seq",
+            "questions", "questions_seq",
+            "participants", "participants_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        if (!isPostgres())
+            return;
+
+        SEQUENCES.forEach((table, sequence) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM " + sequence, Long.class);
+
+            // Pooled ids are handed out as (value - allocationSize, value], so the next block must start after maxId
+            if (maxId != null && lastValue != null && lastValue < maxId) {
+                jdbcTemplate.execute("SELECT setval('" + sequence + "', " + (maxId + ALLOCATION_SIZE - 1) + ")");
+                log.info("Moved {} past existing {} ids (max {})", sequence, table, maxId);
+            }
+        });
+    }
+
+    //Only PostgreSQL databases can hold ids from the IDENTITY era; embedded ones (e.g. H2 under the
+    //benchmark profile) start empty and do not support the last_value/setval queries above.
+    private boolean isPostgres() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(database);
+    }
+}
@@ -0,0 +1,44 @@
+package it.unical.xpoll.config;
+
+import it.unical.xpoll.repository.ParticipantRepository;
+import it.unical.xpoll.repository.ParticipationSummaryRepository;
+import it.unical.xpoll.repository.SessionRepository;
+import it.unical.xpoll.service.ParticipationSummaryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+//Writes the participation history of sessions closed before it existed.
+//Runs after the score ledger backfill; no-op once any summary exists.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ParticipationSummaryMigration {
+    private final ParticipationSummaryRepository summaryRepository;
+    private final ParticipantRepository participantRepository;
+    private final SessionRepository sessionRepository;
+    private final ParticipationSummaryService participationSummaryService;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void backfillSummaries() {
+        if (summaryRepository.count() > 0)
+            return;
+
+        List<Long> sessionIds = participantRepository.findClosedSessionIdsWithRegisteredParticipants();
+        // One transaction per session keeps the persistence context small
+        for (Long sessionId : sessionIds) {
+            transactionTemplate.executeWithoutResult(status -> sessionRepository.findById(sessionId)
+                    .ifPresent(participationSummaryService::summarize));
+        }
+        if (!sessionIds.isEmpty())
+            log.info("Wrote the participation history of {} closed sessions", sessionIds.size());
+    }
+}
@@ -0,0 +1,10 @@
+package it.unical.xpoll.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//Enables @Scheduled maintenance tasks (e.g. purge of expired password reset tokens)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
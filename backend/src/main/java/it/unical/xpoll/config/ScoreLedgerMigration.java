@@ -0,0 +1,79 @@
+package it.unical.xpoll.config;
+
+import it.unical.xpoll.domain.Participant;
+import it.unical.xpoll.domain.Session;
+import it.unical.xpoll.repository.ParticipantRepository;
+import it.unical.xpoll.repository.VoteRepository;
+import it.unical.xpoll.service.live.PollSnapshot;
+import it.unical.xpoll.service.live.ScoringEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+//Fills the score ledger of participants created before it existed, scoring their votes once.
+//Votes are read with one query per session rather than one per participant.
+//No-op when every participant already has a score.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScoreLedgerMigration {
+    private final ParticipantRepository participantRepository;
+    private final VoteRepository voteRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void backfillScores() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Participant> participants = participantRepository.findByScoreIsNull();
+            if (participants.isEmpty())
+                return;
+
+            Map<Long, PollSnapshot> snapshots = new HashMap<>();
+            //sessionId -> participantId -> selections, one vote query per session
+            Map<Long, Map<Long, List<VoteRepository.ParticipantSelection>>> selections = new HashMap<>();
+            for (Participant participant : participants) {
+                participant.setScore(0);
+                participant.setCorrectCount(0);
+
+                Session session = participant.getSession();
+                if (session == null || session.getPoll() == null)
+                    continue;
+
+                List<VoteRepository.ParticipantSelection> own = selections
+                        .computeIfAbsent(session.getId(), id -> voteRepository.findSelectionsBySessionId(id).stream()
+                                .collect(Collectors.groupingBy(VoteRepository.ParticipantSelection::getParticipantId)))
+                        .getOrDefault(participant.getId(), List.of());
+                if (own.isEmpty())
+                    continue;
+
+                List<Long> questionIds = new ArrayList<>();
+                List<Long> optionIds = new ArrayList<>();
+                for (VoteRepository.ParticipantSelection selection : own) {
+                    questionIds.add(selection.getQuestionId());
+                    optionIds.add(selection.getOptionId());
+                }
+
+                PollSnapshot snapshot = snapshots.computeIfAbsent(session.getId(), id -> PollSnapshot.of(session.getPoll()));
+                ScoringEngine.Score score = ScoringEngine.score(snapshot, questionIds, optionIds);
+                participant.setScore(score.score());
+                participant.setCorrectCount(score.correctCount());
+                participant.setMaxScore(snapshot.getMaxScore());
+                participant.setScoreVersion(new HashSet<>(questionIds).size());
+            }
+            participantRepository.saveAll(participants);
+            log.info("Filled the score ledger of {} participants", participants.size());
+        });
+    }
+}
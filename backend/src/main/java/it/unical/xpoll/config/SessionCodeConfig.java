@@ -0,0 +1,23 @@
+package it.unical.xpoll.config;
+
+import it.unical.xpoll.repository.SessionRepository;
+import it.unical.xpoll.service.code.SequenceCodeBlockSource;
+import it.unical.xpoll.service.code.SessionCodeAllocator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.function.Predicate;
+
+//Session codes come from blocks of a shared database sequence.
+//New codes are checked against the database only while sessions from before the allocator (random codes) exist.
+@Configuration
+public class SessionCodeConfig {
+    @Bean
+    public SessionCodeAllocator sessionCodeAllocator(JdbcTemplate jdbcTemplate, SessionRepository sessionRepository) {
+        Predicate<String> legacyCodeInUse = sessionRepository.existsByAllocatedCodeIsNull()
+                ? sessionRepository::existsByCodeAndAllocatedCodeIsNull
+                : code -> false;
+        return new SessionCodeAllocator(new SequenceCodeBlockSource(jdbcTemplate), legacyCodeInUse);
+    }
+}
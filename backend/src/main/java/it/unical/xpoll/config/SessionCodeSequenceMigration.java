@@ -0,0 +1,23 @@
+package it.unical.xpoll.config;
+
+import it.unical.xpoll.service.code.SequenceCodeBlockSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+//Creates the sequence session code blocks are reserved from (see SequenceCodeBlockSource).
+//Runs once the schema is updated (after the EntityManagerFactory); no-op when the sequence exists.
+@Component
+public class SessionCodeSequenceMigration {
+    private final JdbcTemplate jdbcTemplate;
+
+    public SessionCodeSequenceMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void createSequence() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SequenceCodeBlockSource.SEQUENCE + " START WITH 0 MINVALUE 0");
+    }
+}
@@ -1,19 +1,114 @@
 package it.unical.xpoll.config;
 
+import it.unical.xpoll.service.broadcast.RelayClusterChannel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.*;
 
 //Websocket configuration for realtime session sync between server and clients
+//app.websocket.broker selects how /topic messages reach subscribers:
+//  simple   - in-memory broker, single node (default)
+//  relay    - external STOMP broker (e.g. RabbitMQ), any number of nodes
+//  postgres - in-memory broker on each node, bridged through PostgreSQL LISTEN/NOTIFY
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    @Value("${app.websocket.broker:simple}")
+    private String brokerMode;
+
+    @Value("${app.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${app.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
+    //Same switch as Tomcat and @Async: STOMP messages are then handled on virtual threads too
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    //STOMP heartbeat interval (both directions); a client missing heartbeats is disconnected
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        //Simple broker for /topic (broadcast) messages.
-        registry.enableSimpleBroker("/topic");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            //Subscriptions live in the external broker, so every node sees every broadcast.
+            registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setClientHeartbeatSendInterval(heartbeatMs)
+                    .setClientHeartbeatReceiveInterval(heartbeatMs);
+        } else {
+            //Simple broker for /topic (broadcast) and /queue (per-user replies, see SessionMessageController) messages.
+            //Heartbeats let the broker drop dead tabs, which ends their presence (see PresenceTracker).
+            registry.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] { heartbeatMs, heartbeatMs })
+                    .setTaskScheduler(webSocketHeartbeatScheduler());
+        }
         //prefix for client->server messages (like a vote)
         registry.setApplicationDestinationPrefixes("/app");
+        //replies to a single client: /user/queue/reply
+        registry.setUserDestinationPrefix("/user");
+    }
+
+    //Container-managed, so it is initialized once and shut down with the context
+    @Bean
+    public ThreadPoolTaskScheduler webSocketHeartbeatScheduler() {
+        ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+        heartbeatScheduler.setPoolSize(1);
+        heartbeatScheduler.setThreadNamePrefix("ws-heartbeat-");
+        heartbeatScheduler.setDaemon(true);
+        return heartbeatScheduler;
+    }
+
+    //Inbound frames (join, votes, leave) run blocking JPA work, so each gets its own virtual thread instead of a pool slot.
+    //Subscriptions to the internal cluster topic are refused, it carries every session's events.
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+                if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())
+                        && RelayClusterChannel.TOPIC.equalsIgnoreCase(accessor.getDestination())) {
+                    throw new MessageDeliveryException("Subscription not allowed: " + accessor.getDestination());
+                }
+                return message;
+            }
+        });
+        if (virtualThreads) {
+            registration.executor(new VirtualThreadTaskExecutor("ws-inbound-"));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            registration.executor(new VirtualThreadTaskExecutor("ws-outbound-"));
+        }
     }
 
     @Override
@@ -25,4 +120,4 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 //enables http fallback if websocket is not supported
                         withSockJS();
     }
-}
\ No newline at end of file
+}
@@ -2,11 +2,20 @@ package it.unical.xpoll.controller;
 
 import it.unical.xpoll.service.PollAIService;
 import it.unical.xpoll.service.ai.factory.AIResponseFactory.PollData;
+import it.unical.xpoll.service.ai.exec.AIUnavailableException;
 import it.unical.xpoll.service.ai.factory.AIResponseFactory.OptionData;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.QuestionData;
+import it.unical.xpoll.service.ai.stream.PollStreamHandle;
+import it.unical.xpoll.service.ai.stream.PollStreamListener;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -15,6 +24,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class AIController {
 
+    private static final long STREAM_TIMEOUT_MS = 60_000;
+
     private final PollAIService pollAIService;
 
     @PostMapping("/generate-poll")
@@ -37,6 +48,67 @@ public class AIController {
                 "questions", result.questions()));
     }
 
+    // Streams the poll as server-sent events: "field" (title/description), one "question" per question,
+    // then "done" or "error". The request thread is released right away; the generation is cancelled when the
+    // emitter times out, fails or is closed (client gone).
+    @PostMapping(value = "/generate-poll/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter generatePollStream(@RequestBody Map<String, String> body) throws IOException {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        String topic = body.get("prompt");
+        if (topic == null || topic.isBlank()) {
+            emitter.send(SseEmitter.event().name("error").data(Map.of("error", "Missing 'prompt' field")));
+            emitter.complete();
+            return emitter;
+        }
+
+        try {
+            PollStreamHandle stream = pollAIService.streamPollFromPrompt(topic, new PollStreamListener() {
+                @Override
+                public void onField(String name, String value) {
+                    send("field", Map.of("name", name, "value", value));
+                }
+
+                @Override
+                public void onQuestion(QuestionData question) {
+                    send("question", question);
+                }
+
+                @Override
+                public void onComplete(int questionCount) {
+                    send("done", Map.of("questionCount", questionCount));
+                    emitter.complete();
+                }
+
+                @Override
+                public void onError(String message) {
+                    try {
+                        emitter.send(SseEmitter.event().name("error").data(Map.of("error", message)));
+                        emitter.complete();
+                    } catch (IOException | IllegalStateException e) {
+                        // Client already gone
+                    }
+                }
+
+                // Failing here (client disconnected) aborts the generation
+                private void send(String event, Object data) {
+                    try {
+                        emitter.send(SseEmitter.event().name(event).data(data));
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Client disconnected", e);
+                    }
+                }
+            });
+            emitter.onTimeout(stream::cancel);
+            emitter.onError(e -> stream.cancel());
+            emitter.onCompletion(stream::cancel);
+        } catch (AIUnavailableException e) {
+            emitter.send(SseEmitter.event().name("error")
+                    .data(Map.of("error", e.getMessage(), "retryAfterSeconds", e.getRetryAfterSeconds())));
+            emitter.complete();
+        }
+        return emitter;
+    }
+
     @PostMapping("/generate-answers")
     public ResponseEntity<?> generateAnswers(@RequestBody Map<String, Object> body) {
         String question = (String) body.get("question");
@@ -55,4 +127,15 @@ public class AIController {
 
         return ResponseEntity.ok(Map.of("options", result));
     }
+
+    // Saturated: 429 with a Retry-After hint; too slow: 504. Votes and other endpoints are not affected.
+    @ExceptionHandler(AIUnavailableException.class)
+    public ResponseEntity<?> handleUnavailable(AIUnavailableException e) {
+        if (e.isTimedOut()) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage(), "retryAfterSeconds", e.getRetryAfterSeconds()));
+    }
 }
@@ -1,13 +1,15 @@
 package it.unical.xpoll.controller;
 
+import it.unical.xpoll.domain.Participant;
 import it.unical.xpoll.domain.Session;
-import it.unical.xpoll.domain.Vote;
 import it.unical.xpoll.model.AccessMode;
 import it.unical.xpoll.model.User;
 import it.unical.xpoll.repository.UserRepository;
-import it.unical.xpoll.repository.VoteRepository;
 import it.unical.xpoll.service.SessionService;
 import it.unical.xpoll.service.UserService;
+import it.unical.xpoll.service.live.PollSnapshot;
+import it.unical.xpoll.service.live.ScoringEngine;
+import it.unical.xpoll.service.presence.PresenceTracker;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,9 +22,9 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class SessionController {
     private final SessionService sessionService;
-    private final VoteRepository voteRepository;
     private final UserRepository userRepository;
     private final UserService userService;
+    private final PresenceTracker presenceTracker;
 
     public record CreateSessionRequest(
             String creatorId,
@@ -85,12 +87,12 @@ public class SessionController {
     // Joins session as participant
     @PostMapping("/{code}/join")
     public ResponseEntity<?> joinSession(@PathVariable String code, @RequestBody JoinRequest request) {
-        Map<String, Object> result = sessionService.joinSession(code, request.displayName(), request.userId());
+        SessionService.JoinResult result = sessionService.joinSession(code, request.displayName(), request.userId());
 
-        if ((boolean) result.get("success")) {
-            return ResponseEntity.ok(result);
+        if (result.success()) {
+            return ResponseEntity.ok(result.body());
         }
-        return ResponseEntity.badRequest().body(result);
+        return ResponseEntity.badRequest().body(result.body());
     }
 
     // Leaves session as participant (removes from lobby)
@@ -223,6 +225,20 @@ public class SessionController {
         return ResponseEntity.notFound().build();
     }
 
+    // Gets the top participants of the session ranking.
+    @GetMapping("/{code}/leaderboard")
+    public ResponseEntity<?> getLeaderboard(@PathVariable String code, @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be positive"));
+        }
+        Map<String, Object> leaderboard = sessionService.getLeaderboard(code, limit);
+
+        if (leaderboard != null) {
+            return ResponseEntity.ok(leaderboard);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
     // Gets personalized participant results.
     @GetMapping("/{code}/results/{participantName}")
     public ResponseEntity<?> getParticipantResults(@PathVariable String code, @PathVariable String participantName) {
@@ -244,16 +260,20 @@ public class SessionController {
         map.put("resultsShown", session.getResultsShown());
         map.put("createdAt", session.getCreatedAt());
         map.put("exitedWithoutResults", session.getExitedWithoutResults());
-
-        if (session.getPoll() != null) {
-            map.put("pollTitle", session.getPoll().getTitle());
-            map.put("title", session.getPoll().getTitle());
-            map.put("timeLimit", session.getPoll().getTimeLimit());
-            map.put("description", session.getPoll().getDescription());
-            map.put("hasScore", session.getPoll().getHasScore());
-            map.put("isAnonymous", session.getPoll().getIsAnonymous());
-
-            List<Map<String, Object>> questions = session.getPoll().getQuestions().stream()
+        // Version of the last vote delta already reflected in this snapshot
+        map.put("version", sessionService.getLiveVersion(session.getCode()));
+
+        // Poll structure comes from the session's cached snapshot
+        PollSnapshot snapshot = session.getPoll() != null ? sessionService.getPollSnapshot(session) : null;
+        if (snapshot != null) {
+            map.put("pollTitle", snapshot.getTitle());
+            map.put("title", snapshot.getTitle());
+            map.put("timeLimit", snapshot.getTimeLimit());
+            map.put("description", snapshot.getDescription());
+            map.put("hasScore", snapshot.getHasScore());
+            map.put("isAnonymous", snapshot.getIsAnonymous());
+
+            List<Map<String, Object>> questions = snapshot.getQuestions().stream()
                     .map(q -> {
                         Map<String, Object> qMap = new HashMap<>();
                         qMap.put("id", q.getId());
@@ -265,10 +285,10 @@ public class SessionController {
                         List<Map<String, Object>> options = q.getOptions().stream()
                                 .map(o -> {
                                     Map<String, Object> oMap = new HashMap<>();
-                                    oMap.put("id", o.getId());
-                                    oMap.put("text", o.getText());
-                                    oMap.put("value", o.getValue());
-                                    oMap.put("isAIGenerated", o.getIsAIGenerated());
+                                    oMap.put("id", o.id());
+                                    oMap.put("text", o.text());
+                                    oMap.put("value", o.value());
+                                    oMap.put("isAIGenerated", o.isAIGenerated());
                                     return oMap;
                                 }).collect(Collectors.toList());
                         qMap.put("options", options);
@@ -283,7 +303,21 @@ public class SessionController {
 
         //Adds participants with their scores, completion time, and google status
         //Filters out the "Presenter" participant in the ranking.
-        final int totalQuestions = session.getPoll() != null ? session.getPoll().getQuestions().size() : 0;
+        final int totalQuestions = snapshot != null ? snapshot.getQuestions().size() : 0;
+        // Google users among participants in one batched lookup.
+        Set<Long> userIds = session.getParticipants().stream()
+                .map(Participant::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> googleUserIds = userIds.isEmpty() ? Set.of() : userRepository.findAllById(userIds).stream()
+                .filter(u -> u.getAccessMode() == AccessMode.GOOGLE)
+                .map(User::getId)
+                .collect(Collectors.toSet());
+
+        // Live presence from the websocket connections of this node
+        Set<Long> connectedIds = presenceTracker.getConnectedParticipantIds(session.getCode());
+        map.put("connectedCount", connectedIds.size());
+
         map.put("participants", session.getParticipants().stream()
                 .filter(p -> !"Presenter".equals(p.getName())) //hides presenter
                 .map(p -> {
@@ -291,62 +325,19 @@ public class SessionController {
                     pMap.put("id", p.getId());
                     pMap.put("name", p.getName());
                     pMap.put("joinedAt", p.getJoinedAt());
-                    // Calculates score and correct count from votes.
-                    int[] scoreAndCount = calculateParticipantScoreAndCount(session.getId(), p.getId());
-                    pMap.put("score", scoreAndCount[0]);
-                    pMap.put("correctCount", scoreAndCount[1]);
+                    // Read from the score ledger
+                    ScoringEngine.Score score = sessionService.getScore(session, p);
+                    pMap.put("score", score.score());
+                    pMap.put("correctCount", score.correctCount());
                     pMap.put("totalQuestions", totalQuestions);
                     // Adds completion time if available
                     pMap.put("completionTimeSeconds", p.getCompletionTimeSeconds());
                     // Checks if user is logged in with google.
-                    boolean isGoogleUser = false;
-
-                    if (p.getUserId() != null) {
-                        Optional<User> userOpt = userRepository.findById(p.getUserId());
-
-                        if (userOpt.isPresent() && userOpt.get().getAccessMode() == AccessMode.GOOGLE) {
-                            isGoogleUser = true;
-                        }
-                    }
-                    pMap.put("isGoogleUser", isGoogleUser);
+                    pMap.put("isGoogleUser", p.getUserId() != null && googleUserIds.contains(p.getUserId()));
+                    pMap.put("isConnected", connectedIds.contains(p.getId()));
                     return pMap;
                 })
                 .collect(Collectors.toList()));
         return map;
     }
-
-    //Calculates participant score and correct answers count from votes.
-    //returns int[]{totalScore, correctCount}
-    private int[] calculateParticipantScoreAndCount(Long sessionId, Long participantId) {
-        List<Vote> votes = voteRepository.findBySessionIdAndParticipantId(sessionId, participantId);
-        int totalScore = 0;
-        Set<Long> correctQuestionIds = new java.util.HashSet<>();
-
-        for (Vote v : votes) {
-            if (v.getOption() == null || v.getQuestion() == null) {
-                continue;
-            }
-
-            boolean optionIsCorrect = false;
-
-            // Checks if option has explicit value/score (positive or negative).
-            if (v.getOption().getValue() != null && v.getOption().getValue() != 0) {
-                totalScore += v.getOption().getValue();
-                // Only mark as correct if value is positive
-                if (v.getOption().getValue() > 0) {
-                    optionIsCorrect = true;
-                }
-            }
-            // Otherwise checks if this option is marked as correct.
-            else if (v.getOption().getIsCorrect() != null && v.getOption().getIsCorrect()) {
-                totalScore += 1; // 1 point for correct answer.
-                optionIsCorrect = true;
-            }
-
-            if(optionIsCorrect) {
-                correctQuestionIds.add(v.getQuestion().getId());
-            }
-        }
-        return new int[] { totalScore, correctQuestionIds.size() };
-    }
 }
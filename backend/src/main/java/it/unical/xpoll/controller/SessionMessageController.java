@@ -0,0 +1,92 @@
+package it.unical.xpoll.controller;
+
+import it.unical.xpoll.service.SessionService;
+import it.unical.xpoll.service.presence.PresenceTracker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//Participant actions over the open websocket (/app/session/{code}/...), same rules as the HTTP endpoints
+//in SessionController. Each reply goes to the sender only on /user/queue/reply and echoes the
+//requestId header so the client can match it to its request.
+@Slf4j
+@Controller
+@RequiredArgsConstructor
+public class SessionMessageController {
+    static final String REPLY_DESTINATION = "/queue/reply";
+
+    private final SessionService sessionService;
+    private final PresenceTracker presenceTracker;
+
+    // Joins session as participant
+    @MessageMapping("/session/{code}/join")
+    @SendToUser(destinations = REPLY_DESTINATION, broadcast = false)
+    public Map<String, Object> joinSession(@DestinationVariable String code,
+            @Payload SessionController.JoinRequest request,
+            @Header(name = "requestId", required = false) String requestId,
+            SimpMessageHeaderAccessor headers) {
+        SessionService.JoinResult result = sessionService.joinSession(code, request.displayName(), request.userId());
+
+        // This websocket is already subscribed to the session, so it counts as the participant's connection
+        if (result.success() && headers.getSessionId() != null) {
+            presenceTracker.attach(headers.getSessionId(), code, result.sessionToken(), result.participantId());
+        }
+        return reply("JOIN", requestId, result.body());
+    }
+
+    // Submits votes
+    @MessageMapping("/session/{code}/votes")
+    @SendToUser(destinations = REPLY_DESTINATION, broadcast = false)
+    public Map<String, Object> submitVotes(@DestinationVariable String code,
+            @Payload SessionController.VoteRequest request,
+            @Header(name = "requestId", required = false) String requestId) {
+        boolean success = sessionService.submitVotes(code, request.participantName(), request.answers());
+
+        return reply("VOTES", requestId, success
+                ? Map.of("success", true)
+                : Map.of("success", false, "error", "Cannot submit votes"));
+    }
+
+    // Leaves session as participant (removes from lobby)
+    @MessageMapping("/session/{code}/leave")
+    @SendToUser(destinations = REPLY_DESTINATION, broadcast = false)
+    public Map<String, Object> leaveSession(@DestinationVariable String code,
+            @Payload SessionController.LeaveRequest request,
+            @Header(name = "requestId", required = false) String requestId,
+            SimpMessageHeaderAccessor headers) {
+        boolean success = sessionService.leaveSession(code, request.participantName());
+        if (success && headers.getSessionId() != null) {
+            presenceTracker.detach(headers.getSessionId());
+        }
+
+        return reply("LEAVE", requestId, success
+                ? Map.of("success", true)
+                : Map.of("success", false, "error", "Could not leave session"));
+    }
+
+    // Unexpected failures still answer the request, so the client does not wait for its timeout
+    @MessageExceptionHandler
+    @SendToUser(destinations = REPLY_DESTINATION, broadcast = false)
+    public Map<String, Object> handleException(RuntimeException e,
+            @Header(name = "requestId", required = false) String requestId) {
+        log.error("Websocket request {} failed", requestId, e);
+        return reply("ERROR", requestId, Map.of("success", false, "error", "Request failed"));
+    }
+
+    private Map<String, Object> reply(String type, String requestId, Map<String, Object> result) {
+        Map<String, Object> reply = new HashMap<>(result);
+        reply.put("type", type);
+        reply.put("requestId", requestId);
+        return reply;
+    }
+}
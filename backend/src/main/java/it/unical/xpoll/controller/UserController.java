@@ -7,6 +7,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 
@@ -49,13 +50,17 @@ public class UserController {
 
     // Get participation history for current user.
     @GetMapping("/me/participations")
-    public ResponseEntity<List<ParticipationResponse>> getParticipations() {
+    // Keyset paginated: pass participationDate and participantId of the last item as before/beforeId.
+    public ResponseEntity<List<ParticipationResponse>> getParticipations(
+            @RequestParam(required = false) Instant before,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "20") int limit) {
         System.out.println("DEBUG getParticipations called");
 
         return userService.getCurrentUser()
                 .map(user -> {
                     System.out.println("DEBUG getParticipations: user found with id=" + user.getId());
-                    return ResponseEntity.ok(userService.getUserParticipations(user.getId()));
+                    return ResponseEntity.ok(userService.getUserParticipations(user.getId(), before, beforeId, limit));
                 }).orElseGet(() -> {
                     System.out.println("DEBUG getParticipations: no user found");
                     return ResponseEntity.notFound().build();
@@ -12,7 +12,8 @@ import lombok.*;
 @Builder
 public class Option {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "options_seq")
+    @SequenceGenerator(name = "options_seq", sequenceName = "options_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false, columnDefinition = "TEXT")
     private String text;
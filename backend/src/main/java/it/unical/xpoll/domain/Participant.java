@@ -13,7 +13,8 @@ import java.time.Instant;
 @Builder
 public class Participant {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "participants_seq")
+    @SequenceGenerator(name = "participants_seq", sequenceName = "participants_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private String name;
@@ -24,6 +25,16 @@ public class Participant {
     private Instant joinedAt;
     private Instant submittedAt;
     private Integer completionTimeSeconds;
+    //score ledger, updated when submitted answers are accepted (see ScoringEngine)
+    @Builder.Default
+    private Integer score = 0;
+    @Builder.Default
+    private Integer correctCount = 0;
+    //best score reachable in the session's poll, set with the first accepted answers
+    private Integer maxScore;
+    //questions the ledger accounts for; writes carrying an older count are ignored, so the ledger only moves forward
+    @Builder.Default
+    private Integer scoreVersion = 0;
     @Column
     private Long userId;
     @ManyToOne(fetch = FetchType.LAZY)
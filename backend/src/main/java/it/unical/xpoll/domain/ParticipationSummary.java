@@ -0,0 +1,40 @@
+package it.unical.xpoll.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+//Participation history row of a registered user, written once when the session is closed
+//so /api/users/me/participations never walks sessions, polls and votes.
+@Entity
+@Table(name = "participation_summaries", indexes = {
+        @Index(name = "idx_participation_summaries_user", columnList = "user_id, participation_date, participant_id"),
+        @Index(name = "idx_participation_summaries_session", columnList = "session_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ParticipationSummary {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "participation_summaries_seq")
+    @SequenceGenerator(name = "participation_summaries_seq", sequenceName = "participation_summaries_seq", allocationSize = 50)
+    private Long id;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Column(name = "participant_id", nullable = false, unique = true)
+    private Long participantId;
+    @Column(name = "session_id", nullable = false)
+    private Long sessionId;
+    private String pollTitle;
+    //joinedAt of the participant, keyset pagination cursor together with participantId
+    @Column(name = "participation_date", nullable = false)
+    private Instant participationDate;
+    private Integer score;
+    private Integer maxScore;
+    private Boolean isPresenter;
+    private Boolean hasParticipated;
+    private Integer completionTimeSeconds;
+    private Integer totalTimeSeconds;
+}
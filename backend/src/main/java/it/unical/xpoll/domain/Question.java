@@ -14,7 +14,8 @@ import java.util.List;
 @Builder
 public class Question {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "questions_seq")
+    @SequenceGenerator(name = "questions_seq", sequenceName = "questions_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false, columnDefinition = "TEXT")
     private String text;
@@ -2,6 +2,7 @@ package it.unical.xpoll.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +14,8 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+//Only changed columns are written, so saving a flag cannot put back a state closed meanwhile by another node
+@DynamicUpdate
 public class Session {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,7 +25,8 @@ public class Session {
     private String creatorId;
     //null if for anonymous/guest creators
     private Long creatorUserId;
-    @ManyToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    //lazy: live sessions read the poll from their cached snapshot
+    @ManyToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "poll_id")
     private Poll poll;
     @Enumerated(EnumType.STRING)
@@ -39,6 +43,8 @@ public class Session {
     private Boolean resultsShown = false;
     @Builder.Default
     private Boolean exitedWithoutResults = false;
+    //true when the code comes from SessionCodeAllocator, null for older sessions with random codes
+    private Boolean allocatedCode;
 
     public void addParticipant(Participant participant) {
         participant.setSession(this);
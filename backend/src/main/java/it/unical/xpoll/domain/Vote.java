@@ -13,7 +13,8 @@ import java.time.Instant;
 @Builder
 public class Vote {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "votes_seq")
+    @SequenceGenerator(name = "votes_seq", sequenceName = "votes_seq", allocationSize = 50)
     private Long id;
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "session_id", nullable = false)
@@ -12,6 +12,8 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 public class ParticipationResponse {
+    //with participationDate, the cursor of the next page
+    private Long participantId;
     private Long sessionId;
     private String pollTitle;
     private Instant participationDate;
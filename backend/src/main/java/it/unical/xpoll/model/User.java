@@ -13,7 +13,7 @@ import java.time.LocalDateTime;
  * Supports both local authentication (email/password) and OAuth (Google).
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_reset_token", columnList = "reset_token", unique = true))
 @Data
 @Builder
 @NoArgsConstructor
@@ -40,9 +40,9 @@ public class User {
     @Column
     private LocalDateTime registrationDate;
 
-    // Email reset
-    @Column
-    private String resetToken;
+    // Email reset: SHA-256 of the token sent by email, never the token itself
+    @Column(name = "reset_token")
+    private String resetTokenHash;
 
     @Column
     private LocalDateTime resetTokenExpiry;
@@ -2,7 +2,12 @@ package it.unical.xpoll.repository;
 
 import it.unical.xpoll.domain.Participant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +17,60 @@ public interface ParticipantRepository extends JpaRepository<Participant, Long>
     boolean existsByNameAndSessionCode(String name, String sessionCode);
     //finds all participations for a registered user
     List<Participant> findByUserId(Long userId);
+    //participants created before the score ledger existed
+    List<Participant> findByScoreIsNull();
+
+    //Writes the score ledger without loading the participant, unless a newer version is already there
+    @Modifying
+    @Query("UPDATE Participant p SET p.score = :score, p.correctCount = :correctCount, p.maxScore = :maxScore, " +
+            "p.scoreVersion = :scoreVersion WHERE p.id = :id AND COALESCE(p.scoreVersion, 0) < :scoreVersion")
+    void updateScore(@Param("id") Long id, @Param("score") int score, @Param("correctCount") int correctCount,
+            @Param("maxScore") int maxScore, @Param("scoreVersion") int scoreVersion);
+
+    //Sets the completion time of the first submission only
+    @Modifying
+    @Query("UPDATE Participant p SET p.submittedAt = :submittedAt, p.completionTimeSeconds = :completionTimeSeconds " +
+            "WHERE p.id = :id AND p.submittedAt IS NULL")
+    void markSubmitted(@Param("id") Long id, @Param("submittedAt") Instant submittedAt,
+            @Param("completionTimeSeconds") int completionTimeSeconds);
+
+    //Ledger of the registered participants of a session, read as scalars so bulk updates are visible
+    @Query("SELECT p.id AS id, p.userId AS userId, p.joinedAt AS joinedAt, p.score AS score, " +
+            "p.maxScore AS maxScore, p.completionTimeSeconds AS completionTimeSeconds " +
+            "FROM Participant p WHERE p.session.id = :sessionId AND p.userId IS NOT NULL")
+    List<LedgerRow> findRegisteredLedgerBySessionId(@Param("sessionId") Long sessionId);
+
+    //Participant behind a websocket connection, without loading the session
+    @Query("SELECT p.id AS id, p.session.code AS sessionCode FROM Participant p WHERE p.sessionToken = :sessionToken")
+    Optional<PresenceRef> findPresenceBySessionToken(@Param("sessionToken") String sessionToken);
+
+    //Writes coalesced presence changes
+    @Modifying
+    @Query("UPDATE Participant p SET p.isConnected = :connected WHERE p.sessionToken IN :sessionTokens")
+    void updateConnected(@Param("sessionTokens") Collection<String> sessionTokens, @Param("connected") boolean connected);
+
+    //closed sessions with registered participants, backfilled into the participation history
+    @Query("SELECT DISTINCT p.session.id FROM Participant p " +
+            "WHERE p.userId IS NOT NULL AND p.session.state = it.unical.xpoll.domain.SessionState.CLOSED")
+    List<Long> findClosedSessionIdsWithRegisteredParticipants();
+
+    interface PresenceRef {
+        Long getId();
+
+        String getSessionCode();
+    }
+
+    interface LedgerRow {
+        Long getId();
+
+        Long getUserId();
+
+        Instant getJoinedAt();
+
+        Integer getScore();
+
+        Integer getMaxScore();
+
+        Integer getCompletionTimeSeconds();
+    }
 }
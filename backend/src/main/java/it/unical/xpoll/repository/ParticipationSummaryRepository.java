@@ -0,0 +1,34 @@
+package it.unical.xpoll.repository;
+
+import it.unical.xpoll.domain.ParticipationSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ParticipationSummaryRepository extends JpaRepository<ParticipationSummary, Long> {
+    //First page of a user's history, newest first
+    @Query("SELECT s FROM ParticipationSummary s WHERE s.userId = :userId " +
+            "ORDER BY s.participationDate DESC, s.participantId DESC")
+    List<ParticipationSummary> findFirstPage(@Param("userId") Long userId, Limit limit);
+
+    //Next page after the (participationDate, participantId) of the last row already returned
+    @Query("SELECT s FROM ParticipationSummary s WHERE s.userId = :userId AND (s.participationDate < :before " +
+            "OR (s.participationDate = :before AND s.participantId < :beforeId)) " +
+            "ORDER BY s.participationDate DESC, s.participantId DESC")
+    List<ParticipationSummary> findPageBefore(@Param("userId") Long userId, @Param("before") Instant before,
+            @Param("beforeId") Long beforeId, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM ParticipationSummary s WHERE s.sessionId = :sessionId")
+    void deleteBySessionId(@Param("sessionId") Long sessionId);
+
+    @Modifying
+    @Query("DELETE FROM ParticipationSummary s WHERE s.participantId = :participantId")
+    void deleteByParticipantId(@Param("participantId") Long participantId);
+}
@@ -2,7 +2,11 @@ package it.unical.xpoll.repository;
 
 import it.unical.xpoll.domain.Session;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.Instant;
 import java.util.Optional;
 import it.unical.xpoll.domain.Poll;
 import it.unical.xpoll.domain.SessionState;
@@ -14,5 +18,32 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
 
     boolean existsByCode(String code);
 
+    //sessions created before the code allocator, whose random codes it may run into
+    boolean existsByAllocatedCodeIsNull();
+
+    boolean existsByCodeAndAllocatedCodeIsNull(String code);
+
     boolean existsByPollAndStateIn(Poll poll, List<SessionState> states);
+
+    //Closes the session unless it already is; returns 1 only to the caller that closed it.
+    //Pending changes of the session (e.g. resultsShown) are flushed first.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Session s SET s.state = it.unical.xpoll.domain.SessionState.CLOSED, s.endedAt = :endedAt " +
+            "WHERE s.id = :id AND s.state <> it.unical.xpoll.domain.SessionState.CLOSED")
+    int closeIfNotClosed(@Param("id") Long id, @Param("endedAt") Instant endedAt);
+
+    //deadlines of open sessions, re-armed on startup
+    @Query("SELECT s.code AS code, s.timerStartedAt AS timerStartedAt, p.timeLimit AS timeLimit " +
+            "FROM Session s JOIN s.poll p " +
+            "WHERE s.state = it.unical.xpoll.domain.SessionState.OPEN AND s.timerStartedAt IS NOT NULL " +
+            "AND p.timeLimit > 0")
+    List<OpenSessionTimer> findOpenSessionTimers();
+
+    interface OpenSessionTimer {
+        String getCode();
+
+        java.time.Instant getTimerStartedAt();
+
+        Integer getTimeLimit();
+    }
 }
@@ -2,8 +2,12 @@ package it.unical.xpoll.repository;
 
 import it.unical.xpoll.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +18,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByUsername(String username);
     boolean existsByEmail(String email);
+    //uses the unique reset token index
+    Optional<User> findByResetTokenHash(String resetTokenHash);
+
+    //Clears reset tokens that expired before the given time
+    @Modifying
+    @Query("UPDATE User u SET u.resetTokenHash = NULL, u.resetTokenExpiry = NULL " +
+            "WHERE u.resetTokenExpiry < :now")
+    int clearExpiredResetTokens(@Param("now") LocalDateTime now);
 }
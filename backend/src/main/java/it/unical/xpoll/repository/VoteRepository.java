@@ -22,4 +22,66 @@ public interface VoteRepository extends JpaRepository<Vote, Long> {
         boolean existsBySessionIdAndParticipantId(Long sessionId, Long participantId);
         List<Vote> findByParticipant(Participant participant);
         List<Vote> findByParticipantId(Long participantId);
+
+        //Counts votes per option in a single grouped query, used to rebuild live tallies.
+        @org.springframework.data.jpa.repository.Query("SELECT v.question.id AS questionId, v.option.id AS optionId, " +
+                        "COUNT(v) AS votes FROM Vote v " +
+                        "WHERE v.session.id = :sessionId " +
+                        "GROUP BY v.question.id, v.option.id")
+        List<OptionVoteCount> countVotesByOption(
+                        @org.springframework.data.repository.query.Param("sessionId") Long sessionId);
+
+        @org.springframework.data.jpa.repository.Query("SELECT DISTINCT v.participant.id AS participantId, " +
+                        "v.question.id AS questionId FROM Vote v " +
+                        "WHERE v.session.id = :sessionId")
+        List<AnsweredQuestion> findAnsweredQuestionsBySessionId(
+                        @org.springframework.data.repository.query.Param("sessionId") Long sessionId);
+
+        @org.springframework.data.jpa.repository.Query("SELECT v.question.id AS questionId, v.option.id AS optionId " +
+                        "FROM Vote v WHERE v.session.id = :sessionId AND v.participant.id = :participantId")
+        List<VoteSelection> findSelectionsBySessionIdAndParticipantId(
+                        @org.springframework.data.repository.query.Param("sessionId") Long sessionId,
+                        @org.springframework.data.repository.query.Param("participantId") Long participantId);
+
+        //All selections of a session in one query, grouped by participant by the caller.
+        //Replaces the per-participant SQL score aggregate: exact-match correctness over several options
+        //per question cannot be expressed in a GROUP BY, so ScoringEngine scores these rows instead.
+        @org.springframework.data.jpa.repository.Query("SELECT v.participant.id AS participantId, " +
+                        "v.question.id AS questionId, v.option.id AS optionId " +
+                        "FROM Vote v WHERE v.session.id = :sessionId")
+        List<ParticipantSelection> findSelectionsBySessionId(
+                        @org.springframework.data.repository.query.Param("sessionId") Long sessionId);
+
+        @org.springframework.data.jpa.repository.Query("SELECT DISTINCT v.participant.id FROM Vote v " +
+                        "WHERE v.session.id = :sessionId")
+        List<Long> findVoterIdsBySessionId(
+                        @org.springframework.data.repository.query.Param("sessionId") Long sessionId);
+
+        interface VoteSelection {
+                Long getQuestionId();
+
+                Long getOptionId();
+        }
+
+        interface ParticipantSelection {
+                Long getParticipantId();
+
+                Long getQuestionId();
+
+                Long getOptionId();
+        }
+
+        interface AnsweredQuestion {
+                Long getParticipantId();
+
+                Long getQuestionId();
+        }
+
+        interface OptionVoteCount {
+                Long getQuestionId();
+
+                Long getOptionId();
+
+                Long getVotes();
+        }
 }
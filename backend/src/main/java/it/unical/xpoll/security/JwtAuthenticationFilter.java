@@ -1,7 +1,7 @@
 package it.unical.xpoll.security;
 
+import io.jsonwebtoken.Claims;
 import it.unical.xpoll.model.User;
-import it.unical.xpoll.repository.UserRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,16 +23,16 @@ import java.util.Optional;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         try {
             String jwt = getJwtFromRequest(request);
-            if (StringUtils.hasText(jwt) && tokenProvider.verifyToken(jwt)) {
-                String email = tokenProvider.getEmailFromToken(jwt);
-                Optional<User> userOptional = userRepository.findByEmail(email);
+            Optional<Claims> claims = StringUtils.hasText(jwt) ? tokenProvider.parseToken(jwt) : Optional.empty();
+            if (claims.isPresent()) {
+                Optional<User> userOptional = principalCache.resolve(claims.get());
 
                 if (userOptional.isPresent()) {
                     User user = userOptional.get();
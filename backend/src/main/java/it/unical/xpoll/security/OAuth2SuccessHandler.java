@@ -21,6 +21,7 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
 
     private final UserRepository userRepository;
     private final JwtTokenProvider tokenProvider;
+    private final PrincipalCache principalCache;
 
     @Value("${app.frontend.url}")
     private String frontendUrl;
@@ -48,7 +49,9 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
                     existingUser.setGoogleId(googleId);
                     if (existingUser.getAccessMode() == AccessMode.LOCAL)
                         existingUser.setAccessMode(AccessMode.GOOGLE);
-                    return userRepository.save(existingUser);
+                    User saved = userRepository.save(existingUser);
+                    principalCache.invalidate(saved.getId());
+                    return saved;
                 })
                 .orElseGet(() -> {
                     User newUser = User.builder()
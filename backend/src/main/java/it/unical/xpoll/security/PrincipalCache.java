@@ -0,0 +1,178 @@
+package it.unical.xpoll.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import it.unical.xpoll.model.User;
+import it.unical.xpoll.repository.UserRepository;
+import it.unical.xpoll.service.broadcast.ClusterChannel;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Authenticated principals by userId claim, so verified requests do not hit the database.
+//The cache keeps a detached snapshot of the user and every request gets its own copy, so changes made to a
+//request's principal (or to a managed entity) never reach the cache.
+//Entries live for a bounded time and are invalidated when the user is changed, on every node through the
+//cluster channel after the change commits. Invalidations are best effort: a lost one leaves a node serving
+//the old user until the entry expires (ttl-seconds).
+//Past max-size the least recently used principal is evicted, one at a time, so a full cache keeps its hot users.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final JwtTokenProvider tokenProvider;
+    private final ObjectProvider<ClusterChannel> clusterChannel;
+    private final ObjectMapper objectMapper;
+    //access order: the eldest entry is the least recently used one
+    private final LinkedHashMap<Long, CachedPrincipal> principals = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedPrincipal> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Value("${app.jwt.principal-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${app.jwt.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    @PostConstruct
+    public void start() {
+        ClusterChannel channel = clusterChannel.getIfAvailable();
+        if (channel != null) {
+            channel.subscribe(this::onClusterEvent);
+        }
+    }
+
+    //Resolves the user of already verified claims.
+    public Optional<User> resolve(Claims claims) {
+        String email = claims.getSubject();
+        Long userId = tokenProvider.getUserId(claims);
+        if (userId == null) {
+            // Tokens issued without the userId claim
+            return userRepository.findByEmail(email);
+        }
+
+        long now = System.currentTimeMillis();
+        CachedPrincipal cached = get(userId);
+        if (cached != null && cached.expiresAt() > now && cached.user().getEmail().equals(email)) {
+            return Optional.of(copyOf(cached.user()));
+        }
+
+        Optional<User> user = userRepository.findById(userId).filter(u -> email.equals(u.getEmail()));
+        lock.lock();
+        try {
+            if (user.isPresent()) {
+                principals.put(userId, new CachedPrincipal(copyOf(user.get()), now + ttlSeconds * 1000));
+            } else {
+                principals.remove(userId);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return user.map(PrincipalCache::copyOf);
+    }
+
+    //Drops the user here, and on the other nodes once the current transaction (if any) commits.
+    public void invalidate(Long userId) {
+        if (userId == null)
+            return;
+        remove(userId);
+
+        ClusterChannel channel = clusterChannel.getIfAvailable();
+        if (channel == null)
+            return;
+
+        String event;
+        try {
+            event = objectMapper.writeValueAsString(Map.of("type", "PRINCIPAL_INVALIDATED", "userId", userId));
+        } catch (JsonProcessingException e) {
+            log.error("Error publishing the invalidation of user {}: {}", userId, e.getMessage());
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    channel.publishEvent(event);
+                }
+            });
+        } else {
+            channel.publishEvent(event);
+        }
+    }
+
+    void onClusterEvent(String json) {
+        Map<String, Object> event;
+        try {
+            event = objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (JsonProcessingException e) {
+            log.warn("Malformed cluster event: {}", e.getMessage());
+            return;
+        }
+        if ("PRINCIPAL_INVALIDATED".equals(event.get("type")) && event.get("userId") instanceof Number userId) {
+            remove(userId.longValue());
+        }
+    }
+
+    private void remove(Long userId) {
+        lock.lock();
+        try {
+            principals.remove(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static User copyOf(User user) {
+        return User.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .username(user.getUsername())
+                .password(user.getPassword())
+                .accessMode(user.getAccessMode())
+                .registrationDate(user.getRegistrationDate())
+                .resetTokenHash(user.getResetTokenHash())
+                .resetTokenExpiry(user.getResetTokenExpiry())
+                .googleId(user.getGoogleId())
+                .build();
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return principals.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CachedPrincipal get(Long userId) {
+        lock.lock();
+        try {
+            return principals.get(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record CachedPrincipal(User user, long expiresAt) {
+    }
+}
@@ -1,5 +1,6 @@
 package it.unical.xpoll.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -28,6 +29,9 @@ public class SecurityConfig {
                                 .sessionManagement(session -> session
                                                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                                 .authorizeHttpRequests(auth -> auth
+                                                // Async dispatches (e.g. SSE completion) belong to a request already authorized
+                                                .dispatcherTypeMatchers(DispatcherType.ASYNC)
+                                                .permitAll()
                                                 .requestMatchers(
                                                                 "/",
                                                                 "/oauth2/**",
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 /* 
@@ -24,6 +25,8 @@ public class EmailService {
     @Value("${app.frontend.url}")
     private String frontendUrl;
 
+    //Sent in the background: the request does not wait on SMTP (its answer is the same whether the email exists or not)
+    @Async
     public void sendPasswordResetEmail(String toEmail, String token) {
         if (mailSender == null)
             return;
@@ -1,19 +1,43 @@
 package it.unical.xpoll.service;
 
 import com.google.genai.Client;
+import com.google.genai.ResponseStream;
 import com.google.genai.types.*;
+import it.unical.xpoll.service.ai.provider.AIProvider;
 import it.unical.xpoll.service.ai.strategy.PromptStrategy;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+//Gemini implementation of AIProvider (app.ai.provider=gemini, the default)
 @Service
-public class GeminiApiService {
+@ConditionalOnProperty(name = "app.ai.provider", havingValue = "gemini", matchIfMissing = true)
+public class GeminiApiService implements AIProvider {
     private final Client client;
+    //Closes streams that outlive their strategy timeout, which also unblocks a read stuck on a stalled chunk
+    private final ScheduledExecutorService streamDeadlines = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "gemini-stream-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public GeminiApiService(Client client) {
         this.client = client;
     }
 
-    public String generateWithStrategy(String sessionId, String prompt, PromptStrategy strategy) {
+    @PreDestroy
+    public void stop() {
+        streamDeadlines.shutdownNow();
+    }
+
+    @Override
+    public String generate(String prompt, PromptStrategy strategy) {
         try {
             GenerateContentConfig config = GenerateContentConfig.builder()
                     .systemInstruction(Content.fromParts(Part.fromText(strategy.getSystemInstruction())))
@@ -29,13 +53,47 @@ public class GeminiApiService {
         }
     }
 
-    public String generatePollFromPrompt(String sessionId, String prompt, PromptStrategy strategy) {
-        return generateWithStrategy(sessionId, prompt, strategy);
+    //The timeout is enforced from outside by closing the response stream; an interrupt is noticed between chunks
+    @Override
+    public boolean stream(String prompt, PromptStrategy strategy, Consumer<String> onChunk) {
+        GenerateContentConfig config = GenerateContentConfig.builder()
+                .systemInstruction(Content.fromParts(Part.fromText(strategy.getSystemInstruction())))
+                .responseMimeType("application/json").build();
+
+        Content userContent = Content.fromParts(Part.fromText(prompt));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(strategy.getTimeoutSeconds());
+        ScheduledFuture<?> closer = null;
+        try (ResponseStream<GenerateContentResponse> stream = client.models.generateContentStream("gemini-2.5-flash",
+                userContent, config)) {
+            closer = streamDeadlines.schedule(() -> closeQuietly(stream), Math.max(0, deadline - System.nanoTime()),
+                    TimeUnit.NANOSECONDS);
+            for (GenerateContentResponse response : stream) {
+                if (System.nanoTime() > deadline || Thread.currentThread().isInterrupted()) {
+                    System.err.println("AI streaming stopped after " + strategy.getTimeoutSeconds() + "s");
+                    return false;
+                }
+                String text = response.text();
+                if (text != null && !text.isEmpty()) {
+                    onChunk.accept(text);
+                }
+            }
+            // Closed at the deadline, the stream may just look finished
+            return System.nanoTime() <= deadline;
+        } catch (Exception e) {
+            System.err.println("Error during AI streaming: " + e.getMessage());
+            return false;
+        } finally {
+            if (closer != null) {
+                closer.cancel(false);
+            }
+        }
     }
 
-    public String generateAnswersForQuestion(String sessionId, String questionText, int numAnswers,
-            PromptStrategy strategy) {
-        String prompt = String.format("Generate %d answer options for this question: %s", numAnswers, questionText);
-        return generateWithStrategy(sessionId, prompt, strategy);
+    private static void closeQuietly(AutoCloseable stream) {
+        try {
+            stream.close();
+        } catch (Exception e) {
+            // the streaming thread reports the failure
+        }
     }
 }
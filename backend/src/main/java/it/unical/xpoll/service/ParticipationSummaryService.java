@@ -0,0 +1,107 @@
+package it.unical.xpoll.service;
+
+import it.unical.xpoll.domain.ParticipationSummary;
+import it.unical.xpoll.domain.Poll;
+import it.unical.xpoll.domain.Session;
+import it.unical.xpoll.dto.ParticipationResponse;
+import it.unical.xpoll.repository.ParticipantRepository;
+import it.unical.xpoll.repository.ParticipationSummaryRepository;
+import it.unical.xpoll.repository.VoteRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+//Writes the participation history of registered users when a session is closed, and serves it by keyset pages.
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ParticipationSummaryService {
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final ParticipationSummaryRepository summaryRepository;
+    private final ParticipantRepository participantRepository;
+    private final VoteRepository voteRepository;
+
+    // (Re)writes the summaries of every registered participant of a closed session
+    public void summarize(Session session) {
+        summaryRepository.deleteBySessionId(session.getId());
+        summaryRepository.saveAll(buildSummaries(session, null));
+    }
+
+    // Rewrites one participant's summary, e.g. after answers submitted to an already closed session
+    public void summarize(Session session, Long participantId) {
+        summaryRepository.deleteByParticipantId(participantId);
+        summaryRepository.saveAll(buildSummaries(session, participantId));
+    }
+
+    public void deleteSession(Long sessionId) {
+        summaryRepository.deleteBySessionId(sessionId);
+    }
+
+    // A page of a user's history, newest first; before/beforeId are the cursor of the last item already shown
+    @Transactional(readOnly = true)
+    public List<ParticipationResponse> getParticipations(Long userId, Instant before, Long beforeId, int limit) {
+        Limit pageSize = Limit.of(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<ParticipationSummary> page = before != null && beforeId != null
+                ? summaryRepository.findPageBefore(userId, before, beforeId, pageSize)
+                : summaryRepository.findFirstPage(userId, pageSize);
+
+        return page.stream().map(s -> ParticipationResponse.builder()
+                .participantId(s.getParticipantId())
+                .sessionId(s.getSessionId())
+                .pollTitle(s.getPollTitle())
+                .participationDate(s.getParticipationDate())
+                .score(s.getScore())
+                .maxScore(s.getMaxScore())
+                .isPresenter(s.getIsPresenter())
+                .hasParticipated(s.getHasParticipated())
+                .completionTimeSeconds(s.getCompletionTimeSeconds())
+                .totalTimeSeconds(s.getTotalTimeSeconds())
+                .build())
+                .toList();
+    }
+
+    // Only the presenter and participants that submitted votes have a history entry
+    private List<ParticipationSummary> buildSummaries(Session session, Long onlyParticipantId) {
+        Poll poll = session.getPoll();
+        List<ParticipationSummary> summaries = new ArrayList<>();
+        if (poll == null)
+            return summaries;
+
+        Set<Long> voterIds = new HashSet<>(voteRepository.findVoterIdsBySessionId(session.getId()));
+        for (ParticipantRepository.LedgerRow row : participantRepository.findRegisteredLedgerBySessionId(session.getId())) {
+            if (onlyParticipantId != null && !onlyParticipantId.equals(row.getId()))
+                continue;
+
+            boolean isPresenter = Objects.equals(row.getUserId(), session.getCreatorUserId());
+            boolean hasVoted = voterIds.contains(row.getId());
+            if (!isPresenter && !hasVoted)
+                continue;
+
+            Instant participationDate = row.getJoinedAt() != null ? row.getJoinedAt()
+                    : session.getCreatedAt() != null ? session.getCreatedAt() : Instant.EPOCH;
+            summaries.add(ParticipationSummary.builder()
+                    .userId(row.getUserId())
+                    .participantId(row.getId())
+                    .sessionId(session.getId())
+                    .pollTitle(poll.getTitle())
+                    .participationDate(participationDate)
+                    .score(hasVoted && row.getScore() != null ? row.getScore() : 0)
+                    .maxScore(hasVoted && row.getMaxScore() != null ? row.getMaxScore() : 0)
+                    .isPresenter(isPresenter)
+                    .hasParticipated(hasVoted)
+                    .completionTimeSeconds(row.getCompletionTimeSeconds())
+                    .totalTimeSeconds(poll.getTimeLimit())
+                    .build());
+        }
+        return summaries;
+    }
+}
@@ -1,37 +1,91 @@
 package it.unical.xpoll.service;
 
+import it.unical.xpoll.service.ai.cache.AIResultCache;
+import it.unical.xpoll.service.ai.exec.AIExecutor;
+import it.unical.xpoll.service.ai.exec.AIUnavailableException;
 import it.unical.xpoll.service.ai.factory.AIResponseFactory;
+import it.unical.xpoll.service.ai.provider.AIProvider;
 import it.unical.xpoll.service.ai.factory.AIResponseFactory.PollData;
 import it.unical.xpoll.service.ai.factory.AIResponseFactory.OptionData;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.QuestionData;
+import it.unical.xpoll.service.ai.stream.PollStreamHandle;
+import it.unical.xpoll.service.ai.stream.PollStreamListener;
+import it.unical.xpoll.service.ai.stream.PollStreamParser;
 import it.unical.xpoll.service.ai.strategy.PollGenerationStrategy;
 import it.unical.xpoll.service.ai.strategy.AnswerGenerationStrategy;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class PollAIService {
+    private static final Set<String> STREAMED_FIELDS = Set.of("title", "description");
 
-    private final GeminiApiService geminiApiService;
+    private final AIProvider aiProvider;
     private final AIResponseFactory responseFactory;
     private final PollGenerationStrategy pollStrategy;
     private final AnswerGenerationStrategy answerStrategy;
+    private final AIResultCache resultCache;
+    private final AIExecutor aiExecutor;
+    //Streamed generations run here, not on the request thread; each holds its thread while the model writes
+    private final ExecutorService streamExecutor;
+    //Stops streams that outlive the poll strategy timeout
+    private final ScheduledExecutorService streamDeadlines;
 
-    public PollAIService(GeminiApiService geminiApiService, AIResponseFactory responseFactory,
-            PollGenerationStrategy pollStrategy, AnswerGenerationStrategy answerStrategy) {
-        this.geminiApiService = geminiApiService;
+    public PollAIService(AIProvider aiProvider, AIResponseFactory responseFactory,
+            PollGenerationStrategy pollStrategy, AnswerGenerationStrategy answerStrategy, AIResultCache resultCache,
+            AIExecutor aiExecutor, @Value("${app.ai.stream.max-concurrent:16}") int maxConcurrentStreams,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.aiProvider = aiProvider;
         this.responseFactory = responseFactory;
         this.pollStrategy = pollStrategy;
         this.answerStrategy = answerStrategy;
+        this.resultCache = resultCache;
+        this.aiExecutor = aiExecutor;
+        this.streamExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ai-stream-", 0).factory())
+                : Executors.newFixedThreadPool(maxConcurrentStreams, r -> {
+                    Thread thread = new Thread(r, "ai-stream");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.streamDeadlines = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ai-stream-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        streamDeadlines.shutdownNow();
+        streamExecutor.shutdownNow();
     }
 
     public PollData generatePollFromPrompt(String userPrompt) {
-        String sessionId = UUID.randomUUID().toString();
+        Optional<PollData> cached = resultCache.getPoll(userPrompt, pollStrategy.getClass());
+        if (cached.isPresent())
+            return cached.get();
 
         try {
             String prompt = pollStrategy.buildPrompt(userPrompt);
-            String aiResponse = geminiApiService.generatePollFromPrompt(sessionId, prompt, pollStrategy);
+            String aiResponse = aiExecutor.execute(pollStrategy, prompt,
+                    () -> aiProvider.generate(prompt, pollStrategy));
 
             if (aiResponse == null || aiResponse.isEmpty())
                 return null;
@@ -49,21 +103,56 @@ public class PollAIService {
                     throw new IllegalStateException("Each question must have at least 2 options");
             }
 
+            resultCache.putPoll(userPrompt, pollStrategy.getClass(), pollData);
             return pollData;
 
+        } catch (AIUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("Error generating poll: " + e.getMessage());
             return null;
         }
     }
 
+    //Same poll as generatePollFromPrompt, but title, description and each valid question are passed to the
+    //listener as soon as the model has written them. Returns immediately; the listener is called from a stream thread.
+    //A cached poll is replayed at once; a completed stream is cached like a blocking generation.
+    //The stream is stopped from outside once the strategy timeout passes, even when the model stalls mid-chunk,
+    //and the listener then gets onError. Cancel the returned handle when the client goes away.
+    //Throws AIUnavailableException when no stream can start now.
+    public PollStreamHandle streamPollFromPrompt(String userPrompt, PollStreamListener listener) {
+        Optional<PollData> cached = resultCache.getPoll(userPrompt, pollStrategy.getClass());
+        if (cached.isPresent()) {
+            PollData poll = cached.get();
+            listener.onField("title", poll.title());
+            listener.onField("description", poll.description());
+            poll.questions().forEach(listener::onQuestion);
+            listener.onComplete(poll.questions().size());
+            return () -> {
+            };
+        }
+
+        // Rejected here, on the request thread, when the poll strategy is saturated
+        Semaphore permit = aiExecutor.acquire(pollStrategy);
+        StreamedPoll stream = new StreamedPoll(userPrompt, listener, permit);
+        int timeoutSeconds = pollStrategy.getTimeoutSeconds();
+        stream.deadline = streamDeadlines.schedule(
+                () -> stream.stop(AIUnavailableException.timedOut(timeoutSeconds).getMessage()),
+                timeoutSeconds, TimeUnit.SECONDS);
+        stream.future = streamExecutor.submit(stream::run);
+        return stream;
+    }
+
     public List<OptionData> generateAnswersForQuestion(String questionText, int numAnswers) {
-        String sessionId = UUID.randomUUID().toString();
+        Optional<List<OptionData>> cached = resultCache.getAnswers(questionText, numAnswers, answerStrategy.getClass());
+        if (cached.isPresent())
+            return cached.get();
 
         try {
-            String prompt = answerStrategy.buildPrompt(questionText);
-            String aiResponse = geminiApiService.generateAnswersForQuestion(sessionId, prompt, numAnswers,
-                    answerStrategy);
+            String prompt = String.format("Generate %d answer options for this question: %s", numAnswers,
+                    answerStrategy.buildPrompt(questionText));
+            String aiResponse = aiExecutor.execute(answerStrategy, prompt,
+                    () -> aiProvider.generate(prompt, answerStrategy));
 
             if (aiResponse == null || aiResponse.isEmpty())
                 return null;
@@ -73,11 +162,112 @@ public class PollAIService {
             if (options == null || options.size() < 2)
                 throw new IllegalStateException("Must generate at least 2 answer options");
 
+            resultCache.putAnswers(questionText, numAnswers, answerStrategy.getClass(), options);
             return options;
+        } catch (AIUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("Error generating answers: " + e.getMessage());
             return null;
         }
     }
 
+    //One streamed generation. It ends exactly once: completed, failed, timed out or cancelled; the listener
+    //hears nothing after that. As in AIExecutor, the permit is held until the stream thread really ends
+    //(or released at once if the stream never started).
+    private final class StreamedPoll implements PollStreamHandle {
+        private final String userPrompt;
+        private final PollStreamListener listener;
+        private final Semaphore permit;
+        //claimed by the stream thread when it starts, or by stop if it never started
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean ended = new AtomicBoolean();
+        private volatile Future<?> future;
+        private volatile ScheduledFuture<?> deadline;
+
+        StreamedPoll(String userPrompt, PollStreamListener listener, Semaphore permit) {
+            this.userPrompt = userPrompt;
+            this.listener = listener;
+            this.permit = permit;
+        }
+
+        void run() {
+            if (!started.compareAndSet(false, true))
+                return;
+            // Parser callbacks all run on this thread
+            Map<String, String> fields = new HashMap<>();
+            List<QuestionData> questions = new ArrayList<>();
+            try {
+                PollStreamParser parser = new PollStreamParser(new PollStreamParser.Listener() {
+                    @Override
+                    public void onField(String name, String rawJson) {
+                        if (STREAMED_FIELDS.contains(name) && !ended.get()) {
+                            String value = responseFactory.createTextFromJson(rawJson);
+                            fields.put(name, value);
+                            listener.onField(name, value);
+                        }
+                    }
+
+                    @Override
+                    public void onQuestion(String rawJson) {
+                        QuestionData question = responseFactory.createQuestionFromJson(rawJson);
+                        if (question != null && !ended.get()) {
+                            questions.add(question);
+                            listener.onQuestion(question);
+                        }
+                    }
+                });
+
+                String prompt = pollStrategy.buildPrompt(userPrompt);
+                boolean streamed = aiProvider.stream(prompt, pollStrategy, parser::feed);
+
+                if (!streamed) {
+                    fail("Failed to generate poll from AI");
+                } else if (questions.isEmpty()) {
+                    fail("Poll must have at least 1 question");
+                } else if (ended.compareAndSet(false, true)) {
+                    resultCache.putPoll(userPrompt, pollStrategy.getClass(), new PollData(
+                            fields.getOrDefault("title", ""), fields.getOrDefault("description", ""), List.copyOf(questions)));
+                    listener.onComplete(questions.size());
+                }
+            } catch (Exception e) {
+                System.err.println("Error streaming poll: " + e.getMessage());
+                fail("Failed to generate poll from AI");
+            } finally {
+                ScheduledFuture<?> timer = deadline;
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+                permit.release();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            stop(null);
+        }
+
+        //Ends the stream from outside: tells the listener (unless message is null) and interrupts the stream thread
+        void stop(String message) {
+            if (!ended.compareAndSet(false, true))
+                return;
+            if (message != null) {
+                listener.onError(message);
+            }
+            if (started.compareAndSet(false, true)) {
+                deadline.cancel(false);
+                permit.release();
+            }
+            Future<?> running = future;
+            if (running != null) {
+                running.cancel(true);
+            }
+        }
+
+        private void fail(String message) {
+            if (ended.compareAndSet(false, true)) {
+                listener.onError(message);
+            }
+        }
+    }
 }
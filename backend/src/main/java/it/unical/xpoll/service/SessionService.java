@@ -2,14 +2,35 @@ package it.unical.xpoll.service;
 
 import it.unical.xpoll.domain.*;
 import it.unical.xpoll.repository.*;
+import it.unical.xpoll.service.broadcast.SessionBroadcaster;
+import it.unical.xpoll.service.code.SessionCodeAllocator;
+import it.unical.xpoll.service.ingestion.PendingSubmission;
+import it.unical.xpoll.service.ingestion.VoteIngestionQueue;
+import it.unical.xpoll.service.live.Leaderboard;
+import it.unical.xpoll.service.live.LiveSession;
+import it.unical.xpoll.service.live.LiveSessionRegistry;
+import it.unical.xpoll.service.live.LiveSessionSync;
+import it.unical.xpoll.service.live.PollSnapshot;
+import it.unical.xpoll.service.live.ScoringEngine;
+import it.unical.xpoll.service.timer.SessionTimerService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -18,25 +39,29 @@ public class SessionService {
     private final VoteRepository voteRepository;
     private final ParticipantRepository participantRepository;
     private final QuestionRepository questionRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final OptionRepository optionRepository;
+    private final SessionBroadcaster sessionBroadcaster;
     private final PollRepository pollRepository;
     private final UserRepository userRepository;
     private final PollService pollService;
+    private final LiveSessionRegistry liveSessionRegistry;
+    private final LiveSessionSync liveSessionSync;
+    private final ObjectProvider<VoteIngestionQueue> voteIngestionQueue;
+    private final SessionCodeAllocator sessionCodeAllocator;
+    private final ParticipationSummaryService participationSummaryService;
+    private final SessionTimerService sessionTimerService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Size of the top N streamed to /topic/session/{code}/leaderboard
+    @Value("${app.leaderboard.broadcast-size:10}")
+    private int leaderboardBroadcastSize;
+
+    // How long closing a session waits for queued votes before deferring the participation history
+    @Value("${app.votes.flush-timeout-ms:5000}")
+    private long voteFlushTimeoutMs;
 
     private String generateCode() {
-        String chars = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
-        Random random = new Random();
-        StringBuilder code = new StringBuilder();
-
-        do {
-            code.setLength(0);
-
-            for (int i = 0; i < 6; i++) {
-                code.append(chars.charAt(random.nextInt(chars.length())));
-            }
-        } while (sessionRepository.existsByCode(code.toString()));
-
-        return code.toString();
+        return sessionCodeAllocator.allocate();
     }
 
     // Creates new session with poll data
@@ -45,6 +70,7 @@ public class SessionService {
 
         Session session = Session.builder()
                 .code(generateCode())
+                .allocatedCode(true)
                 .creatorId(creatorId)
                 .creatorUserId(creatorUserId)
                 .createdAt(Instant.now())
@@ -100,6 +126,7 @@ public class SessionService {
 
         Session session = Session.builder()
                 .code(generateCode())
+                .allocatedCode(true)
                 .creatorId(creatorId)
                 .creatorUserId(creatorUserId) // for history tracking
                 .createdAt(Instant.now())
@@ -131,18 +158,29 @@ public class SessionService {
     }
 
     // Joins session as participant.
-    public Map<String, Object> joinSession(String code, String displayName, Long userId) {
+    //Outcome of joinSession: the response body, plus the new participant's id and token when it joined
+    public record JoinResult(Map<String, Object> body, Long participantId, String sessionToken) {
+        static JoinResult failed(Map<String, Object> body) {
+            return new JoinResult(body, null, null);
+        }
+
+        public boolean success() {
+            return participantId != null;
+        }
+    }
+
+    public JoinResult joinSession(String code, String displayName, Long userId) {
         System.out.println("DEBUG joinSession: code=" + code + ", displayName=" + displayName + ", userId=" + userId);
         Optional<Session> opt = sessionRepository.findByCode(code.toUpperCase());
 
         if (opt.isEmpty()) {
-            return Map.of("success", false, "error", "Session not found");
+            return JoinResult.failed(Map.of("success", false, "error", "Session not found"));
         }
 
         Session session = opt.get();
 
         if (session.getState() == SessionState.CLOSED) {
-            return Map.of("success", false, "error", "Session is closed");
+            return JoinResult.failed(Map.of("success", false, "error", "Session is closed"));
         }
 
         // Check for duplicate name in this session
@@ -150,7 +188,7 @@ public class SessionService {
                 .anyMatch(p -> p.getName().equalsIgnoreCase(displayName));
 
         if (nameExists)
-            return Map.of("success", false, "error", "Display name already taken", "code", "NAME_TAKEN");
+            return JoinResult.failed(Map.of("success", false, "error", "Display name already taken", "code", "NAME_TAKEN"));
 
         // Create new participant linked to session
         Participant participant = Participant.builder()
@@ -158,7 +196,8 @@ public class SessionService {
                 .session(session)
                 .sessionToken(UUID.randomUUID().toString())
                 .joinedAt(Instant.now())
-                .isConnected(true)
+                // Set once the participant's websocket subscribes (see PresenceTracker)
+                .isConnected(false)
                 .userId(userId) // Links authenticated user for history tracking.
                 .build();
 
@@ -186,6 +225,11 @@ public class SessionService {
         participantMap.put("isGoogleUser", isGoogleUser);
 
         broadcastSessionUpdate(code, "PARTICIPANT_JOINED", Map.of("participant", participantMap));
+        liveSessionRegistry.find(code).ifPresent(live -> {
+            live.putParticipant(new LiveSession.ParticipantRef(participant.getId(), participant.getName(), null));
+            live.getLeaderboard().update(participant.getId(), participant.getName(), 0, 0, null);
+        });
+        liveSessionSync.joined(code, participant.getId(), participant.getName());
 
         Map<String, Object> result = new HashMap<>();
         result.put("success", true);
@@ -197,7 +241,7 @@ public class SessionService {
         participantData.put("id", participant.getId());
         result.put("participant", participantData);
 
-        return result;
+        return new JoinResult(result, participant.getId(), participant.getSessionToken());
     }
 
     // removes participant from session .
@@ -227,6 +271,17 @@ public class SessionService {
         // Broadcasts participant left.
         broadcastSessionUpdate(code, "PARTICIPANT_LEFT", Map.of(
                 "participantName", participantName));
+        liveSessionRegistry.find(code).ifPresent(live -> {
+            live.removeParticipant(participant.getName());
+            Leaderboard leaderboard = live.getLeaderboard();
+            boolean wasInTop = leaderboard.isInTop(participant.getId(), leaderboardBroadcastSize);
+            leaderboard.remove(participant.getId());
+            if (wasInTop) {
+                sessionBroadcaster.broadcastLeaderboard(session.getCode(),
+                        leaderboardToMap(leaderboard, leaderboardBroadcastSize, live.getVersion()));
+            }
+        });
+        liveSessionSync.left(code, participant.getId(), participant.getName());
 
         return true;
     }
@@ -246,6 +301,16 @@ public class SessionService {
         session.setState(SessionState.OPEN);
         session.setTimerStartedAt(Instant.now());
         sessionRepository.save(session);
+        LiveSession live = liveSessionRegistry.getOrLoad(session);
+        live.start(session.getTimerStartedAt());
+        // The server closes the session when the time is up, whether or not the presenter is connected.
+        // The other nodes arm the same deadline from the launch event; whichever fires first closes it.
+        Integer timeLimit = live.getSnapshot().getTimeLimit();
+        Instant deadline = timeLimit != null && timeLimit > 0 ? session.getTimerStartedAt().plusSeconds(timeLimit) : null;
+        liveSessionSync.launched(code, session.getTimerStartedAt(), deadline);
+        if (deadline != null) {
+            sessionTimerService.schedule(code, deadline);
+        }
 
         broadcastSessionUpdate(code, "SESSION_STATE_CHANGED", Map.of(
                 "state", SessionState.OPEN.name(),
@@ -266,14 +331,57 @@ public class SessionService {
         if (!session.getCreatorId().equals(creatorId))
             return false;
 
-        session.setState(SessionState.CLOSED);
-        session.setEndedAt(Instant.now());
-        sessionRepository.save(session);
+        close(session);
         broadcastSessionUpdate(code, "SESSION_STATE_CHANGED", Map.of("state", SessionState.CLOSED.name()));
 
         return true;
     }
 
+    // Closes a session whose timer ran out (called by the session timer, so no creator check)
+    public boolean closeExpired(String code) {
+        Optional<Session> opt = sessionRepository.findByCode(code.toUpperCase());
+
+        if (opt.isEmpty() || opt.get().getState() != SessionState.OPEN)
+            return false;
+
+        Session session = opt.get();
+        Integer timeLimit = getPollSnapshot(session).getTimeLimit();
+        if (remainingTime(timeLimit, session.getTimerStartedAt()) > 0) {
+            // Relaunched or fired early: waits for the actual deadline
+            sessionTimerService.schedule(code, session.getTimerStartedAt().plusSeconds(timeLimit));
+            return false;
+        }
+
+        // Another node's timer got there first
+        if (!close(session))
+            return false;
+        broadcastSessionUpdate(session.getCode(), "SESSION_STATE_CHANGED", Map.of(
+                "state", SessionState.CLOSED.name(),
+                "autoClosed", true));
+
+        return true;
+    }
+
+    // Closes the session once. The presenter and the timers of every node may close it at the same time:
+    // the conditional update lets only the first one end it and write the participation history.
+    // Returns whether this call closed it.
+    private boolean close(Session session) {
+        Instant endedAt = Instant.now();
+        boolean closedNow = sessionRepository.closeIfNotClosed(session.getId(), endedAt) == 1;
+        session.setState(SessionState.CLOSED);
+        if (closedNow) {
+            session.setEndedAt(endedAt);
+        }
+        sessionRepository.save(session);
+        if (closedNow) {
+            summarizeOnceVotesAreWritten(session);
+        }
+        liveSessionRegistry.evict(session.getCode());
+        liveSessionSync.closed(session.getCode());
+        sessionTimerService.cancel(session.getCode());
+        return closedNow;
+    }
+
     // Shows results to participants
     public boolean showResults(String code, String creatorId) {
         Optional<Session> opt = sessionRepository.findByCode(code.toUpperCase());
@@ -287,9 +395,7 @@ public class SessionService {
             return false;
 
         session.setResultsShown(true);
-        session.setState(SessionState.CLOSED);
-        session.setEndedAt(Instant.now());
-        sessionRepository.save(session);
+        close(session);
         broadcastSessionUpdate(code, "RESULTS_SHOWN", Map.of("resultsShown", true));
 
         return true;
@@ -308,9 +414,7 @@ public class SessionService {
             return false;
 
         session.setExitedWithoutResults(true);
-        session.setState(SessionState.CLOSED);
-        session.setEndedAt(Instant.now());
-        sessionRepository.save(session);
+        close(session);
         broadcastSessionUpdate(code, "SESSION_CLOSED", Map.of("exitedWithoutResults", true));
 
         return true;
@@ -328,7 +432,19 @@ public class SessionService {
         if (!session.getCreatorId().equals(creatorId))
             return false;
 
+        participationSummaryService.deleteSession(session.getId());
         sessionRepository.delete(session);
+        liveSessionRegistry.evict(code);
+        liveSessionSync.closed(code);
+        sessionTimerService.cancel(code);
+        // The code can be reused once the row is gone
+        String releasedCode = session.getCode();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                sessionCodeAllocator.release(releasedCode);
+            }
+        });
         broadcastSessionUpdate(code, "SESSION_DELETED", Map.of());
 
         return true;
@@ -336,18 +452,184 @@ public class SessionService {
 
     // Submits participant's votes
     public boolean submitVotes(String code, String participantName, Map<String, Object> answers) {
-        Optional<Session> opt = sessionRepository.findByCode(code.toUpperCase());
+        // Live sessions are resolved from the registry, without loading the session graph
+        LiveSession live = liveSessionRegistry.find(code).orElse(null);
 
-        if (opt.isEmpty()) {
+        if (live == null) {
+            Optional<Session> opt = sessionRepository.findByCode(code.toUpperCase());
+
+            if (opt.isEmpty()) {
+                return false;
+            }
+
+            Session session = opt.get();
+            if (session.getState() == SessionState.CLOSED) {
+                return submitVotesToClosedSession(session, participantName, answers);
+            }
+            // Attaches live tallies before saving so a rebuild cannot count these votes twice
+            live = liveSessionRegistry.getOrLoad(session);
+        }
+
+        // Finds participant by name in this session
+        Optional<LiveSession.ParticipantRef> participantOpt = live.findParticipant(participantName);
+
+        if (live.getState() == SessionState.WAITING || participantOpt.isEmpty()) {
+            // The launch or the join may have happened on another node without reaching this copy yet
+            Optional<Session> opt = sessionRepository.findByCode(code.toUpperCase());
+            if (opt.isEmpty()) {
+                liveSessionRegistry.evict(code);
+                return false;
+            }
+
+            Session session = opt.get();
+            if (session.getState() == SessionState.CLOSED) {
+                liveSessionRegistry.evict(code);
+                return submitVotesToClosedSession(session, participantName, answers);
+            }
+            if (session.getState() == SessionState.WAITING) {
+                return false;
+            }
+            if (live.getState() == SessionState.WAITING) {
+                live.start(session.getTimerStartedAt());
+            }
+            if (participantOpt.isEmpty()) {
+                participantOpt = session.getParticipants().stream()
+                        .filter(p -> p.getName().equalsIgnoreCase(participantName))
+                        .findFirst()
+                        .map(p -> new LiveSession.ParticipantRef(p.getId(), p.getName(), p.getCompletionTimeSeconds()));
+                participantOpt.ifPresent(live::putParticipant);
+            }
+            if (participantOpt.isEmpty()) {
+                return false;
+            }
+        }
+
+        VoteIngestionQueue ingestionQueue = voteIngestionQueue.getIfAvailable();
+        if (ingestionQueue != null) {
+            return submitVotesAsync(live, participantOpt.get(), answers, ingestionQueue);
+        }
+        return submitVotesSync(live, participantOpt.get(), answers);
+    }
+
+    // Records the answers in the live state first, so concurrent submissions of the same participant are
+    // decided under its lock, then saves only the accepted votes and updates the participant's ledger.
+    private boolean submitVotesSync(LiveSession live, LiveSession.ParticipantRef participant,
+            Map<String, Object> answers) {
+        LiveSession.Delta delta = null;
+        try {
+            List<Long> questionIds = new ArrayList<>();
+            List<Integer> optionIndexes = new ArrayList<>();
+            for (Map.Entry<String, Object> entry : answers.entrySet()) {
+                Long questionId = Long.valueOf(entry.getKey());
+                for (Integer optionIndex : toOptionIndexes(entry.getValue())) {
+                    questionIds.add(questionId);
+                    optionIndexes.add(optionIndex);
+                }
+            }
+
+            delta = live.record(participant.id(), questionIds, optionIndexes);
+            if (delta.accepted().isEmpty()) {
+                return true;
+            }
+
+            // References link the votes without loading session, participant, question and option rows
+            Session session = sessionRepository.getReferenceById(live.getSessionId());
+            Participant participantRef = participantRepository.getReferenceById(participant.id());
+            Instant now = Instant.now();
+            List<Vote> votesToSave = new ArrayList<>();
+            for (LiveSession.AcceptedVote accepted : delta.accepted()) {
+                votesToSave.add(Vote.builder()
+                        .session(session)
+                        .participant(participantRef)
+                        .question(questionRepository.getReferenceById(accepted.questionId()))
+                        .option(optionRepository.getReferenceById(accepted.optionId()))
+                        .submittedAt(now)
+                        .build());
+            }
+            voteRepository.saveAll(votesToSave);
+
+            // Updates the score ledger and the completion time (only on first submission)
+            participantRepository.updateScore(participant.id(), delta.score(), delta.correctCount(),
+                    live.getSnapshot().getMaxScore(), delta.scoreVersion());
+            boolean firstCompletion = participant.completionTimeSeconds() == null;
+            Integer completionSeconds = completionTime(live, participant, now);
+            if (firstCompletion && completionSeconds != null) {
+                participantRepository.markSubmitted(participant.id(), now, completionSeconds);
+            }
+            rememberCompletion(live, participant, firstCompletion, completionSeconds);
+
+            broadcastVoteDelta(live.getCode(), participant.id(), participant.name(), completionSeconds, delta);
+            updateLeaderboard(live, participant.id(), participant.name(), completionSeconds, delta);
+            liveSessionSync.voted(live.getCode(), participant, completionSeconds, delta);
+            return true;
+        } catch (Exception e) {
+            if (delta != null && !delta.accepted().isEmpty()) {
+                // The counters already include votes that were not saved: rebuilds them from the votes table
+                liveSessionRegistry.evict(live.getCode());
+            }
             return false;
         }
+    }
 
-        Session session = opt.get();
+    // Validates the answers against the live poll structure and queues them for a batched write.
+    // The participant is acknowledged before anything reaches the database.
+    private boolean submitVotesAsync(LiveSession live, LiveSession.ParticipantRef participant,
+            Map<String, Object> answers, VoteIngestionQueue ingestionQueue) {
+        try {
+            List<Long> questionIds = new ArrayList<>();
+            List<Integer> optionIndexes = new ArrayList<>();
+            for (Map.Entry<String, Object> entry : answers.entrySet()) {
+                Long questionId = Long.valueOf(entry.getKey());
+                for (Integer optionIndex : toOptionIndexes(entry.getValue())) {
+                    questionIds.add(questionId);
+                    optionIndexes.add(optionIndex);
+                }
+            }
 
-        if (session.getState() == SessionState.WAITING) {
+            LiveSession.Delta delta = live.record(participant.id(), questionIds, optionIndexes);
+            if (delta.accepted().isEmpty()) {
+                return true;
+            }
+
+            Instant now = Instant.now();
+            boolean firstCompletion = participant.completionTimeSeconds() == null;
+            Integer completionSeconds = completionTime(live, participant, now);
+
+            List<PendingSubmission.PendingVote> votes = delta.accepted().stream()
+                    .map(v -> new PendingSubmission.PendingVote(v.questionId(), v.optionId()))
+                    .toList();
+            ingestionQueue.submit(new PendingSubmission(live.getSessionId(), participant.id(), votes, now,
+                    firstCompletion ? completionSeconds : null,
+                    delta.score(), delta.correctCount(), live.getSnapshot().getMaxScore(), delta.scoreVersion()));
+            rememberCompletion(live, participant, firstCompletion, completionSeconds);
+
+            broadcastVoteDelta(live.getCode(), participant.id(), participant.name(), completionSeconds, delta);
+            updateLeaderboard(live, participant.id(), participant.name(), completionSeconds, delta);
+            liveSessionSync.voted(live.getCode(), participant, completionSeconds, delta);
+            return true;
+        } catch (Exception e) {
             return false;
         }
+    }
+
+    // Completion time of the participant's first submission. Null while the timer has not started.
+    private Integer completionTime(LiveSession live, LiveSession.ParticipantRef participant, Instant now) {
+        if (participant.completionTimeSeconds() != null || live.getTimerStartedAt() == null) {
+            return participant.completionTimeSeconds();
+        }
+        return (int) (now.getEpochSecond() - live.getTimerStartedAt().getEpochSecond());
+    }
 
+    // Keeps a first completion time in the live participant index, once the submission is written or queued.
+    private void rememberCompletion(LiveSession live, LiveSession.ParticipantRef participant, boolean firstCompletion,
+            Integer completionSeconds) {
+        if (firstCompletion && completionSeconds != null) {
+            live.putParticipant(new LiveSession.ParticipantRef(participant.id(), participant.name(), completionSeconds));
+        }
+    }
+
+    // Late submissions to a closed session: no live state, answers and score are checked against the database.
+    private boolean submitVotesToClosedSession(Session session, String participantName, Map<String, Object> answers) {
         // Finds participant by name in this session
         Optional<Participant> participantOpt = session.getParticipants().stream()
                 .filter(p -> p.getName().equalsIgnoreCase(participantName))
@@ -358,77 +640,238 @@ public class SessionService {
         }
 
         Participant participant = participantOpt.get();
+        PollSnapshot snapshot = PollSnapshot.of(session.getPoll());
 
-        // Gets existing votes for this participant
-        List<Vote> existingVotes = voteRepository.findBySessionIdAndParticipantId(session.getId(), participant.getId());
-        Set<Long> answeredQuestionIds = existingVotes.stream()
-                .map(v -> v.getQuestion().getId())
+        // Gets what this participant already answered
+        List<VoteRepository.VoteSelection> existingSelections = voteRepository
+                .findSelectionsBySessionIdAndParticipantId(session.getId(), participant.getId());
+        Set<Long> answeredQuestionIds = existingSelections.stream()
+                .map(VoteRepository.VoteSelection::getQuestionId)
                 .collect(Collectors.toSet());
 
         try {
             List<Vote> votesToSave = new ArrayList<>();
+            List<Long> questionIds = new ArrayList<>();
+            List<Long> optionIds = new ArrayList<>();
+            for (VoteRepository.VoteSelection selection : existingSelections) {
+                questionIds.add(selection.getQuestionId());
+                optionIds.add(selection.getOptionId());
+            }
+
             for (Map.Entry<String, Object> entry : answers.entrySet()) {
                 Long questionId = Long.valueOf(entry.getKey());
-                Object answerValue = entry.getValue();
-
-                // Skips if already answered
-                if (answeredQuestionIds.contains(questionId)) {
+                PollSnapshot.QuestionSnapshot question = snapshot.getQuestion(questionId);
+                if (answeredQuestionIds.contains(questionId) || question == null) {
                     continue;
                 }
 
-                Question question = questionRepository.findById(questionId).orElse(null);
-                if (question == null || !question.getPoll().getId().equals(session.getPoll().getId())) {
-                    continue;
-                }
-
-                // Handle both single selection (Integer) and multiple selection (List<Integer>)
-                List<Integer> optionIndices = new ArrayList<>();
-                if (answerValue instanceof Integer) {
-                    optionIndices.add((Integer) answerValue);
-                } else if (answerValue instanceof List) {
-                    optionIndices.addAll((List<Integer>) answerValue);
-                }
-
-                for (Integer optionIndex : optionIndices) {
-                    if (optionIndex >= 0 && optionIndex < question.getOptions().size()) {
-                        Option selectedOption = question.getOptions().get(optionIndex);
-
-                        Vote vote = Vote.builder()
+                for (Integer optionIndex : toOptionIndexes(entry.getValue())) {
+                    if (optionIndex >= 0 && optionIndex < question.getOptionCount()) {
+                        Long optionId = question.getOptionId(optionIndex);
+                        votesToSave.add(Vote.builder()
                                 .session(session)
                                 .participant(participant)
-                                .question(question)
-                                .option(selectedOption)
+                                .question(questionRepository.getReferenceById(questionId))
+                                .option(optionRepository.getReferenceById(optionId))
                                 .submittedAt(Instant.now())
-                                .build();
-                        votesToSave.add(vote);
+                                .build());
+                        questionIds.add(questionId);
+                        optionIds.add(optionId);
                     }
                 }
             }
 
-            if (!votesToSave.isEmpty()) {
-                voteRepository.saveAll(votesToSave);
+            if (votesToSave.isEmpty()) {
+                return true;
+            }
 
-                // Calculates and saves completion time (only on first submission)
-                if (participant.getSubmittedAt() == null && session.getTimerStartedAt() != null) {
-                    Instant now = Instant.now();
-                    participant.setSubmittedAt(now);
-                    int completionSeconds = (int) (now.getEpochSecond() - session.getTimerStartedAt().getEpochSecond());
-                    participant.setCompletionTimeSeconds(completionSeconds);
-                    participantRepository.save(participant);
-                }
+            voteRepository.saveAll(votesToSave);
+
+            // Updates the score ledger and the completion time (only on first submission)
+            ScoringEngine.Score score = ScoringEngine.score(snapshot, questionIds, optionIds);
+            participant.setScore(score.score());
+            participant.setCorrectCount(score.correctCount());
+            participant.setMaxScore(snapshot.getMaxScore());
+            participant.setScoreVersion(new HashSet<>(questionIds).size());
+            if (participant.getSubmittedAt() == null && session.getTimerStartedAt() != null) {
+                Instant now = Instant.now();
+                participant.setSubmittedAt(now);
+                int completionSeconds = (int) (now.getEpochSecond() - session.getTimerStartedAt().getEpochSecond());
+                participant.setCompletionTimeSeconds(completionSeconds);
             }
+            participantRepository.save(participant);
+            participationSummaryService.summarize(session, participant.getId());
 
-            // Broadcasts update.
-            broadcastSessionUpdate(code, "VOTE_SUBMITTED", Map.of("status", "ok"));
+            LiveSession.Delta delta = new LiveSession.Delta(0, Map.of(), List.of(), score.score(),
+                    score.correctCount(), participant.getScoreVersion(), false);
+            broadcastVoteDelta(session.getCode(), participant.getId(), participant.getName(),
+                    participant.getCompletionTimeSeconds(), delta);
             return true;
         } catch (Exception e) {
             return false;
         }
     }
 
+    // Handles both single selection (Integer) and multiple selection (List<Integer>)
+    private List<Integer> toOptionIndexes(Object answerValue) {
+        List<Integer> optionIndexes = new ArrayList<>();
+        if (answerValue instanceof Integer) {
+            optionIndexes.add((Integer) answerValue);
+        } else if (answerValue instanceof List) {
+            optionIndexes.addAll((List<Integer>) answerValue);
+        }
+        return optionIndexes;
+    }
+
+    // Broadcasts only what changed so clients don't have to refetch the whole session.
+    private void broadcastVoteDelta(String code, Long participantId, String participantName,
+            Integer completionTimeSeconds, LiveSession.Delta delta) {
+        Map<String, Object> participantDelta = new HashMap<>();
+        participantDelta.put("id", participantId);
+        participantDelta.put("name", participantName);
+        participantDelta.put("score", delta.score());
+        participantDelta.put("correctCount", delta.correctCount());
+        participantDelta.put("completionTimeSeconds", completionTimeSeconds);
+
+        broadcastSessionUpdate(code, "VOTE_SUBMITTED", Map.of(
+                "version", delta.version(),
+                "participant", participantDelta,
+                "tallies", delta.tallies()));
+    }
+
+    // Moves the participant in the live ranking and streams the top N if they entered, moved in or left it.
+    // Runs after LiveSession.record, outside its lock: a delta overtaken by the participant's next submission
+    // carries an older score version and leaves the ranking alone.
+    private void updateLeaderboard(LiveSession live, Long participantId, String participantName,
+            Integer completionTimeSeconds, LiveSession.Delta delta) {
+        Leaderboard leaderboard = live.getLeaderboard();
+        boolean wasInTop = leaderboard.isInTop(participantId, leaderboardBroadcastSize);
+        if (!leaderboard.update(participantId, participantName, delta.score(), delta.correctCount(),
+                completionTimeSeconds, delta.scoreVersion()))
+            return;
+
+        if (wasInTop || leaderboard.isInTop(participantId, leaderboardBroadcastSize)) {
+            sessionBroadcaster.broadcastLeaderboard(live.getCode(),
+                    leaderboardToMap(leaderboard, leaderboardBroadcastSize, delta.version()));
+        }
+    }
+
+    private Map<String, Object> leaderboardToMap(Leaderboard leaderboard, int limit, long version) {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        int rank = 1;
+        for (Leaderboard.Entry entry : leaderboard.top(limit)) {
+            Map<String, Object> entryMap = new HashMap<>();
+            entryMap.put("rank", rank++);
+            entryMap.put("id", entry.participantId());
+            entryMap.put("name", entry.name());
+            entryMap.put("score", entry.score());
+            entryMap.put("correctCount", entry.correctCount());
+            entryMap.put("completionTimeSeconds", entry.completionTimeSeconds());
+            entries.add(entryMap);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("type", "LEADERBOARD");
+        result.put("version", version);
+        result.put("totalParticipants", leaderboard.size());
+        result.put("entries", entries);
+        return result;
+    }
+
+    // Gets the top participants: from the live ranking while the session is open, from the score ledger once closed
+    @Transactional(readOnly = true)
+    public Map<String, Object> getLeaderboard(String code, int limit) {
+        Optional<LiveSession> attached = liveSessionRegistry.find(code);
+        if (attached.isPresent()) {
+            return leaderboardToMap(attached.get().getLeaderboard(), limit, attached.get().getVersion());
+        }
+
+        Optional<Session> opt = sessionRepository.findByCode(code.toUpperCase());
+
+        if (opt.isEmpty())
+            return null;
+
+        Session session = opt.get();
+        if (session.getState() == SessionState.CLOSED) {
+            return leaderboardToMap(Leaderboard.from(session.getParticipants()), limit, 0);
+        }
+        LiveSession live = liveSessionRegistry.getOrLoad(session);
+        return leaderboardToMap(live.getLeaderboard(), limit, live.getVersion());
+    }
+
+    // Writes the participation history once every vote of the session is in the database.
+    // With async ingestion still writing (or waiting to replay spilled votes), the summary is deferred
+    // until the votes land instead of being written from a partial votes table.
+    private void summarizeOnceVotesAreWritten(Session session) {
+        VoteIngestionQueue ingestionQueue = voteIngestionQueue.getIfAvailable();
+        if (ingestionQueue == null) {
+            participationSummaryService.summarize(session);
+            return;
+        }
+
+        // Queuing the flush and waiting for it share the same budget
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(voteFlushTimeoutMs);
+        CompletableFuture<Void> flushed = ingestionQueue.flush(voteFlushTimeoutMs);
+        try {
+            flushed.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            participationSummaryService.summarize(session);
+            return;
+        } catch (TimeoutException | ExecutionException e) {
+            log.warn("Votes of session {} not written yet, deferring its participation history", session.getCode());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Long sessionId = session.getId();
+        // A flush that could not be queued (queue full) is tried once more off the request thread
+        flushed.exceptionallyComposeAsync(e -> ingestionQueue.flush(voteFlushTimeoutMs))
+                .thenRunAsync(() -> transactionTemplate.executeWithoutResult(status -> sessionRepository
+                        .findById(sessionId).ifPresent(participationSummaryService::summarize)))
+                .exceptionally(e -> {
+                    log.error("Participation history of session {} not written: {}", sessionId, e.getMessage());
+                    return null;
+                });
+    }
+
+    // Gets the version of the last vote delta broadcast for a session (0 if not live)
+    public long getLiveVersion(String code) {
+        return liveSessionRegistry.find(code).map(LiveSession::getVersion).orElse(0L);
+    }
+
+    // Reads a participant's score from the ledger, preferring the live one
+    // (ahead of the database while async ingestion has votes queued)
+    public ScoringEngine.Score getScore(Session session, Participant participant) {
+        ScoringEngine.Score liveScore = liveSessionRegistry.find(session.getCode())
+                .map(live -> live.getScore(participant.getId()))
+                .orElse(null);
+        if (liveScore != null) {
+            return liveScore;
+        }
+        return new ScoringEngine.Score(
+                participant.getScore() != null ? participant.getScore() : 0,
+                participant.getCorrectCount() != null ? participant.getCorrectCount() : 0);
+    }
+
+    // Gets the snapshot of a session's poll: cached while the session is live, built on demand once closed
+    public PollSnapshot getPollSnapshot(Session session) {
+        if (session.getState() == SessionState.CLOSED) {
+            return liveSessionRegistry.find(session.getCode())
+                    .map(LiveSession::getSnapshot)
+                    .orElseGet(() -> PollSnapshot.of(session.getPoll()));
+        }
+        return liveSessionRegistry.getOrLoad(session).getSnapshot();
+    }
+
     // Gets remaining time
     @Transactional(readOnly = true)
     public int getRemainingTime(String code) {
+        // Live sessions answer from memory
+        Optional<LiveSession> attached = liveSessionRegistry.find(code);
+        if (attached.isPresent()) {
+            LiveSession live = attached.get();
+            return remainingTime(live.getSnapshot().getTimeLimit(), live.getTimerStartedAt());
+        }
+
         Optional<Session> opt = sessionRepository.findByCode(code.toUpperCase());
 
         if (opt.isEmpty())
@@ -436,49 +879,52 @@ public class SessionService {
 
         Session session = opt.get();
 
-        if (session.getTimerStartedAt() == null) {
-            return session.getPoll().getTimeLimit() != null ? session.getPoll().getTimeLimit() : 0;
+        return remainingTime(getPollSnapshot(session).getTimeLimit(), session.getTimerStartedAt());
+    }
+
+    private int remainingTime(Integer pollTimeLimit, Instant timerStartedAt) {
+        int timeLimit = pollTimeLimit != null ? pollTimeLimit : 0;
+
+        if (timerStartedAt == null) {
+            return timeLimit;
         }
 
-        long elapsed = Instant.now().getEpochSecond() - session.getTimerStartedAt().getEpochSecond();
-        int timeLimit = session.getPoll().getTimeLimit() != null ? session.getPoll().getTimeLimit() : 0;
+        long elapsed = Instant.now().getEpochSecond() - timerStartedAt.getEpochSecond();
         return Math.max(0, timeLimit - (int) elapsed);
     }
 
     // Calculates aggregate results .
     @Transactional(readOnly = true)
     public Map<String, Object> getResults(String code) {
-        Optional<Session> opt = sessionRepository.findByCode(code.toUpperCase());
-
-        if (opt.isEmpty())
-            return null;
-
-        Session session = opt.get();
-        Poll poll = session.getPoll();
-        List<Vote> allVotes = voteRepository.findBySessionId(session.getId());
+        // Open sessions answer from the attached counters, closed ones rebuild them once from the votes table
+        LiveSession live = liveSessionRegistry.find(code).orElse(null);
+        if (live == null) {
+            Optional<Session> opt = sessionRepository.findByCode(code.toUpperCase());
+
+            if (opt.isEmpty())
+                return null;
+
+            Session session = opt.get();
+            live = session.getState() == SessionState.CLOSED
+                    ? liveSessionRegistry.load(session)
+                    : liveSessionRegistry.getOrLoad(session);
+        }
+        PollSnapshot snapshot = live.getSnapshot();
         List<Map<String, Object>> questionsResults = new ArrayList<>();
 
-        for (Question question : poll.getQuestions()) {
+        for (PollSnapshot.QuestionSnapshot question : snapshot.getQuestions()) {
             List<Map<String, Object>> optionResults = new ArrayList<>();
-            // Filters votes for this question
-            List<Vote> questionVotes = allVotes.stream()
-                    .filter(v -> v.getQuestion().getId().equals(question.getId()))
-                    .toList();
-
-            for (int i = 0; i < question.getOptions().size(); i++) {
-                Option option = question.getOptions().get(i);
+            long[] tally = live.getTally(question.getId());
 
-                long voteCount = questionVotes.stream()
-                        .filter(v -> v.getOption().getId().equals(option.getId()))
-                        .count();
-
-                boolean isCorrect = option.getIsCorrect() != null && option.getIsCorrect();
+            for (int i = 0; i < question.getOptionCount(); i++) {
+                PollSnapshot.OptionSnapshot option = question.getOptions().get(i);
+                long voteCount = i < tally.length ? tally[i] : 0;
 
                 optionResults.add(Map.of(
-                        "id", option.getId(),
-                        "text", option.getText(),
+                        "id", option.id(),
+                        "text", option.text(),
                         "votes", voteCount,
-                        "isCorrect", isCorrect));
+                        "isCorrect", option.isCorrect()));
             }
             Map<String, Object> questionMap = new HashMap<>();
             questionMap.put("id", question.getId());
@@ -488,9 +934,9 @@ public class SessionService {
         }
 
         Map<String, Object> response = new HashMap<>();
-        response.put("pollTitle", poll.getTitle());
+        response.put("pollTitle", snapshot.getTitle());
         // counts distinct voters
-        response.put("totalParticipants", allVotes.stream().map(v -> v.getParticipant().getId()).distinct().count());
+        response.put("totalParticipants", live.getVoterCount());
         response.put("questions", questionsResults);
 
         return response;
@@ -505,7 +951,7 @@ public class SessionService {
             return null;
 
         Session session = opt.get();
-        Poll poll = session.getPoll();
+        PollSnapshot snapshot = getPollSnapshot(session);
 
         // Finds participant
         Optional<Participant> participantOpt = session.getParticipants().stream()
@@ -517,16 +963,12 @@ public class SessionService {
         }
         Participant participant = participantOpt.get();
 
-        // Gets participant's votes
-        List<Vote> myVotes = voteRepository.findBySessionIdAndParticipantId(session.getId(), participant.getId());
-        int correctCount = 0;
+        // Gets participant's selections (ids only, the snapshot has the rest)
+        List<VoteRepository.VoteSelection> mySelections = voteRepository
+                .findSelectionsBySessionIdAndParticipantId(session.getId(), participant.getId());
         List<Map<String, Object>> questionsResults = new ArrayList<>();
 
-        for (Question question : poll.getQuestions()) {
-            // Get all votes for this question from this participant
-            List<Vote> questionVotes = myVotes.stream()
-                    .filter(v -> v.getQuestion().getId().equals(question.getId()))
-                    .toList();
+        for (PollSnapshot.QuestionSnapshot question : snapshot.getQuestions()) {
 
             Map<String, Object> qResult = new HashMap<>();
             qResult.put("id", question.getId());
@@ -537,8 +979,8 @@ public class SessionService {
             List<Map<String, Object>> optionsDTO = question.getOptions().stream()
                     .map(o -> {
                         Map<String, Object> map = new HashMap<>();
-                        map.put("id", o.getId());
-                        map.put("text", o.getText());
+                        map.put("id", o.id());
+                        map.put("text", o.text());
                         return map;
                     })
                     .collect(Collectors.toList());
@@ -546,32 +988,21 @@ public class SessionService {
 
             // Get selected option indices
             List<Integer> selectedIndices = new ArrayList<>();
-            for (Vote vote : questionVotes) {
-                for (int i = 0; i < question.getOptions().size(); i++) {
-                    if (question.getOptions().get(i).getId().equals(vote.getOption().getId())) {
-                        selectedIndices.add(i);
-                        break;
-                    }
+            for (VoteRepository.VoteSelection selection : mySelections) {
+                if (!selection.getQuestionId().equals(question.getId()))
+                    continue;
+                int optionIndex = question.indexOf(selection.getOptionId());
+                if (optionIndex >= 0) {
+                    selectedIndices.add(optionIndex);
                 }
             }
 
-            // Get correct answer indices - check both isCorrect flag AND positive value
-            List<Integer> correctIndices = new ArrayList<>();
-            for (int i = 0; i < question.getOptions().size(); i++) {
-                Option option = question.getOptions().get(i);
-                boolean isMarkedCorrect = option.getIsCorrect() != null && option.getIsCorrect();
-                boolean hasPositiveValue = option.getValue() != null && option.getValue() > 0;
-                if (isMarkedCorrect || hasPositiveValue) {
-                    correctIndices.add(i);
-                }
-            }
+            // Correct answer indices - isCorrect flag or positive value
+            List<Integer> correctIndices = question.getCorrectIndices();
 
             // Check if answer is correct: must select ALL correct options and NO incorrect
             // ones
-            boolean isCorrect = !selectedIndices.isEmpty() &&
-                    !correctIndices.isEmpty() &&
-                    selectedIndices.size() == correctIndices.size() &&
-                    selectedIndices.containsAll(correctIndices);
+            boolean isCorrect = question.isCorrectAnswer(selectedIndices);
 
             qResult.put("isCorrect", isCorrect);
             qResult.put("selectedIndices", selectedIndices); // Changed to list
@@ -581,30 +1012,18 @@ public class SessionService {
             qResult.put("selectedIndex", selectedIndices.isEmpty() ? -1 : selectedIndices.get(0));
             qResult.put("correctAnswerIndex", correctIndices.isEmpty() ? -1 : correctIndices.get(0));
 
-            if (isCorrect)
-                correctCount++;
-
             questionsResults.add(qResult);
         }
 
-        // Calculate total score from selected options (including negative penalties)
-        int totalScore = 0;
-        for (Vote v : myVotes) {
-            if (v.getOption() != null) {
-                if (v.getOption().getValue() != null && v.getOption().getValue() != 0) {
-                    //adds the value (+ or -)
-                    totalScore += v.getOption().getValue();
-                } else if (v.getOption().getIsCorrect() != null && v.getOption().getIsCorrect()) {
-                    totalScore += 1;
-                }
-            }
-        }
+        // Totals come from the score ledger
+        ScoringEngine.Score score = getScore(session, participant);
 
         Map<String, Object> result = new HashMap<>();
-        result.put("pollTitle", poll.getTitle());
-        result.put("correctCount", correctCount);
-        result.put("totalQuestions", poll.getQuestions().size());
-        result.put("score", totalScore);
+        result.put("pollTitle", snapshot.getTitle());
+        result.put("correctCount", score.correctCount());
+        result.put("totalQuestions", snapshot.getQuestions().size());
+        result.put("score", score.score());
+        result.put("maxScore", snapshot.getMaxScore());
         result.put("questions", questionsResults);
 
         return result;
@@ -615,6 +1034,6 @@ public class SessionService {
         Map<String, Object> message = new HashMap<>();
         message.put("type", type);
         message.putAll(payload);
-        messagingTemplate.convertAndSend("/topic/session/" + code.toUpperCase(), (Object) message);
+        sessionBroadcaster.broadcast(code, message);
     }
 }
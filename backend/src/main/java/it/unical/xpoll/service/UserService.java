@@ -1,8 +1,6 @@
 package it.unical.xpoll.service;
 
 import it.unical.xpoll.domain.Option;
-import it.unical.xpoll.domain.Participant;
-import it.unical.xpoll.domain.Vote;
 import it.unical.xpoll.dto.AuthResponseDto;
 import it.unical.xpoll.dto.LoginRequestDto;
 import it.unical.xpoll.dto.ParticipationResponse;
@@ -10,32 +8,40 @@ import it.unical.xpoll.dto.RegisterRequestDto;
 import it.unical.xpoll.dto.UserResponse;
 import it.unical.xpoll.model.AccessMode;
 import it.unical.xpoll.model.User;
-import it.unical.xpoll.repository.ParticipantRepository;
 import it.unical.xpoll.repository.UserRepository;
-import it.unical.xpoll.repository.VoteRepository;
 import it.unical.xpoll.security.JwtTokenProvider;
+import it.unical.xpoll.security.PrincipalCache;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import java.util.Optional;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
-    private final ParticipantRepository participantRepository;
-    private final VoteRepository voteRepository;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
+    private final PrincipalCache principalCache;
+    private final ParticipationSummaryService participationSummaryService;
 
+    //The principal is a copy of the cached user, fine for reading; changes go through loadCurrentUser().
     public Optional<User> getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated())
@@ -48,6 +54,13 @@ public class UserService {
         return Optional.empty();
     }
 
+    //The current user as stored now, not as cached when the token was resolved.
+    private User loadCurrentUser() {
+        return getCurrentUser()
+                .flatMap(user -> userRepository.findById(user.getId()))
+                .orElseThrow(() -> new RuntimeException("User not authenticated"));
+    }
+
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
@@ -104,7 +117,7 @@ public class UserService {
 
     // Update username for current user
     public User updateUsername(String newUsername) {
-        User user = getCurrentUser().orElseThrow(() -> new RuntimeException("User not authenticated"));
+        User user = loadCurrentUser();
 
         // Check if username is already taken by another user.
         Optional<User> existingUser = userRepository.findByUsername(newUsername);
@@ -115,12 +128,14 @@ public class UserService {
 
         user.setUsername(newUsername);
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.invalidate(user.getId());
+        return saved;
     }
 
     // Change password for LOCAL users only.
     public void changePassword(String currentPassword, String newPassword) {
-        User user = getCurrentUser().orElseThrow(() -> new RuntimeException("User not authenticated"));
+        User user = loadCurrentUser();
 
         // Only local users can change password.
         if (user.getAccessMode() != AccessMode.LOCAL) {
@@ -149,127 +164,12 @@ public class UserService {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        principalCache.invalidate(user.getId());
     }
 
-    // Get participation history for a user.
-    public List<ParticipationResponse> getUserParticipations(Long userId) {
-        List<Participant> participations = participantRepository.findByUserId(userId);
-        System.out.println("DEBUG getUserParticipations: userId=" + userId + ", found " + participations.size() + " participations");
-
-        for(Participant p : participations){
-            boolean hasSession = p.getSession() != null;
-            boolean hasPoll = hasSession && p.getSession().getPoll() != null;
-            String state = hasSession ? String.valueOf(p.getSession().getState()) : "null";
-            List<Vote> votes = hasSession ? voteRepository.findBySessionIdAndParticipantId(p.getSession().getId(), p.getId())  : java.util.Collections.emptyList();
-            System.out.println("DEBUG: Participant '" + p.getName() + "' - hasSession=" + hasSession + ", hasPoll=" + hasPoll + ", state=" + state + ", votes=" + votes.size());
-        }
-
-        return participations.stream()
-                .filter(p -> p.getSession() != null && p.getSession().getPoll() != null)
-                // Only includes participations where the poll actually ended (not just joined
-                // lobby or in progress).
-                .filter(p -> p.getSession().getState() == it.unical.xpoll.domain.SessionState.CLOSED)
-                // Only includes if participant actually submitted votes or is the presenter.
-                .filter(p -> {
-                    boolean isPresenter = p.getUserId() != null &&
-                            p.getSession().getCreatorUserId() != null &&
-                            p.getUserId().equals(p.getSession().getCreatorUserId());
-
-                    if (isPresenter)
-                        return true;
-                    // Checks if participant submitted any votes
-                    List<Vote> votes = voteRepository.findBySessionIdAndParticipantId(p.getSession().getId(),
-                            p.getId());
-                    return !votes.isEmpty();
-                })
-                .map(p -> {
-                    // Checks if this participant is the presenter .
-                    boolean isPresenter = p.getUserId() != null &&
-                            p.getSession().getCreatorUserId() != null &&
-                            p.getUserId().equals(p.getSession().getCreatorUserId());
-                    boolean hasVoted = voteRepository.existsBySessionIdAndParticipantId(p.getSession().getId(),
-                            p.getId());
-
-                    int score = 0;
-                    Integer maxScore = 0;
-
-                    if (hasVoted) {
-                        score = calculateScore(p);
-                        maxScore = calculateMaxScore(p.getSession().getPoll());
-                    }
-
-                    return ParticipationResponse.builder()
-                            .sessionId(p.getSession().getId())
-                            .pollTitle(p.getSession().getPoll().getTitle())
-                            .participationDate(p.getJoinedAt())
-                            .score(score)
-                            .maxScore(maxScore)
-                            .isPresenter(isPresenter)
-                            .hasParticipated(hasVoted)
-                            .completionTimeSeconds(p.getCompletionTimeSeconds())
-                            .totalTimeSeconds(p.getSession().getPoll().getTimeLimit())
-                            .build();
-                })
-                // Sorts by participation date descending .
-                .sorted((a, b) -> b.getParticipationDate().compareTo(a.getParticipationDate()))
-                .collect(Collectors.toList());
-    }
-
-    private Integer calculateMaxScore(it.unical.xpoll.domain.Poll poll) {
-        int maxScore = 0;
-        for (it.unical.xpoll.domain.Question q : poll.getQuestions()) {
-            int questionMax = 0;
-
-            boolean hasValues = q.getOptions().stream().anyMatch(o -> o.getValue() != null && o.getValue() > 0);
-
-            if (hasValues) {
-                if (q.getType() == it.unical.xpoll.domain.Question.QuestionType.MULTIPLE_CHOICE) {
-                    questionMax = q.getOptions().stream()
-                            .filter(o -> o.getValue() != null && o.getValue() > 0)
-                            .mapToInt(it.unical.xpoll.domain.Option::getValue)
-                            .sum();
-                } else {
-                    questionMax = q.getOptions().stream()
-                            .filter(o -> o.getValue() != null && o.getValue() > 0)
-                            .mapToInt(it.unical.xpoll.domain.Option::getValue)
-                            .max().orElse(0);
-                }
-            } else {
-                // Check if any option is marked as correct
-                boolean hasCorrectAnswer = q.getOptions().stream()
-                        .anyMatch(o -> o.getIsCorrect() != null && o.getIsCorrect());
-                if (hasCorrectAnswer) {
-                    questionMax = 1;
-                }
-            }
-            maxScore += questionMax;
-        }
-        return maxScore;
-    }
-
-    // Calculate total score for a participant based on their votes.
-    private int calculateScore(Participant participant) {
-        List<Vote> votes = voteRepository.findBySessionIdAndParticipantId(participant.getSession().getId(),
-                participant.getId());
-        int totalScore = 0;
-
-        for (Vote v : votes) {
-            if (v.getOption() == null || v.getQuestion() == null) {
-                continue;
-            }
-
-            // Checks if option has explicit value/score.
-            if (v.getOption().getValue() != null && v.getOption().getValue() > 0) {
-                totalScore += v.getOption().getValue();
-                continue;
-            }
-
-            // Otherwise checks if this option is marked as correct.
-            if (v.getOption().getIsCorrect() != null && v.getOption().getIsCorrect()) {
-                totalScore += 1; // 1 point for correct answer.
-            }
-        }
-        return totalScore;
+    // Get a page of the participation history of a user, newest first (written when sessions are closed).
+    public List<ParticipationResponse> getUserParticipations(Long userId, Instant before, Long beforeId, int limit) {
+        return participationSummaryService.getParticipations(userId, before, beforeId, limit);
     }
 
     /**
@@ -283,7 +183,7 @@ public class UserService {
 
         // generateRecoveryToken()
         String token = UUID.randomUUID().toString();
-        user.setResetToken(token);
+        user.setResetTokenHash(hashResetToken(token));
         user.setResetTokenExpiry(LocalDateTime.now().plusHours(1)); // Token expires in 1 hour
 
         userRepository.save(user);
@@ -297,7 +197,7 @@ public class UserService {
      */
     public void resetPassword(String token, String newPassword) {
         // validateCode(code)
-        User user = userRepository.findAll().stream().filter(u -> token.equals(u.getResetToken())).findFirst()
+        User user = userRepository.findByResetTokenHash(hashResetToken(token))
                 .orElseThrow(() -> new RuntimeException("Invalid or expired reset token"));
 
         // Check if token is expired
@@ -307,9 +207,30 @@ public class UserService {
 
         // updatePassword(email, newPassword)
         user.setPassword(passwordEncoder.encode(newPassword));
-        user.setResetToken(null);
+        user.setResetTokenHash(null);
         user.setResetTokenExpiry(null);
 
         userRepository.save(user);
+        principalCache.invalidate(user.getId());
+    }
+
+    // Removes expired reset tokens so they do not pile up in the users table.
+    @Scheduled(fixedDelayString = "${app.password-reset.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpiredResetTokens() {
+        int purged = userRepository.clearExpiredResetTokens(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("Purged {} expired password reset tokens", purged);
+        }
+    }
+
+    // Only the hash is stored, so a leaked users table cannot be used to reset passwords.
+    private static String hashResetToken(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
     }
 }
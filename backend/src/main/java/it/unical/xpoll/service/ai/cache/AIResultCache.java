@@ -0,0 +1,188 @@
+package it.unical.xpoll.service.ai.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.OptionData;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.PollData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+//Bounded LRU + TTL cache of validated AI results (generated polls and answer options).
+//The key is the normalized prompt (case, Unicode width forms, whitespace), the strategy and the number of answers,
+//so "  Roman Empire" and "roman   empire" share one entry. Only results that passed validation are stored.
+//With app.ai.cache.file set, entries are loaded at startup and written back periodically and on shutdown.
+@Slf4j
+@Component
+public class AIResultCache {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Path file;
+    private final ReentrantLock lock = new ReentrantLock();
+    //access-ordered: the eldest entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries;
+    private volatile boolean dirty;
+
+    public AIResultCache(ObjectMapper objectMapper,
+            @Value("${app.ai.cache.max-entries:1000}") int maxEntries,
+            @Value("${app.ai.cache.ttl-seconds:86400}") long ttlSeconds,
+            @Value("${app.ai.cache.file:}") String file) {
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.file = file == null || file.isBlank() ? null : Path.of(file);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > AIResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    public Optional<PollData> getPoll(String prompt, Class<?> strategy) {
+        return Optional.ofNullable(get(key(prompt, strategy, 0))).map(Entry::poll);
+    }
+
+    public void putPoll(String prompt, Class<?> strategy, PollData poll) {
+        put(key(prompt, strategy, 0), poll, null);
+    }
+
+    public Optional<List<OptionData>> getAnswers(String question, int numAnswers, Class<?> strategy) {
+        return Optional.ofNullable(get(key(question, strategy, numAnswers))).map(Entry::options);
+    }
+
+    public void putAnswers(String question, int numAnswers, Class<?> strategy, List<OptionData> options) {
+        put(key(question, strategy, numAnswers), null, List.copyOf(options));
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static String key(String prompt, Class<?> strategy, int numAnswers) {
+        String normalized = Normalizer.normalize(prompt, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return strategy.getSimpleName() + '|' + numAnswers + '|' + normalized;
+    }
+
+    private Entry get(String key) {
+        if (maxEntries <= 0)
+            return null;
+
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                dirty = true;
+                return null;
+            }
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String key, PollData poll, List<OptionData> options) {
+        if (maxEntries <= 0)
+            return;
+
+        Entry entry = new Entry(poll, options, System.currentTimeMillis() + ttlMillis);
+        lock.lock();
+        try {
+            entries.put(key, entry);
+            dirty = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        if (file == null || !Files.exists(file))
+            return;
+
+        try {
+            List<StoredEntry> stored = objectMapper.readValue(file.toFile(), new TypeReference<List<StoredEntry>>() {
+            });
+            long now = System.currentTimeMillis();
+            lock.lock();
+            try {
+                // Stored least recently used first, so the access order survives the restart
+                for (StoredEntry entry : stored) {
+                    if (entry.expiresAt() > now) {
+                        entries.put(entry.key(), new Entry(entry.poll(), entry.options(), entry.expiresAt()));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            log.info("Loaded {} cached AI results from {}", size(), file);
+        } catch (IOException e) {
+            log.warn("Could not load AI cache from {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.ai.cache.save-interval-ms:60000}")
+    public void save() {
+        if (file == null || !dirty)
+            return;
+
+        List<StoredEntry> stored = new ArrayList<>();
+        lock.lock();
+        try {
+            dirty = false;
+            entries.forEach((key, entry) -> stored.add(new StoredEntry(key, entry.poll, entry.options, entry.expiresAt)));
+        } finally {
+            lock.unlock();
+        }
+
+        // Written next to the target and moved over it, so a crash never leaves half a file
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "ai-cache", ".tmp");
+            objectMapper.writeValue(temp.toFile(), stored);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Could not save AI cache to {}: {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        save();
+    }
+
+    private record Entry(PollData poll, List<OptionData> options, long expiresAt) {
+    }
+
+    record StoredEntry(String key, PollData poll, List<OptionData> options, long expiresAt) {
+    }
+}
@@ -0,0 +1,204 @@
+package it.unical.xpoll.service.ai.exec;
+
+import it.unical.xpoll.service.ai.strategy.PromptStrategy;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Bulkhead for model calls, so AI bursts cannot take over the request threads that serve votes.
+//- each strategy has app.ai.max-concurrent permits; without a free one the call fails at once with a retry-after hint
+//- a permit is held until the model thread really ends, even if nobody waits for it anymore
+//  (the HTTP client may ignore interrupts), so live calls never exceed the permits
+//- identical prompts already in flight are joined instead of calling the model again (single flight);
+//  joiners take no permit, so each strategy lets at most app.ai.max-waiters of them block at once and
+//  fails the rest at once like a missing permit
+//- each caller waits at most PromptStrategy.getTimeoutSeconds() from when it arrived; the shared call is
+//  cancelled (its thread interrupted) only once its last caller has left
+@Component
+public class AIExecutor {
+    private final int maxConcurrent;
+    private final int retryAfterSeconds;
+    private final int maxWaiters;
+    //one thread per permit of every strategy: the permits, not the pool, decide what runs
+    private final ThreadPoolExecutor executor;
+    private final Map<Class<?>, Semaphore> permits = new ConcurrentHashMap<>();
+    //callers blocked on a call started by someone else
+    private final Map<Class<?>, Semaphore> waiterSlots = new ConcurrentHashMap<>();
+    //strategy + prompt -> running call
+    private final Map<String, Call> inFlight = new ConcurrentHashMap<>();
+
+    public AIExecutor(List<PromptStrategy> strategies,
+            @Value("${app.ai.max-concurrent:8}") int maxConcurrent,
+            @Value("${app.ai.retry-after-seconds:5}") int retryAfterSeconds,
+            @Value("${app.ai.max-waiters:32}") int maxWaiters,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.maxConcurrent = maxConcurrent;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.maxWaiters = maxWaiters;
+        strategies.forEach(strategy -> permits.put(strategy.getClass(), new Semaphore(maxConcurrent)));
+
+        int threads = Math.max(1, maxConcurrent * strategies.size());
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("ai-call-", 0).factory()
+                : r -> {
+                    Thread thread = new Thread(r, "ai-call");
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        // The queue only covers the moment between a permit being released and its thread returning to the pool
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    //Runs (or joins) the model call for this prompt and waits for its result within the strategy timeout.
+    public String execute(PromptStrategy strategy, String prompt, Callable<String> modelCall) {
+        String key = strategy.getClass().getSimpleName() + '|' + prompt;
+        while (true) {
+            Call call = inFlight.get(key);
+            if (call != null) {
+                Semaphore slots = waiterSlots.computeIfAbsent(strategy.getClass(), s -> new Semaphore(maxWaiters));
+                if (!slots.tryAcquire())
+                    throw AIUnavailableException.busy(retryAfterSeconds);
+                try {
+                    if (call.join())
+                        return await(call, strategy.getTimeoutSeconds());
+                } finally {
+                    slots.release();
+                }
+                // Its last caller just left and cancelled it: starts a new one
+                inFlight.remove(key, call);
+                continue;
+            }
+
+            Semaphore strategyPermits = acquire(strategy);
+            Call created = new Call(key, modelCall, strategyPermits);
+            if (inFlight.putIfAbsent(key, created) != null) {
+                // Another caller started the same prompt meanwhile
+                strategyPermits.release();
+                continue;
+            }
+            try {
+                created.future = executor.submit(created::run);
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(key, created);
+                strategyPermits.release();
+                throw AIUnavailableException.busy(retryAfterSeconds);
+            }
+            return await(created, strategy.getTimeoutSeconds());
+        }
+    }
+
+    //Takes a permit for work that does not go through execute (streamed generations). Release it when done.
+    public Semaphore acquire(PromptStrategy strategy) {
+        Semaphore strategyPermits = permits.computeIfAbsent(strategy.getClass(), s -> new Semaphore(maxConcurrent));
+        if (!strategyPermits.tryAcquire())
+            throw AIUnavailableException.busy(retryAfterSeconds);
+        return strategyPermits;
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    int availablePermits(PromptStrategy strategy) {
+        return permits.computeIfAbsent(strategy.getClass(), s -> new Semaphore(maxConcurrent)).availablePermits();
+    }
+
+    private String await(Call call, int timeoutSeconds) {
+        try {
+            return call.result.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw AIUnavailableException.timedOut(timeoutSeconds);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("AI call failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the AI call", e);
+        } finally {
+            call.leave();
+        }
+    }
+
+    private final class Call {
+        private final String key;
+        private final Callable<String> modelCall;
+        private final Semaphore strategyPermits;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        //callers still waiting; once it reaches 0 nobody can join anymore
+        private final AtomicInteger waiters = new AtomicInteger(1);
+        //claimed by the model thread when it starts, or by cancel if it never started
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile Future<?> future;
+
+        Call(String key, Callable<String> modelCall, Semaphore strategyPermits) {
+            this.key = key;
+            this.modelCall = modelCall;
+            this.strategyPermits = strategyPermits;
+        }
+
+        boolean join() {
+            while (true) {
+                int current = waiters.get();
+                if (current == 0)
+                    return false;
+                if (waiters.compareAndSet(current, current + 1))
+                    return true;
+            }
+        }
+
+        void leave() {
+            if (waiters.decrementAndGet() == 0 && !result.isDone()) {
+                cancel();
+            }
+        }
+
+        void run() {
+            if (!started.compareAndSet(false, true))
+                return;
+            try {
+                result.complete(modelCall.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, this);
+                strategyPermits.release();
+            }
+        }
+
+        //Nobody waits anymore: a queued call never runs, a running one is interrupted and keeps its permit until it ends
+        private void cancel() {
+            inFlight.remove(key, this);
+            result.cancel(false);
+            if (started.compareAndSet(false, true)) {
+                strategyPermits.release();
+            }
+            Future<?> running = future;
+            if (running != null) {
+                running.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package it.unical.xpoll.service.ai.exec;
+
+//An AI call that was not answered: rejected because its strategy is saturated, or cut at its timeout.
+public class AIUnavailableException extends RuntimeException {
+    private final boolean timedOut;
+    private final int retryAfterSeconds;
+
+    private AIUnavailableException(String message, boolean timedOut, int retryAfterSeconds) {
+        super(message);
+        this.timedOut = timedOut;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public static AIUnavailableException busy(int retryAfterSeconds) {
+        return new AIUnavailableException("AI service is busy, retry later", false, retryAfterSeconds);
+    }
+
+    public static AIUnavailableException timedOut(int timeoutSeconds) {
+        return new AIUnavailableException("AI generation timed out after " + timeoutSeconds + "s", true, 0);
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,23 +1,25 @@
 package it.unical.xpoll.service.ai.factory;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+//Turns model responses into polls and answer lists.
+//The outermost JSON object/array is located with a bracket counter (skipping brackets inside strings),
+//then read token by token straight into the records, without building a JsonNode tree.
+//Unknown fields are skipped; texts are stripped of HTML tags and trimmed.
 @Component
 public class AIResponseFactory {
 
     private final ObjectMapper objectMapper;
-    private static final Pattern JSON_PATTERN = Pattern.compile("\\{.*\\}", Pattern.DOTALL);
-    private static final Pattern JSON_ARRAY_PATTERN = Pattern.compile("\\[.*\\]", Pattern.DOTALL);
 
-    public AIResponseFactory() {
-        this.objectMapper = new ObjectMapper();
+    public AIResponseFactory(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
     }
 
     public PollData createPollFromJson(String jsonResponse) {
@@ -25,48 +27,24 @@ public class AIResponseFactory {
             return null;
         }
 
-        try {
-            String cleanJson = extractJson(jsonResponse);
-            if (cleanJson == null) {
-                System.err.println("No valid JSON found in response");
-                return null;
-            }
-
-            JsonNode rootNode = objectMapper.readTree(cleanJson);
-
-            String title = sanitize(rootNode.path("title").asText());
-            String description = sanitize(rootNode.path("description").asText());
-
-            List<QuestionData> questions = new ArrayList<>();
-            JsonNode questionsNode = rootNode.path("questions");
-
-            if (questionsNode.isArray()) {
-                for (JsonNode questionNode : questionsNode) {
-                    String questionText = sanitize(questionNode.path("text").asText());
-                    List<OptionData> options = new ArrayList<>();
-
-                    JsonNode optionsNode = questionNode.path("options");
-                    if (optionsNode.isArray()) {
-                        for (JsonNode optionNode : optionsNode) {
-                            String optionText = sanitize(optionNode.path("text").asText());
-                            int value = optionNode.path("points").asInt(0);
-                            boolean isCorrect = optionNode.path("isCorrect").asBoolean(false);
-                            options.add(new OptionData(optionText, value, isCorrect));
-                        }
-                    }
+        char[] text = jsonResponse.toCharArray();
+        int start = indexOf(text, '{');
+        int end = start >= 0 ? closingIndex(text, start) : -1;
+        if (end < 0) {
+            System.err.println("No valid JSON found in response");
+            return null;
+        }
 
-                    if (options.size() >= 2) {
-                        questions.add(new QuestionData(questionText, options));
-                    }
-                }
-            }
+        try (JsonParser parser = objectMapper.createParser(text, start, end - start + 1)) {
+            parser.nextToken();
+            PollData poll = readPoll(parser);
 
-            if (questions.isEmpty()) {
+            if (poll.questions().isEmpty()) {
                 System.err.println("Poll must have at least 1 question");
                 return null;
             }
 
-            return new PollData(title, description, questions);
+            return poll;
 
         } catch (Exception e) {
             System.err.println("Error parsing poll JSON: " + e.getMessage());
@@ -74,29 +52,43 @@ public class AIResponseFactory {
         }
     }
 
+    // One question object of a streamed poll; null if it is invalid or has less than 2 options
+    public QuestionData createQuestionFromJson(String questionJson) {
+        try (JsonParser parser = objectMapper.createParser(questionJson)) {
+            parser.nextToken();
+            return readQuestion(parser);
+        } catch (Exception e) {
+            System.err.println("Error parsing streamed question: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // A JSON string literal of a streamed poll (title, description), decoded and sanitized
+    public String createTextFromJson(String stringJson) {
+        try (JsonParser parser = objectMapper.createParser(stringJson)) {
+            parser.nextToken();
+            return readText(parser);
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
     public List<OptionData> createAnswersFromJson(String jsonResponse) {
         if (jsonResponse == null || jsonResponse.trim().isEmpty()) {
             return null;
         }
 
-        try {
-            String cleanJson = extractJsonArray(jsonResponse);
-            if (cleanJson == null) {
-                System.err.println("No valid JSON array found in response");
-                return null;
-            }
-
-            JsonNode rootNode = objectMapper.readTree(cleanJson);
-            List<OptionData> options = new ArrayList<>();
+        char[] text = jsonResponse.toCharArray();
+        int start = indexOf(text, '[');
+        int end = start >= 0 ? closingIndex(text, start) : -1;
+        if (end < 0) {
+            System.err.println("No valid JSON array found in response");
+            return null;
+        }
 
-            if (rootNode.isArray()) {
-                for (JsonNode optionNode : rootNode) {
-                    String optionText = sanitize(optionNode.path("text").asText());
-                    int value = optionNode.path("points").asInt(0);
-                    boolean isCorrect = optionNode.path("isCorrect").asBoolean(false);
-                    options.add(new OptionData(optionText, value, isCorrect));
-                }
-            }
+        try (JsonParser parser = objectMapper.createParser(text, start, end - start + 1)) {
+            parser.nextToken();
+            List<OptionData> options = readOptions(parser);
 
             if (options.size() < 2) {
                 System.err.println("Must have at least 2 answer options");
@@ -111,28 +103,176 @@ public class AIResponseFactory {
         }
     }
 
-    private String extractJson(String text) {
-        Matcher matcher = JSON_PATTERN.matcher(text);
-        if (matcher.find()) {
-            return matcher.group();
+    // The parser is on the START_OBJECT of the poll
+    private PollData readPoll(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_OBJECT);
+        String title = "";
+        String description = "";
+        List<QuestionData> questions = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "title" -> title = readText(parser);
+                case "description" -> description = readText(parser);
+                case "questions" -> {
+                    if (parser.currentToken() == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            QuestionData question = readQuestion(parser);
+                            if (question != null) {
+                                questions.add(question);
+                            }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return new PollData(title, description, questions);
+    }
+
+    // Null when the question has less than 2 options (or is not an object)
+    private QuestionData readQuestion(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        String text = "";
+        List<OptionData> options = List.of();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "text" -> text = readText(parser);
+                case "options" -> options = readOptions(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return options.size() >= 2 ? new QuestionData(text, options) : null;
+    }
+
+    // The parser is on the START_ARRAY of the options; anything else gives no options
+    private List<OptionData> readOptions(JsonParser parser) throws IOException {
+        List<OptionData> options = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return options;
+        }
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            String text = "";
+            int value = 0;
+            boolean isCorrect = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "text" -> text = readText(parser);
+                    case "points" -> value = parser.getValueAsInt(0);
+                    case "isCorrect" -> isCorrect = parser.getValueAsBoolean(false);
+                    default -> parser.skipChildren();
+                }
+            }
+            options.add(new OptionData(text, value, isCorrect));
+        }
+        return options;
+    }
+
+    // Scalars as text, objects and arrays as ""
+    private String readText(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return "";
+        }
+        return sanitize(parser.getValueAsString(""));
+    }
+
+    private static void expect(JsonParser parser, JsonToken token) throws IOException {
+        if (parser.currentToken() != token) {
+            throw new IOException("Expected " + token + " but found " + parser.currentToken());
+        }
+    }
+
+    private static int indexOf(char[] text, char c) {
+        for (int i = 0; i < text.length; i++) {
+            if (text[i] == c)
+                return i;
         }
-        return null;
+        return -1;
     }
 
-    private String extractJsonArray(String text) {
-        Matcher matcher = JSON_ARRAY_PATTERN.matcher(text);
-        if (matcher.find()) {
-            return matcher.group();
+    // Index of the bracket closing the one at start, -1 if the response ends first
+    static int closingIndex(char[] text, int start) {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = start; i < text.length; i++) {
+            char c = text[i];
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return i;
+            }
         }
-        return null;
+        return -1;
     }
 
-    private String sanitize(String text) {
+    // Drops every <...> tag and trims, in one pass; returns the same string when there is nothing to change
+    static String sanitize(String text) {
         if (text == null)
             return "";
-        text = text.replaceAll("<[^>]*>", "");
-        text = text.replaceAll("(?i)<script[^>]*>.*?</script>", "");
-        return text.trim();
+
+        int length = text.length();
+        int start = 0;
+        while (start < length && text.charAt(start) <= ' ')
+            start++;
+        int end = length;
+        while (end > start && text.charAt(end - 1) <= ' ')
+            end--;
+
+        int tag = text.indexOf('<', start);
+        if (tag < 0 || tag >= end)
+            return start == 0 && end == length ? text : text.substring(start, end);
+
+        StringBuilder result = new StringBuilder(end - start);
+        int i = start;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c == '<') {
+                int close = text.indexOf('>', i + 1);
+                if (close >= 0) {
+                    i = close + 1;
+                    continue;
+                }
+            }
+            result.append(c);
+            i++;
+        }
+
+        // Removing tags can expose new leading or trailing whitespace
+        int from = 0;
+        while (from < result.length() && result.charAt(from) <= ' ')
+            from++;
+        int to = result.length();
+        while (to > from && result.charAt(to - 1) <= ' ')
+            to--;
+        return result.substring(from, to);
     }
 
     public record PollData(String title, String description, List<QuestionData> questions) {
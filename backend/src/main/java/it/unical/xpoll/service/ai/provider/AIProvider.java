@@ -0,0 +1,16 @@
+package it.unical.xpoll.service.ai.provider;
+
+import it.unical.xpoll.service.ai.strategy.PromptStrategy;
+
+import java.util.function.Consumer;
+
+//The model behind PollAIService, chosen with app.ai.provider: "gemini" (default) or "stub" (canned answers, no network).
+//Providers return the raw model text; parsing and validation stay in PollAIService/AIResponseFactory.
+public interface AIProvider {
+    //Whole response, null on failure.
+    String generate(String prompt, PromptStrategy strategy);
+
+    //Passes each piece of text to onChunk as it is produced. Returns false on failure or when the
+    //strategy timeout passes.
+    boolean stream(String prompt, PromptStrategy strategy, Consumer<String> onChunk);
+}
@@ -0,0 +1,130 @@
+package it.unical.xpoll.service.ai.provider;
+
+import it.unical.xpoll.service.ai.strategy.AnswerGenerationStrategy;
+import it.unical.xpoll.service.ai.strategy.PromptStrategy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+//Local AIProvider for load tests and benchmarks (app.ai.provider=stub): no network, no API key.
+//Answers with a fixed poll (app.ai.stub.questions questions of 4 options) or a fixed array of 4 options,
+//after a latency drawn from app.ai.stub.latency-distribution:
+//- fixed: always latency-ms
+//- uniform: latency-ms +/- latency-jitter-ms
+//- exponential: mean latency-ms, with the long tail of a real model
+//A share of calls (failure-rate, 0..1) fails like the real provider does: null, or a stream cut halfway.
+//Draws come from one Random seeded with app.ai.stub.seed, so single-threaded runs repeat exactly.
+@Component
+@ConditionalOnProperty(name = "app.ai.provider", havingValue = "stub")
+public class StubAIProvider implements AIProvider {
+    enum Distribution {
+        FIXED, UNIFORM, EXPONENTIAL
+    }
+
+    private final Distribution distribution;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double failureRate;
+    private final int chunkChars;
+    private final Random random;
+    private final String pollJson;
+    private final String answersJson;
+
+    public StubAIProvider(@Value("${app.ai.stub.latency-distribution:fixed}") String distribution,
+            @Value("${app.ai.stub.latency-ms:800}") long latencyMillis,
+            @Value("${app.ai.stub.latency-jitter-ms:200}") long jitterMillis,
+            @Value("${app.ai.stub.failure-rate:0}") double failureRate,
+            @Value("${app.ai.stub.questions:5}") int questions,
+            @Value("${app.ai.stub.chunk-chars:40}") int chunkChars,
+            @Value("${app.ai.stub.seed:42}") long seed) {
+        this.distribution = Distribution.valueOf(distribution.trim().toUpperCase(Locale.ROOT));
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.failureRate = failureRate;
+        this.chunkChars = Math.max(1, chunkChars);
+        this.random = new Random(seed);
+        this.pollJson = pollJson(questions);
+        this.answersJson = optionsJson(0);
+    }
+
+    @Override
+    public String generate(String prompt, PromptStrategy strategy) {
+        long latency = sampleLatency();
+        boolean fails = fails();
+        if (!sleep(latency) || fails)
+            return null;
+        return response(strategy);
+    }
+
+    //The latency is spread over the chunks, so the first one arrives after latency / chunks
+    @Override
+    public boolean stream(String prompt, PromptStrategy strategy, Consumer<String> onChunk) {
+        String response = response(strategy);
+        int chunks = (response.length() + chunkChars - 1) / chunkChars;
+        long latency = sampleLatency();
+        // A failing stream stops halfway, after sending part of the poll
+        int failAt = fails() ? chunks / 2 : -1;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(strategy.getTimeoutSeconds());
+
+        for (int i = 0; i < chunks; i++) {
+            if (i == failAt || !sleep(latency / chunks) || System.nanoTime() > deadline)
+                return false;
+            onChunk.accept(response.substring(i * chunkChars, Math.min(response.length(), (i + 1) * chunkChars)));
+        }
+        return true;
+    }
+
+    long sampleLatency() {
+        return switch (distribution) {
+            case FIXED -> latencyMillis;
+            case UNIFORM -> Math.max(0, latencyMillis - jitterMillis + (long) (random.nextDouble() * 2 * jitterMillis));
+            case EXPONENTIAL -> (long) (-latencyMillis * Math.log(1 - random.nextDouble()));
+        };
+    }
+
+    private boolean fails() {
+        return failureRate > 0 && random.nextDouble() < failureRate;
+    }
+
+    private String response(PromptStrategy strategy) {
+        return strategy instanceof AnswerGenerationStrategy ? answersJson : pollJson;
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String pollJson(int questions) {
+        StringBuilder json = new StringBuilder("{\"title\":\"Stub poll\",\"description\":\"Generated by the stub AI provider\",\"questions\":[");
+        for (int q = 0; q < questions; q++) {
+            if (q > 0)
+                json.append(',');
+            json.append("{\"text\":\"Stub question ").append(q + 1).append("\",\"options\":").append(optionsJson(q)).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    //4 options, the correct one moving with the question
+    private static String optionsJson(int question) {
+        StringBuilder json = new StringBuilder("[");
+        for (int o = 0; o < 4; o++) {
+            boolean correct = o == question % 4;
+            if (o > 0)
+                json.append(',');
+            json.append("{\"text\":\"Option ").append(o + 1).append("\",\"points\":").append(correct ? 1 : 0)
+                    .append(",\"isCorrect\":").append(correct).append('}');
+        }
+        return json.append(']').toString();
+    }
+}
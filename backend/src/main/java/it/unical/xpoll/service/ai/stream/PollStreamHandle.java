@@ -0,0 +1,7 @@
+package it.unical.xpoll.service.ai.stream;
+
+//A streamed poll still being generated. Cancelling it stops the model call without telling the listener
+//(the client is already gone); cancelling a finished stream does nothing.
+public interface PollStreamHandle {
+    void cancel();
+}
@@ -0,0 +1,15 @@
+package it.unical.xpoll.service.ai.stream;
+
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.QuestionData;
+
+//Receives a streamed poll piece by piece. Exactly one of onComplete / onError ends the stream.
+public interface PollStreamListener {
+    //"title" or "description", already sanitized
+    void onField(String name, String value);
+
+    void onQuestion(QuestionData question);
+
+    void onComplete(int questionCount);
+
+    void onError(String message);
+}
@@ -0,0 +1,134 @@
+package it.unical.xpoll.service.ai.stream;
+
+//Incremental scanner for the poll JSON while the model is still writing it.
+//Chunks are fed as they arrive; the scanner only counts brackets outside of strings, so it reports
+//a top-level string field ("title", "description") or a question object of the "questions" array
+//as soon as its closing quote or brace is read. Fragments are raw JSON, decoded by AIResponseFactory.
+//Text before the first '{' (e.g. a markdown fence) is ignored.
+public class PollStreamParser {
+
+    public interface Listener {
+        void onField(String name, String rawJson);
+
+        void onQuestion(String rawJson);
+    }
+
+    private final Listener listener;
+    //text from the first '{' on; the scan position never moves back
+    private final StringBuilder text = new StringBuilder();
+    private int position;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private int stringStart = -1;
+    //top-level object state
+    private String lastString;
+    private String currentKey;
+    private boolean expectingValue;
+    private boolean inQuestions;
+    private int questionStart = -1;
+    private boolean finished;
+
+    public PollStreamParser(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void feed(CharSequence chunk) {
+        if (finished || chunk == null)
+            return;
+
+        if (text.isEmpty()) {
+            int start = indexOf(chunk, '{');
+            if (start < 0)
+                return;
+            text.append(chunk, start, chunk.length());
+        } else {
+            text.append(chunk);
+        }
+
+        for (; position < text.length() && !finished; position++) {
+            scan(text.charAt(position));
+        }
+    }
+
+    //True once the top-level object is closed.
+    public boolean isFinished() {
+        return finished;
+    }
+
+    private void scan(char c) {
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+                if (depth == 1) {
+                    endTopLevelString(text.substring(stringStart, position + 1));
+                }
+            }
+            return;
+        }
+
+        switch (c) {
+            case '"' -> {
+                inString = true;
+                stringStart = position;
+            }
+            case '{', '[' -> {
+                if (depth == 1 && c == '[' && expectingValue && "questions".equals(currentKey)) {
+                    inQuestions = true;
+                } else if (depth == 2 && c == '{' && inQuestions) {
+                    questionStart = position;
+                }
+                if (depth == 1) {
+                    expectingValue = false;
+                }
+                depth++;
+            }
+            case '}', ']' -> {
+                depth--;
+                if (depth == 2 && c == '}' && inQuestions && questionStart >= 0) {
+                    listener.onQuestion(text.substring(questionStart, position + 1));
+                    questionStart = -1;
+                } else if (depth == 1 && c == ']') {
+                    inQuestions = false;
+                } else if (depth == 0) {
+                    finished = true;
+                }
+            }
+            case ':' -> {
+                if (depth == 1) {
+                    currentKey = lastString;
+                    expectingValue = true;
+                }
+            }
+            case ',' -> {
+                if (depth == 1) {
+                    currentKey = null;
+                    expectingValue = false;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void endTopLevelString(String raw) {
+        if (expectingValue) {
+            listener.onField(currentKey, raw);
+            expectingValue = false;
+        } else {
+            lastString = raw.substring(1, raw.length() - 1);
+        }
+    }
+
+    private static int indexOf(CharSequence chunk, char c) {
+        for (int i = 0; i < chunk.length(); i++) {
+            if (chunk.charAt(i) == c)
+                return i;
+        }
+        return -1;
+    }
+}
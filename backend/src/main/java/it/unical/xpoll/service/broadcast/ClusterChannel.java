@@ -0,0 +1,13 @@
+package it.unical.xpoll.service.broadcast;
+
+import java.util.function.Consumer;
+
+//Internal events between the nodes of a multi-node deployment (app.websocket.broker=postgres or relay),
+//used to keep per-node state (live sessions, presence) in step. Events are JSON text; delivery is
+//best effort and a node never receives its own events. There is no channel in the single-node simple mode.
+public interface ClusterChannel {
+    void publishEvent(String event);
+
+    //Listeners run on the channel's receiving thread, so they must not block.
+    void subscribe(Consumer<String> listener);
+}
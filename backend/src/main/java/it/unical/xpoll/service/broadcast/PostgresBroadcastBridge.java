@@ -0,0 +1,286 @@
+package it.unical.xpoll.service.broadcast;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+//Fans session broadcasts out to every node through PostgreSQL LISTEN/NOTIFY.
+//Each node publishes what it delivered locally and forwards notifications from other nodes
+//to its own simple broker, so subscribers connected anywhere receive every update.
+//Updates larger than one NOTIFY payload (e.g. a full leaderboard) are sent in parts and reassembled.
+//Cluster events travel on the same channel under their own destination and go to the subscribed listeners.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.websocket.broker", havingValue = "postgres")
+public class PostgresBroadcastBridge implements ClusterChannel {
+    static final String CHANNEL = "xpoll_session_events";
+    //not a broker destination: payloads sent here are cluster events
+    static final String CLUSTER_DESTINATION = "cluster";
+    //NOTIFY payloads must be shorter than 8000 bytes
+    static final int MAX_PAYLOAD_BYTES = 7900;
+    //parts of an update not completed within this time were lost (e.g. listener reconnecting)
+    private static final long PARTS_TIMEOUT_MS = 30_000;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong messageIds = new AtomicLong();
+    //updates whose parts are still arriving (listener thread only)
+    private final Parts parts = new Parts(PARTS_TIMEOUT_MS);
+    private final List<Consumer<String>> clusterListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean running;
+    private Thread listener;
+
+    public PostgresBroadcastBridge(SimpMessagingTemplate messagingTemplate, JdbcTemplate jdbcTemplate,
+            DataSource dataSource) {
+        this.messagingTemplate = messagingTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "session-broadcast-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    //Publishes a message already delivered on this node.
+    public void publish(String destination, Map<String, Object> message) {
+        Message<?> converted = messagingTemplate.getMessageConverter().toMessage(message, null);
+        if (converted == null || !(converted.getPayload() instanceof byte[] json)) {
+            return;
+        }
+
+        notify(destination, new String(json, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void publishEvent(String event) {
+        notify(CLUSTER_DESTINATION, event);
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        clusterListeners.add(listener);
+    }
+
+    private void notify(String destination, String json) {
+        List<String> payloads = split(nodeId, messageIds.incrementAndGet(), destination, json);
+        try {
+            for (String payload : payloads) {
+                jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL, payload);
+            }
+        } catch (Exception e) {
+            log.error("Error publishing to {}: {}", destination, e.getMessage());
+        }
+    }
+
+    //Payloads: nodeId|messageId|part|parts|destination|json slice, each at most MAX_PAYLOAD_BYTES.
+    //Slices are cut between characters, so every one is valid UTF-8 on its own.
+    static List<String> split(String nodeId, long messageId, String destination, String json) {
+        String header = nodeId + "|" + messageId + "|";
+        String suffix = "|" + destination + "|";
+        // Room left once the widest part/parts counters are in the header
+        int room = MAX_PAYLOAD_BYTES - utf8Length(header + suffix) - 2 * String.valueOf(json.length()).length() - 1;
+        if (room <= 0)
+            throw new IllegalArgumentException("Destination too long for NOTIFY: " + destination);
+
+        List<String> slices = new ArrayList<>();
+        int start = 0;
+        int bytes = 0;
+        for (int i = 0; i < json.length(); ) {
+            int codePoint = json.codePointAt(i);
+            int width = utf8Length(codePoint);
+            if (bytes + width > room) {
+                slices.add(json.substring(start, i));
+                start = i;
+                bytes = 0;
+            }
+            bytes += width;
+            i += Character.charCount(codePoint);
+        }
+        slices.add(json.substring(start));
+
+        List<String> payloads = new ArrayList<>(slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            payloads.add(header + i + "|" + slices.size() + suffix + slices.get(i));
+        }
+        return payloads;
+    }
+
+    private static int utf8Length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static int utf8Length(int codePoint) {
+        return codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+    }
+
+    //Keeps a dedicated connection listening, reconnecting after failures.
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(500);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        deliver(notification.getParameter());
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Session broadcast listener error: {}", e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    void deliver(String payload) {
+        if (payload.startsWith(nodeId + "|"))
+            return;
+
+        Parts.Update update = parts.add(payload, System.currentTimeMillis());
+        if (update == null)
+            return;
+
+        if (CLUSTER_DESTINATION.equals(update.destination())) {
+            for (Consumer<String> listener : clusterListeners) {
+                try {
+                    listener.accept(update.json());
+                } catch (Exception e) {
+                    log.error("Error applying cluster event: {}", e.getMessage());
+                }
+            }
+            return;
+        }
+
+        Message<byte[]> message = MessageBuilder.withPayload(update.json().getBytes(StandardCharsets.UTF_8))
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                .build();
+        messagingTemplate.send(update.destination(), message);
+    }
+
+    //Reassembles updates from their parts; not thread-safe.
+    static final class Parts {
+        private final long timeoutMs;
+        //nodeId|messageId -> parts received so far, oldest first
+        private final Map<String, Pending> pending = new LinkedHashMap<>();
+
+        Parts(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+
+        //Returns the update once its last part arrived, null while parts are missing or the payload is malformed.
+        Update add(String payload, long now) {
+            expire(now);
+
+            String[] fields = payload.split("\\|", 6);
+            if (fields.length < 6)
+                return null;
+            int part;
+            int count;
+            try {
+                part = Integer.parseInt(fields[2]);
+                count = Integer.parseInt(fields[3]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (count < 1 || part < 0 || part >= count)
+                return null;
+            if (count == 1)
+                return new Update(fields[4], fields[5]);
+
+            String key = fields[0] + "|" + fields[1];
+            Pending update = pending.computeIfAbsent(key, k -> new Pending(fields[4], count, now));
+            if (update.slices[part] == null) {
+                update.slices[part] = fields[5];
+                update.received++;
+            }
+            if (update.received < count)
+                return null;
+
+            pending.remove(key);
+            return new Update(update.destination, String.join("", update.slices));
+        }
+
+        int pendingCount() {
+            return pending.size();
+        }
+
+        private void expire(long now) {
+            Iterator<Pending> iterator = pending.values().iterator();
+            while (iterator.hasNext()) {
+                Pending update = iterator.next();
+                if (now - update.firstSeen <= timeoutMs)
+                    break;
+                log.warn("Dropped update for {}: {} of {} parts received", update.destination,
+                        update.received, update.slices.length);
+                iterator.remove();
+            }
+        }
+
+        record Update(String destination, String json) {
+        }
+
+        private static final class Pending {
+            private final String destination;
+            private final String[] slices;
+            private final long firstSeen;
+            private int received;
+
+            Pending(String destination, int count, long firstSeen) {
+                this.destination = destination;
+                this.slices = new String[count];
+                this.firstSeen = firstSeen;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package it.unical.xpoll.service.broadcast;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+//Cluster events through the external STOMP broker (app.websocket.broker=relay).
+//Each node keeps its own broker connection subscribed to one internal topic, reconnecting after failures.
+//Events are sent as "nodeId|json", so a node skips the ones it sent itself.
+//Clients cannot subscribe to the topic (see WebSocketConfig).
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.websocket.broker", havingValue = "relay")
+public class RelayClusterChannel extends StompSessionHandlerAdapter implements ClusterChannel {
+    public static final String TOPIC = "/topic/xpoll.cluster";
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final ReactorNettyTcpStompClient client;
+    private final TaskScheduler scheduler;
+    private final StompHeaders connectHeaders = new StompHeaders();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private volatile StompSession session;
+    private volatile boolean running;
+
+    public RelayClusterChannel(@Value("${app.websocket.relay.host:localhost}") String host,
+            @Value("${app.websocket.relay.port:61613}") int port,
+            @Value("${app.websocket.relay.login:guest}") String login,
+            @Value("${app.websocket.relay.passcode:guest}") String passcode,
+            @Qualifier("webSocketHeartbeatScheduler") TaskScheduler scheduler) {
+        this.client = new ReactorNettyTcpStompClient(host, port);
+        this.client.setMessageConverter(new StringMessageConverter());
+        this.client.setTaskScheduler(scheduler);
+        this.scheduler = scheduler;
+        connectHeaders.setLogin(login);
+        connectHeaders.setPasscode(passcode);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        connect();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            current.disconnect();
+        }
+        client.shutdown();
+    }
+
+    @Override
+    public void publishEvent(String event) {
+        StompSession current = session;
+        if (current == null || !current.isConnected()) {
+            log.warn("Cluster event dropped, not connected to the broker");
+            return;
+        }
+        try {
+            current.send(TOPIC, nodeId + "|" + event);
+        } catch (Exception e) {
+            log.error("Error publishing cluster event: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void afterConnected(StompSession connected, StompHeaders headers) {
+        connected.subscribe(TOPIC, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders frameHeaders) {
+                return String.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders frameHeaders, Object payload) {
+                deliver((String) payload);
+            }
+        });
+        session = connected;
+        log.info("Cluster channel connected to the broker");
+    }
+
+    @Override
+    public void handleTransportError(StompSession failed, Throwable exception) {
+        log.warn("Cluster channel connection error: {}", exception.getMessage());
+        // Failed connection attempts are retried by connect()
+        if (failed == session && !failed.isConnected()) {
+            session = null;
+            reconnectLater();
+        }
+    }
+
+    void deliver(String payload) {
+        int separator = payload.indexOf('|');
+        if (separator < 0 || payload.startsWith(nodeId + "|"))
+            return;
+
+        String event = payload.substring(separator + 1);
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                log.error("Error applying cluster event: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void connect() {
+        client.connectAsync(connectHeaders, this).whenComplete((connected, e) -> {
+            if (e != null) {
+                log.warn("Cluster channel cannot reach the broker: {}", e.getMessage());
+                reconnectLater();
+            }
+        });
+    }
+
+    private void reconnectLater() {
+        if (running) {
+            scheduler.schedule(this::connect, Instant.now().plusMillis(RECONNECT_DELAY_MS));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package it.unical.xpoll.service.broadcast;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Sends session updates to /topic/session/{code} and leaderboard updates to /topic/session/{code}/leaderboard.
+//With the postgres broker mode the update is also fanned out to the other nodes.
+//High-frequency session updates (joins, leaves, votes, presence) are buffered per session for
+//app.broadcast.coalesce-window-ms and sent as one {"type":"BATCH","events":[...]} message.
+//Any other update (launch, close, results...) first flushes the buffer, then goes out immediately, so order is kept.
+@Component
+@RequiredArgsConstructor
+public class SessionBroadcaster {
+    static final Set<String> COALESCED_TYPES = Set.of("PARTICIPANT_JOINED", "PARTICIPANT_LEFT", "VOTE_SUBMITTED",
+            "PRESENCE_CHANGED");
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectProvider<PostgresBroadcastBridge> bridge;
+    //pending updates per destination
+    private final Map<String, Buffer> buffers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "broadcast-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //0 disables coalescing
+    @Value("${app.broadcast.coalesce-window-ms:100}")
+    private long coalesceWindowMs;
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        buffers.keySet().forEach(this::flush);
+    }
+
+    public void broadcast(String code, Map<String, Object> message) {
+        String destination = destination(code);
+        if (coalesceWindowMs <= 0) {
+            send(destination, message);
+        } else if (COALESCED_TYPES.contains(message.get("type"))) {
+            buffer(destination, message);
+        } else {
+            flushThenSend(destination, message);
+        }
+    }
+
+    public void broadcastLeaderboard(String code, Map<String, Object> message) {
+        send(destination(code) + "/leaderboard", message);
+    }
+
+    private void buffer(String destination, Map<String, Object> message) {
+        while (true) {
+            Buffer buffer = buffers.computeIfAbsent(destination, d -> new Buffer());
+            buffer.lock.lock();
+            try {
+                // Removed by a flush in the meantime: retries with a fresh buffer
+                if (buffer.closed)
+                    continue;
+
+                buffer.events.add(message);
+                if (buffer.events.size() == 1) {
+                    flusher.schedule(() -> flush(destination), coalesceWindowMs, TimeUnit.MILLISECONDS);
+                }
+                return;
+            } finally {
+                buffer.lock.unlock();
+            }
+        }
+    }
+
+    private void flushThenSend(String destination, Map<String, Object> message) {
+        Buffer buffer = buffers.get(destination);
+        if (buffer == null) {
+            send(destination, message);
+            return;
+        }
+        buffer.lock.lock();
+        try {
+            drain(destination, buffer);
+            send(destination, message);
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    private void flush(String destination) {
+        Buffer buffer = buffers.get(destination);
+        if (buffer == null)
+            return;
+        buffer.lock.lock();
+        try {
+            drain(destination, buffer);
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    //Sends what the buffer holds and retires it; callers hold the buffer lock.
+    private void drain(String destination, Buffer buffer) {
+        List<Map<String, Object>> events = buffer.events;
+        buffer.closed = true;
+        buffers.remove(destination, buffer);
+
+        if (events.size() == 1) {
+            send(destination, events.get(0));
+        } else if (events.size() > 1) {
+            Map<String, Object> batch = new HashMap<>();
+            batch.put("type", "BATCH");
+            batch.put("events", new ArrayList<>(events));
+            send(destination, batch);
+        }
+    }
+
+    private void send(String destination, Map<String, Object> message) {
+        messagingTemplate.convertAndSend(destination, (Object) message);
+
+        PostgresBroadcastBridge postgresBridge = bridge.getIfAvailable();
+        if (postgresBridge != null) {
+            postgresBridge.publish(destination, message);
+        }
+    }
+
+    private static String destination(String code) {
+        return "/topic/session/" + code.toUpperCase();
+    }
+
+    //ReentrantLock rather than synchronized: sends may block on the postgres bridge, which would pin a virtual thread
+    private static final class Buffer {
+        final ReentrantLock lock = new ReentrantLock();
+        final List<Map<String, Object>> events = new ArrayList<>();
+        boolean closed;
+    }
+}
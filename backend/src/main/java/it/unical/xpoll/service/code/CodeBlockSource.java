@@ -0,0 +1,7 @@
+package it.unical.xpoll.service.code;
+
+//Hands out blocks of the session code counter. Each block number is returned at most once,
+//across every node sharing the source.
+public interface CodeBlockSource {
+    long nextBlock();
+}
@@ -0,0 +1,24 @@
+package it.unical.xpoll.service.code;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+//Reserves code blocks from a database sequence, so nodes never share a block.
+//The sequence is created by SessionCodeSequenceMigration.
+public class SequenceCodeBlockSource implements CodeBlockSource {
+    public static final String SEQUENCE = "session_code_blocks_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceCodeBlockSource(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public long nextBlock() {
+        Long block = jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE + "')", Long.class);
+        if (block == null) {
+            throw new RuntimeException("Could not reserve a session code block");
+        }
+        return block;
+    }
+}
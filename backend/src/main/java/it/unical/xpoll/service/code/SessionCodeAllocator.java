@@ -0,0 +1,104 @@
+package it.unical.xpoll.service.code;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+//Allocates 6-character session codes without probing the database.
+//The code space (32 symbols ^ 6 = 2^30 codes) is walked by a counter reserved in blocks from a CodeBlockSource,
+//so each node owns disjoint ranges. Counter values are scrambled with a bijection before being encoded,
+//which keeps codes unique while making consecutive sessions look unrelated.
+//Codes of deleted sessions are handed out again by the node that released them; codes created before
+//the allocator existed (random) are skipped by asking legacyCodeInUse about each new code.
+public class SessionCodeAllocator {
+    static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+    static final int CODE_LENGTH = 6;
+    static final int BLOCK_SIZE = 1024;
+    private static final int BITS = 30;
+    private static final long MASK = (1L << BITS) - 1;
+
+    private final CodeBlockSource blockSource;
+    //whether a session created before the allocator already has the code (a database probe, or never)
+    private final Predicate<String> legacyCodeInUse;
+    private final Queue<String> released = new ConcurrentLinkedQueue<>();
+    //a ReentrantLock rather than synchronized: reserving a block is a database call, which would pin a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long blockEnd;
+
+    public SessionCodeAllocator(CodeBlockSource blockSource, Predicate<String> legacyCodeInUse) {
+        this.blockSource = blockSource;
+        this.legacyCodeInUse = legacyCodeInUse;
+    }
+
+    public String allocate() {
+        String recycled = released.poll();
+        if (recycled != null) {
+            return recycled;
+        }
+
+        lock.lock();
+        try {
+            while (true) {
+                if (next == blockEnd) {
+                    long block = blockSource.nextBlock();
+                    next = block * BLOCK_SIZE;
+                    blockEnd = next + BLOCK_SIZE;
+                    if (blockEnd > MASK + 1) {
+                        throw new RuntimeException("Session code space exhausted");
+                    }
+                }
+
+                String code = encode(scramble(next++));
+                if (!legacyCodeInUse.test(code)) {
+                    return code;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Makes the code of a deleted session available again.
+    public void release(String code) {
+        if (decode(code) >= 0) {
+            released.add(code.toUpperCase());
+        }
+    }
+
+    //Bijection on 30 bits: odd multipliers and xor-shifts are both invertible modulo 2^30.
+    static int scramble(long counter) {
+        long x = counter & MASK;
+        x = (x * 0x2C1B3C6DL) & MASK;
+        x ^= x >>> 15;
+        x = (x * 0x297A2D39L) & MASK;
+        x ^= x >>> 13;
+        return (int) x;
+    }
+
+    static String encode(int value) {
+        char[] code = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET.charAt(value & 31);
+            value >>>= 5;
+        }
+        return new String(code);
+    }
+
+    //-1 if the code is not made of 6 alphabet symbols.
+    static int decode(String code) {
+        if (code == null || code.length() != CODE_LENGTH) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            int symbol = ALPHABET.indexOf(Character.toUpperCase(code.charAt(i)));
+            if (symbol < 0) {
+                return -1;
+            }
+            value = (value << 5) | symbol;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,16 @@
+package it.unical.xpoll.service.ingestion;
+
+import java.time.Instant;
+import java.util.List;
+
+//Votes accepted in memory and waiting to be written to the votes table.
+//completionTimeSeconds is set only on the participant's first submission.
+//score and correctCount are the participant's running totals after this submission, scoreVersion the number
+//of questions they account for (null in old spill lines).
+public record PendingSubmission(Long sessionId, Long participantId, List<PendingVote> votes,
+        Instant submittedAt, Integer completionTimeSeconds, Integer score, Integer correctCount, Integer maxScore,
+        Integer scoreVersion) {
+
+    public record PendingVote(Long questionId, Long optionId) {
+    }
+}
@@ -0,0 +1,229 @@
+package it.unical.xpoll.service.ingestion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Writes pending submissions with JDBC batch statements in one transaction.
+//If the database rejects a batch, the rows are appended to a spill file and replayed on the next flush.
+//Replay goes line by line: lines the database can never accept are moved to <spill-file>.rejected,
+//the others stay in the spill file until the database is back.
+@Slf4j
+@Component
+public class VoteBatchWriter {
+    //Rows of participants removed in the meantime (left or session deleted) are skipped
+    private static final String INSERT_VOTE = "INSERT INTO votes (id, session_id, participant_id, question_id, option_id, submitted_at) " +
+            "SELECT nextval('votes_seq'), ?, ?, ?, ?, ? WHERE EXISTS (SELECT 1 FROM participants WHERE id = ?)";
+    private static final String UPDATE_COMPLETION = "UPDATE participants SET submitted_at = ?, completion_time_seconds = ? " +
+            "WHERE id = ? AND submitted_at IS NULL";
+    //Replayed or reordered submissions never overwrite a newer running total
+    private static final String UPDATE_SCORE = "UPDATE participants SET score = ?, correct_count = ?, max_score = ?, score_version = ? " +
+            "WHERE id = ? AND COALESCE(score_version, 0) < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path spillFile;
+    private final Path rejectedFile;
+    private final ReentrantLock spillLock = new ReentrantLock();
+
+    public VoteBatchWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            @Value("${app.votes.spill-file:${user.home}/.xpoll/vote-spill.log}") String spillFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.spillFile = Path.of(spillFile);
+        // A relative path would follow the working directory, and spilled votes would be lost on the next start
+        if (!this.spillFile.isAbsolute())
+            throw new IllegalStateException("app.votes.spill-file must be an absolute path: " + spillFile);
+        this.rejectedFile = this.spillFile.resolveSibling(this.spillFile.getFileName() + ".rejected");
+    }
+
+    //Writes the submissions, spilling them to disk if the database is not available.
+    //Returns false if they were spilled.
+    public boolean write(List<PendingSubmission> submissions) {
+        if (submissions.isEmpty())
+            return true;
+
+        try {
+            insert(submissions);
+            return true;
+        } catch (Exception e) {
+            log.error("Error writing {} vote submissions, spilling to disk: {}", submissions.size(), e.getMessage());
+            spill(submissions);
+            return false;
+        }
+    }
+
+    //Retries the submissions left in the spill file. Returns true once the file is gone.
+    public boolean replaySpill() {
+        spillLock.lock();
+        try {
+            if (!Files.exists(spillFile))
+                return true;
+
+            List<String> lines = Files.readAllLines(spillFile, StandardCharsets.UTF_8);
+            int replayed = 0;
+            int rejected = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.isBlank())
+                    continue;
+
+                try {
+                    insert(List.of(parse(line)));
+                    replayed++;
+                } catch (IllegalArgumentException | IndexOutOfBoundsException | DataIntegrityViolationException e) {
+                    // Malformed, or rows the database refuses: retrying would block every line after it
+                    log.warn("Rejected spilled vote submission '{}': {}", line, e.getMessage());
+                    Files.write(rejectedFile, List.of(line), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                    rejected++;
+                } catch (Exception e) {
+                    // Database still unavailable: keeps this line and the following ones for the next replay
+                    Files.write(spillFile, lines.subList(i, lines.size()), StandardCharsets.UTF_8,
+                            StandardOpenOption.TRUNCATE_EXISTING);
+                    log.warn("Replayed {} spilled vote submissions, {} left for later: {}",
+                            replayed, lines.size() - i, e.getMessage());
+                    return false;
+                }
+            }
+
+            Files.delete(spillFile);
+            log.info("Replayed {} spilled vote submissions, {} rejected", replayed, rejected);
+            return true;
+        } catch (IOException e) {
+            log.error("Error reading the vote spill file {}: {}", spillFile, e.getMessage());
+            return false;
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    //Whether submissions are waiting in the spill file.
+    public boolean hasSpilledVotes() {
+        return Files.exists(spillFile);
+    }
+
+    private void insert(List<PendingSubmission> submissions) {
+        List<Object[]> voteRows = new ArrayList<>();
+        List<Object[]> completionRows = new ArrayList<>();
+        List<Object[]> scoreRows = new ArrayList<>();
+
+        for (PendingSubmission submission : submissions) {
+            Timestamp submittedAt = Timestamp.from(submission.submittedAt());
+
+            for (PendingSubmission.PendingVote vote : submission.votes()) {
+                voteRows.add(new Object[] { submission.sessionId(), submission.participantId(), vote.questionId(),
+                        vote.optionId(), submittedAt, submission.participantId() });
+            }
+            if (submission.completionTimeSeconds() != null) {
+                completionRows.add(new Object[] { submittedAt, submission.completionTimeSeconds(),
+                        submission.participantId() });
+            }
+            // Without a version the total cannot be ordered against newer ones, so old spill lines keep the ledger
+            if (submission.score() != null && submission.scoreVersion() != null) {
+                scoreRows.add(new Object[] { submission.score(), submission.correctCount(), submission.maxScore(),
+                        submission.scoreVersion(), submission.participantId(), submission.scoreVersion() });
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!voteRows.isEmpty()) {
+                logSkippedVotes(voteRows, jdbcTemplate.batchUpdate(INSERT_VOTE, voteRows));
+            }
+            if (!completionRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_COMPLETION, completionRows);
+            }
+            if (!scoreRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SCORE, scoreRows);
+            }
+        });
+    }
+
+    //Votes of participants that no longer exist insert nothing; they are dropped on purpose but not silently.
+    private void logSkippedVotes(List<Object[]> voteRows, int[] counts) {
+        for (int i = 0; i < counts.length && i < voteRows.size(); i++) {
+            if (counts[i] == 0) {
+                Object[] row = voteRows.get(i);
+                log.warn("Dropped vote of removed participant {} (session {}, question {}, option {})",
+                        row[1], row[0], row[2], row[3]);
+            }
+        }
+    }
+
+    //One line per submission:
+    //sessionId;participantId;epochMillis;completionSeconds;questionId:optionId,...;score;correctCount;maxScore;scoreVersion
+    private void spill(List<PendingSubmission> submissions) {
+        List<String> lines = new ArrayList<>();
+        for (PendingSubmission submission : submissions) {
+            lines.add(format(submission));
+        }
+
+        spillLock.lock();
+        try {
+            Files.createDirectories(spillFile.getParent());
+            Files.write(spillFile, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("Error spilling vote submissions, {} submissions lost: {}", submissions.size(), e.getMessage());
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    static String format(PendingSubmission submission) {
+        StringBuilder line = new StringBuilder()
+                .append(submission.sessionId()).append(';')
+                .append(submission.participantId()).append(';')
+                .append(submission.submittedAt().toEpochMilli()).append(';')
+                .append(submission.completionTimeSeconds() != null ? submission.completionTimeSeconds() : "").append(';');
+        for (int i = 0; i < submission.votes().size(); i++) {
+            PendingSubmission.PendingVote vote = submission.votes().get(i);
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(vote.questionId()).append(':').append(vote.optionId());
+        }
+        line.append(';').append(submission.score())
+                .append(';').append(submission.correctCount())
+                .append(';').append(submission.maxScore())
+                .append(';').append(submission.scoreVersion());
+        return line.toString();
+    }
+
+    static PendingSubmission parse(String line) {
+        String[] fields = line.split(";", -1);
+        if (fields.length < 5)
+            throw new IllegalArgumentException("expected at least 5 fields, found " + fields.length);
+
+        List<PendingSubmission.PendingVote> votes = new ArrayList<>();
+        if (!fields[4].isEmpty()) {
+            for (String pair : fields[4].split(",")) {
+                String[] ids = pair.split(":");
+                votes.add(new PendingSubmission.PendingVote(Long.valueOf(ids[0]), Long.valueOf(ids[1])));
+            }
+        }
+        // Lines spilled before the score ledger (or its version) existed have fewer fields
+        boolean hasScore = fields.length > 7 && !"null".equals(fields[5]);
+        boolean hasVersion = fields.length > 8 && !"null".equals(fields[8]);
+        return new PendingSubmission(Long.valueOf(fields[0]), Long.valueOf(fields[1]), votes,
+                Instant.ofEpochMilli(Long.parseLong(fields[2])),
+                fields[3].isEmpty() ? null : Integer.valueOf(fields[3]),
+                hasScore ? Integer.valueOf(fields[5]) : null,
+                hasScore ? Integer.valueOf(fields[6]) : null,
+                hasScore ? Integer.valueOf(fields[7]) : null,
+                hasVersion ? Integer.valueOf(fields[8]) : null);
+    }
+}
@@ -0,0 +1,225 @@
+package it.unical.xpoll.service.ingestion;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+//Write-behind queue for vote submissions (app.votes.ingestion=async).
+//Submissions are acknowledged as soon as they are queued; a single flusher thread writes them
+//in batches of up to batch-size votes, or whatever arrived within flush-interval-ms.
+//When the queue is full the caller writes its own submission (backpressure).
+//Acknowledged submissions live only in memory until written (or spilled after a database failure): a crash
+//or kill of the node loses whatever is still queued, at most queue-capacity submissions. Use sync ingestion
+//where an acknowledged vote must survive the node.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.votes.ingestion", havingValue = "async")
+public class VoteIngestionQueue {
+    //Queued by flush(): everything ahead of it is written before its request completes
+    private static final PendingSubmission FLUSH = new PendingSubmission(null, null, List.of(), null, null,
+            null, null, null, null);
+
+    private final VoteBatchWriter writer;
+    private final BlockingQueue<PendingSubmission> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    //one per FLUSH marker in the queue, in the same order
+    private final Queue<CompletableFuture<Void>> flushRequests = new ConcurrentLinkedQueue<>();
+    //flushes whose marker was reached, completed once nothing is left in the spill file (flusher thread only)
+    private final List<CompletableFuture<Void>> awaitingReplay = new ArrayList<>();
+    //writes done by request threads while the queue was full
+    private final Set<CompletableFuture<Void>> directWrites = ConcurrentHashMap.newKeySet();
+    //session id -> submissions accepted but not written yet; entries are removed when they reach zero
+    private final Map<Long, Integer> pendingBySession = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread flusher;
+
+    public VoteIngestionQueue(VoteBatchWriter writer,
+            @Value("${app.votes.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.votes.batch-size:500}") int batchSize,
+            @Value("${app.votes.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${app.votes.offer-timeout-ms:50}") long offerTimeoutMs) {
+        this.writer = writer;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.replaySpill();
+        running = true;
+        flusher = new Thread(this::run, "vote-ingestion-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    //Writes everything still queued before shutting down.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(5000);
+        }
+
+        List<PendingSubmission> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.removeIf(submission -> submission == FLUSH);
+        boolean written = write(rest) && writer.replaySpill();
+        CompletableFuture<Void> request;
+        while ((request = flushRequests.poll()) != null) {
+            complete(request, written);
+        }
+        awaitingReplay.forEach(pending -> complete(pending, written));
+    }
+
+    public void submit(PendingSubmission submission) {
+        pendingBySession.merge(submission.sessionId(), 1, Integer::sum);
+        try {
+            if (queue.offer(submission, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Queue is full: the request thread pays for its own write.
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        directWrites.add(done);
+        try {
+            write(List.of(submission));
+        } finally {
+            directWrites.remove(done);
+            done.complete(null);
+        }
+    }
+
+    //Whether votes of the session were acknowledged but may not be in the database yet (queued, being
+    //written or spilled), so live state rebuilt from the votes table would miss them.
+    public boolean hasPendingVotes(Long sessionId) {
+        return pendingBySession.containsKey(sessionId) || writer.hasSpilledVotes();
+    }
+
+    //Completes once every submission accepted before the call is in the database (e.g. before summarizing
+    //a closed session). If some were spilled, that is when the spill file has been replayed.
+    //Waits up to timeoutMs for room in a full queue; without it the flush fails at once and can be retried.
+    public CompletableFuture<Void> flush(long timeoutMs) {
+        List<CompletableFuture<Void>> waits = new ArrayList<>(directWrites);
+        CompletableFuture<Void> request = new CompletableFuture<>();
+        // Registered under the lock, so the requests keep the order of their markers
+        synchronized (flushRequests) {
+            flushRequests.add(request);
+            try {
+                if (!queue.offer(FLUSH, timeoutMs, TimeUnit.MILLISECONDS)) {
+                    flushRequests.remove(request);
+                    request.completeExceptionally(new IllegalStateException("Vote queue full, flush not queued"));
+                }
+            } catch (InterruptedException e) {
+                flushRequests.remove(request);
+                Thread.currentThread().interrupt();
+                request.completeExceptionally(e);
+            }
+        }
+        waits.add(request);
+        return CompletableFuture.allOf(waits.toArray(CompletableFuture[]::new));
+    }
+
+    private void run() {
+        List<PendingSubmission> batch = new ArrayList<>();
+
+        while (running) {
+            try {
+                PendingSubmission first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    // Idle: retries submissions spilled after a database failure
+                    replaySpill();
+                    continue;
+                }
+
+                boolean flushRequested = first == FLUSH;
+                if (!flushRequested) {
+                    batch.add(first);
+                    int votes = first.votes().size();
+                    long deadline = System.currentTimeMillis() + flushIntervalMs;
+
+                    // Collects until the batch is full, the flush interval elapsed or a flush is requested
+                    while (votes < batchSize) {
+                        long remaining = deadline - System.currentTimeMillis();
+                        PendingSubmission next = remaining > 0 ? queue.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        if (next == FLUSH) {
+                            flushRequested = true;
+                            break;
+                        }
+                        batch.add(next);
+                        votes += next.votes().size();
+                    }
+                }
+
+                write(batch);
+                batch = new ArrayList<>();
+                if (flushRequested) {
+                    CompletableFuture<Void> request = flushRequests.poll();
+                    if (request != null) {
+                        awaitingReplay.add(request);
+                    }
+                }
+                if (!awaitingReplay.isEmpty()) {
+                    replaySpill();
+                }
+            } catch (InterruptedException e) {
+                write(batch);
+                return;
+            } catch (Exception e) {
+                log.error("Vote ingestion flusher error: {}", e.getMessage());
+            }
+        }
+        write(batch);
+    }
+
+    //Written or spilled, the submissions are no longer pending in the queue (the spill file is checked apart).
+    private boolean write(List<PendingSubmission> submissions) {
+        try {
+            return writer.write(submissions);
+        } finally {
+            for (PendingSubmission submission : submissions) {
+                pendingBySession.computeIfPresent(submission.sessionId(), (id, pending) -> pending > 1 ? pending - 1 : null);
+            }
+        }
+    }
+
+    //Flushes waiting for spilled submissions complete once the spill file is gone.
+    private void replaySpill() {
+        if (writer.replaySpill() && !awaitingReplay.isEmpty()) {
+            awaitingReplay.forEach(request -> request.complete(null));
+            awaitingReplay.clear();
+        }
+    }
+
+    private static void complete(CompletableFuture<Void> request, boolean written) {
+        if (written) {
+            request.complete(null);
+        } else {
+            request.completeExceptionally(new IllegalStateException("Votes still in the spill file at shutdown"));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package it.unical.xpoll.service.live;
+
+import it.unical.xpoll.domain.Participant;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+//Ranking of a session kept sorted as scores change: score descending, then completion time ascending
+//(participants still answering last), then participant id for a stable order.
+//Updates are serialized, reads walk the sorted set without locking so the top N costs O(N).
+//Each entry remembers the score version it came from (questions answered, as in the score ledger), so an update
+//computed from an older score, e.g. by a submission that lost the race to the next one, is ignored.
+public class Leaderboard {
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt(Entry::score).reversed()
+            .thenComparing(Entry::completionTimeSeconds, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Entry::participantId);
+
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    //participantId -> score version of its entry
+    private final Map<Long, Integer> scoreVersions = new ConcurrentHashMap<>();
+
+    //Builds the ranking from the participants' score ledger (the presenter is not ranked).
+    public static Leaderboard from(List<Participant> participants) {
+        Leaderboard leaderboard = new Leaderboard();
+        for (Participant participant : participants) {
+            if (!"Presenter".equals(participant.getName())) {
+                leaderboard.update(participant.getId(), participant.getName(),
+                        participant.getScore() != null ? participant.getScore() : 0,
+                        participant.getCorrectCount() != null ? participant.getCorrectCount() : 0,
+                        participant.getCompletionTimeSeconds(),
+                        participant.getScoreVersion() != null ? participant.getScoreVersion() : 0);
+            }
+        }
+        return leaderboard;
+    }
+
+    //Adds a participant that has not answered yet (score version 0).
+    public void update(Long participantId, String name, int score, int correctCount, Integer completionTimeSeconds) {
+        update(participantId, name, score, correctCount, completionTimeSeconds, 0);
+    }
+
+    //Adds a participant or moves them to their new position, unless their entry already has a newer score.
+    //Returns whether the entry was written.
+    public synchronized boolean update(Long participantId, String name, int score, int correctCount,
+            Integer completionTimeSeconds, int scoreVersion) {
+        Integer current = scoreVersions.get(participantId);
+        if (current != null && current > scoreVersion)
+            return false;
+
+        Entry entry = new Entry(participantId, name, score, correctCount, completionTimeSeconds);
+        Entry previous = entries.put(participantId, entry);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        ranking.add(entry);
+        scoreVersions.put(participantId, scoreVersion);
+        return true;
+    }
+
+    public synchronized void remove(Long participantId) {
+        scoreVersions.remove(participantId);
+        Entry previous = entries.remove(participantId);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+
+    public List<Entry> top(int limit) {
+        List<Entry> top = new ArrayList<>(Math.min(limit, ranking.size()));
+        Iterator<Entry> iterator = ranking.iterator();
+        while (iterator.hasNext() && top.size() < limit) {
+            top.add(iterator.next());
+        }
+        return top;
+    }
+
+    //Whether the participant is ranked within the first limit positions.
+    public boolean isInTop(Long participantId, int limit) {
+        Iterator<Entry> iterator = ranking.iterator();
+        for (int i = 0; i < limit && iterator.hasNext(); i++) {
+            if (iterator.next().participantId().equals(participantId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public record Entry(Long participantId, String name, int score, int correctCount, Integer completionTimeSeconds) {
+    }
+}
@@ -0,0 +1,274 @@
+package it.unical.xpoll.service.live;
+
+import it.unical.xpoll.domain.Participant;
+import it.unical.xpoll.domain.Session;
+import it.unical.xpoll.domain.SessionState;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//In-memory state attached to a WAITING/OPEN session.
+//Keeps primitive vote counters per option so results are answered without reloading every vote,
+//and what each participant already answered so submissions can be validated without the database.
+//Also mirrors the lightweight session state (state, creator, timer, participants by name) so hot endpoints
+//resolve the session without loading it.
+public class LiveSession {
+    private final Long sessionId;
+    private final String code;
+    private final String creatorId;
+    private volatile SessionState state;
+    private volatile Instant timerStartedAt;
+    //lower-cased name -> participant, names are unique per session regardless of case
+    private final Map<String, ParticipantRef> participantsByName = new ConcurrentHashMap<>();
+    //last time the session was resolved, used by the registry to drop idle sessions
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+    private final PollSnapshot snapshot;
+    //questionId -> vote counters indexed by option position (Option.orderIndex)
+    private final Map<Long, long[]> tallies = new HashMap<>();
+    //participants that submitted at least one vote
+    private final Map<Long, ParticipantState> participants = new HashMap<>();
+    //increased on every accepted submission, lets clients discard stale deltas
+    private long version;
+    private final Leaderboard leaderboard;
+
+    LiveSession(Session session, PollSnapshot snapshot, Leaderboard leaderboard) {
+        this.sessionId = session.getId();
+        this.code = session.getCode();
+        this.creatorId = session.getCreatorId();
+        this.state = session.getState();
+        this.timerStartedAt = session.getTimerStartedAt();
+        this.snapshot = snapshot;
+        this.leaderboard = leaderboard;
+
+        for (Participant participant : session.getParticipants()) {
+            putParticipant(new ParticipantRef(participant.getId(), participant.getName(),
+                    participant.getCompletionTimeSeconds()));
+        }
+
+        for (PollSnapshot.QuestionSnapshot question : snapshot.getQuestions()) {
+            tallies.put(question.getId(), new long[question.getOptionCount()]);
+        }
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getCreatorId() {
+        return creatorId;
+    }
+
+    public SessionState getState() {
+        return state;
+    }
+
+    public Instant getTimerStartedAt() {
+        return timerStartedAt;
+    }
+
+    //Mirrors launchPoll: the session is open and its timer is running.
+    public void start(Instant timerStartedAt) {
+        this.timerStartedAt = timerStartedAt;
+        this.state = SessionState.OPEN;
+    }
+
+    public Optional<ParticipantRef> findParticipant(String name) {
+        return Optional.ofNullable(participantsByName.get(name.toLowerCase()));
+    }
+
+    public void putParticipant(ParticipantRef participant) {
+        participantsByName.put(participant.name().toLowerCase(), participant);
+    }
+
+    public void removeParticipant(String name) {
+        participantsByName.remove(name.toLowerCase());
+    }
+
+    void touch() {
+        lastAccessMillis = System.currentTimeMillis();
+    }
+
+    long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    public PollSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    //Adds the votes of one submission (questionIds and optionIndexes are aligned).
+    //Unknown options and questions the participant already answered are skipped.
+    //Returns the new version with the accepted votes, the updated counters of the touched questions
+    //and the participant's running score, versioned by the number of questions it accounts for.
+    public synchronized Delta record(Long participantId, List<Long> questionIds, List<Integer> optionIndexes) {
+        ParticipantState existing = participants.get(participantId);
+        boolean firstSubmission = existing == null;
+        ParticipantState participant = firstSubmission ? new ParticipantState() : existing;
+
+        List<AcceptedVote> accepted = new ArrayList<>();
+        List<Long> acceptedQuestionIds = new ArrayList<>();
+        List<Long> acceptedOptionIds = new ArrayList<>();
+        Map<Long, long[]> changed = new HashMap<>();
+
+        for (int i = 0; i < questionIds.size(); i++) {
+            Long questionId = questionIds.get(i);
+            PollSnapshot.QuestionSnapshot question = snapshot.getQuestion(questionId);
+            int optionIndex = optionIndexes.get(i);
+
+            if (question == null || optionIndex < 0 || optionIndex >= question.getOptionCount()
+                    || participant.answered.contains(questionId))
+                continue;
+
+            long[] counters = tallies.get(questionId);
+            counters[optionIndex]++;
+            accepted.add(new AcceptedVote(questionId, question.getOptionId(optionIndex)));
+            acceptedQuestionIds.add(questionId);
+            acceptedOptionIds.add(question.getOptionId(optionIndex));
+            changed.put(questionId, counters);
+        }
+
+        if (accepted.isEmpty()) {
+            return new Delta(version, Map.of(), List.of(), participant.score, participant.correctCount,
+                    participant.answered.size(), false);
+        }
+
+        // A question is answered in a single submission, so its correctness can be decided here
+        ScoringEngine.Score gained = ScoringEngine.score(snapshot, acceptedQuestionIds, acceptedOptionIds);
+        participant.answered.addAll(acceptedQuestionIds);
+        participant.score += gained.score();
+        participant.correctCount += gained.correctCount();
+        participants.put(participantId, participant);
+        version++;
+
+        changed.replaceAll((questionId, counters) -> counters.clone());
+        return new Delta(version, changed, accepted, participant.score, participant.correctCount,
+                participant.answered.size(), firstSubmission);
+    }
+
+    //Adds a submission accepted by another node, with the same checks as record: questions the participant
+    //already answered here (e.g. votes already loaded from the database) are skipped, so applying it twice is harmless.
+    //The gained score is added to the local ledger and the participant's leaderboard entry is moved.
+    //The version becomes at least the sender's, so the deltas broadcast afterwards are not discarded as stale.
+    public synchronized boolean applyRemote(RemoteSubmission submission) {
+        ParticipantState participant = participants.get(submission.participantId());
+        List<Long> acceptedQuestionIds = new ArrayList<>();
+        List<Long> acceptedOptionIds = new ArrayList<>();
+
+        for (AcceptedVote vote : submission.votes()) {
+            PollSnapshot.QuestionSnapshot question = snapshot.getQuestion(vote.questionId());
+            int optionIndex = question != null ? question.indexOf(vote.optionId()) : -1;
+
+            if (optionIndex < 0 || (participant != null && participant.answered.contains(vote.questionId())))
+                continue;
+
+            tallies.get(vote.questionId())[optionIndex]++;
+            acceptedQuestionIds.add(vote.questionId());
+            acceptedOptionIds.add(vote.optionId());
+        }
+
+        if (acceptedQuestionIds.isEmpty())
+            return false;
+
+        if (participant == null) {
+            participant = new ParticipantState();
+            participants.put(submission.participantId(), participant);
+        }
+        ScoringEngine.Score gained = ScoringEngine.score(snapshot, acceptedQuestionIds, acceptedOptionIds);
+        participant.answered.addAll(acceptedQuestionIds);
+        participant.score += gained.score();
+        participant.correctCount += gained.correctCount();
+        version = Math.max(version + 1, submission.version());
+
+        Integer completionTimeSeconds = findParticipant(submission.name())
+                .map(ParticipantRef::completionTimeSeconds)
+                .filter(Objects::nonNull)
+                .orElse(submission.completionTimeSeconds());
+        putParticipant(new ParticipantRef(submission.participantId(), submission.name(), completionTimeSeconds));
+        leaderboard.update(submission.participantId(), submission.name(), participant.score,
+                participant.correctCount, completionTimeSeconds, participant.answered.size());
+        return true;
+    }
+
+    //Adds already persisted votes while rebuilding from the votes table.
+    synchronized void restoreVotes(Long questionId, Long optionId, long votes) {
+        PollSnapshot.QuestionSnapshot question = snapshot.getQuestion(questionId);
+        if (question == null)
+            return;
+
+        int optionIndex = question.indexOf(optionId);
+        if (optionIndex >= 0) {
+            tallies.get(questionId)[optionIndex] += votes;
+        }
+    }
+
+    synchronized void restoreAnswer(Long participantId, Long questionId) {
+        participants.computeIfAbsent(participantId, id -> new ParticipantState()).answered.add(questionId);
+    }
+
+    //Restores a participant's ledger, only for participants that already answered.
+    synchronized void restoreScore(Long participantId, int score, int correctCount) {
+        ParticipantState participant = participants.get(participantId);
+        if (participant == null)
+            return;
+        participant.score = score;
+        participant.correctCount = correctCount;
+    }
+
+    //Returns a copy of the counters of a question (empty if the question is unknown).
+    public synchronized long[] getTally(Long questionId) {
+        long[] counters = tallies.get(questionId);
+        return counters != null ? counters.clone() : new long[0];
+    }
+
+    //Running score of a participant, null if they did not answer yet.
+    public synchronized ScoringEngine.Score getScore(Long participantId) {
+        ParticipantState participant = participants.get(participantId);
+        return participant != null ? new ScoringEngine.Score(participant.score, participant.correctCount) : null;
+    }
+
+    public synchronized long getVoterCount() {
+        return participants.size();
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public record Delta(long version, Map<Long, long[]> tallies, List<AcceptedVote> accepted,
+            int score, int correctCount, int scoreVersion, boolean firstSubmission) {
+    }
+
+    public record AcceptedVote(Long questionId, Long optionId) {
+    }
+
+    //Votes another node accepted for a participant, with the version of its delta.
+    public record RemoteSubmission(Long participantId, String name, Integer completionTimeSeconds,
+            List<AcceptedVote> votes, long version) {
+    }
+
+    //completionTimeSeconds is null until the participant's first accepted submission.
+    public record ParticipantRef(Long id, String name, Integer completionTimeSeconds) {
+    }
+
+    private static final class ParticipantState {
+        private final Set<Long> answered = new HashSet<>();
+        private int score;
+        private int correctCount;
+    }
+}
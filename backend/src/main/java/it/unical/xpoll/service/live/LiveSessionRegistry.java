@@ -0,0 +1,178 @@
+package it.unical.xpoll.service.live;
+
+import it.unical.xpoll.domain.Participant;
+import it.unical.xpoll.domain.Session;
+import it.unical.xpoll.repository.VoteRepository;
+import it.unical.xpoll.service.ingestion.VoteIngestionQueue;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+//Holds the live state of every WAITING/OPEN session on this node, keyed by session code.
+//State is rebuilt from the votes table when missing (e.g. after a restart or an eviction).
+//Bounded: sessions idle for longer than the TTL are dropped, and past max-size the least recently used go first.
+//Sessions with acknowledged votes still on their way to the database (async ingestion) are never dropped,
+//a rebuild would miss those votes and accept them a second time.
+//Submissions accepted by other nodes (see LiveSessionSync) are kept for a while when the session is not attached
+//here, since the other node may not have written them yet, and replayed when it gets loaded.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiveSessionRegistry {
+    private static final long REMOTE_RETENTION_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final int REMOTE_MAX_PER_SESSION = 10_000;
+
+    private final VoteRepository voteRepository;
+    private final ObjectProvider<VoteIngestionQueue> voteIngestionQueue;
+    private final Map<String, LiveSession> sessions = new ConcurrentHashMap<>();
+    //session code -> submissions of other nodes received while the session was not attached
+    private final Map<String, Deque<Remote>> remoteSubmissions = new ConcurrentHashMap<>();
+
+    @Value("${app.sessions.registry.max-size:1000}")
+    private int maxSize;
+
+    @Value("${app.sessions.registry.ttl-minutes:180}")
+    private long ttlMinutes;
+
+    //Gets the attached live state, loading it from the database the first time.
+    //The poll snapshot is built here once (at launch at the latest) and dropped with the live state.
+    public LiveSession getOrLoad(Session session) {
+        boolean[] loaded = { false };
+        LiveSession live = sessions.computeIfAbsent(session.getCode(), code -> {
+            loaded[0] = true;
+            return load(session);
+        });
+        if (loaded[0]) {
+            // Remote submissions received while loading were buffered, now they find the session attached
+            replayRemote(live);
+        }
+        live.touch();
+        if (sessions.size() > maxSize) {
+            evictOverflow();
+        }
+        return live;
+    }
+
+    //Gets the attached live state without touching the database (empty if not attached or expired).
+    public Optional<LiveSession> find(String code) {
+        String key = code.toUpperCase();
+        LiveSession live = sessions.get(key);
+        if (live == null)
+            return Optional.empty();
+
+        if (isExpired(live, System.currentTimeMillis()) && !hasPendingVotes(live)) {
+            sessions.remove(key, live);
+            return Optional.empty();
+        }
+        live.touch();
+        return Optional.of(live);
+    }
+
+    //Detaches the live state (session closed or deleted, or counters ahead of the database).
+    public void evict(String code) {
+        sessions.remove(code.toUpperCase());
+    }
+
+    //Applies a submission accepted by another node, or keeps it until the session is loaded here.
+    //Called from the cluster channel's receiving thread only.
+    public void applyRemote(String code, LiveSession.RemoteSubmission submission) {
+        String key = code.toUpperCase();
+        LiveSession live = sessions.get(key);
+        if (live != null) {
+            live.applyRemote(submission);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        // Buffers are in arrival order, so the expired entries are at their head
+        remoteSubmissions.values().forEach(buffered -> {
+            while (!buffered.isEmpty() && buffered.peekFirst().isOlderThan(now)) {
+                buffered.pollFirst();
+            }
+        });
+        remoteSubmissions.values().removeIf(Deque::isEmpty);
+        Deque<Remote> buffered = remoteSubmissions.computeIfAbsent(key,
+                k -> new LinkedBlockingDeque<>(REMOTE_MAX_PER_SESSION));
+        while (!buffered.offerLast(new Remote(submission, now))) {
+            buffered.pollFirst();
+        }
+    }
+
+    private void replayRemote(LiveSession live) {
+        Deque<Remote> buffered = remoteSubmissions.get(live.getCode().toUpperCase());
+        if (buffered != null) {
+            long now = System.currentTimeMillis();
+            buffered.stream()
+                    .filter(remote -> !remote.isOlderThan(now))
+                    .forEach(remote -> live.applyRemote(remote.submission()));
+        }
+    }
+
+    private boolean isExpired(LiveSession live, long now) {
+        return now - live.getLastAccessMillis() > TimeUnit.MINUTES.toMillis(ttlMinutes);
+    }
+
+    private boolean hasPendingVotes(LiveSession live) {
+        VoteIngestionQueue ingestionQueue = voteIngestionQueue.getIfAvailable();
+        return ingestionQueue != null && ingestionQueue.hasPendingVotes(live.getSessionId());
+    }
+
+    //Drops expired sessions, then the least recently used ones until the registry fits again.
+    //Sessions with pending votes stay, even if the registry remains over max-size until they are written.
+    private synchronized void evictOverflow() {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(live -> isExpired(live, now) && !hasPendingVotes(live));
+
+        while (sessions.size() > maxSize) {
+            Optional<LiveSession> leastRecent = sessions.values().stream()
+                    .filter(live -> !hasPendingVotes(live))
+                    .min(Comparator.comparingLong(LiveSession::getLastAccessMillis));
+            if (leastRecent.isEmpty()) {
+                log.warn("Live session registry over {} sessions, all with votes being written", maxSize);
+                return;
+            }
+            sessions.remove(leastRecent.get().getCode().toUpperCase(), leastRecent.get());
+            log.info("Live session registry full, evicted {}", leastRecent.get().getCode());
+        }
+    }
+
+    //Builds a live state from the persisted votes without attaching it.
+    public LiveSession load(Session session) {
+        LiveSession live = new LiveSession(session, PollSnapshot.of(session.getPoll()),
+                Leaderboard.from(session.getParticipants()));
+
+        for (VoteRepository.OptionVoteCount count : voteRepository.countVotesByOption(session.getId())) {
+            live.restoreVotes(count.getQuestionId(), count.getOptionId(), count.getVotes());
+        }
+
+        for (VoteRepository.AnsweredQuestion answer : voteRepository.findAnsweredQuestionsBySessionId(session.getId())) {
+            live.restoreAnswer(answer.getParticipantId(), answer.getQuestionId());
+        }
+
+        // Scores come from the participants' ledger, no need to score the votes again
+        for (Participant participant : session.getParticipants()) {
+            if (participant.getScore() != null) {
+                live.restoreScore(participant.getId(), participant.getScore(),
+                        participant.getCorrectCount() != null ? participant.getCorrectCount() : 0);
+            }
+        }
+        replayRemote(live);
+        return live;
+    }
+
+    private record Remote(LiveSession.RemoteSubmission submission, long receivedAt) {
+        boolean isOlderThan(long now) {
+            return now - receivedAt > REMOTE_RETENTION_MS;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package it.unical.xpoll.service.live;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unical.xpoll.service.broadcast.ClusterChannel;
+import it.unical.xpoll.service.timer.SessionTimerService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Keeps the live state of a session in step across nodes (app.websocket.broker=postgres or relay).
+//Launches, joins, leaves, closes and accepted votes are published on the cluster channel once their transaction
+//commits, and applied by the other nodes to their attached copy of the session. A node without a copy has nothing
+//to update: it loads the session from the database, which already has the change.
+//Delivery is best effort, so SessionService still checks the database when its copy misses a participant
+//or has not seen the launch.
+//Every node also arms the deadline of a launched session and drops it on close, as SessionAutoClose does on
+//startup; whichever node fires first closes the session, the others find it closed.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiveSessionSync {
+    private final LiveSessionRegistry liveSessionRegistry;
+    private final SessionTimerService sessionTimerService;
+    private final ObjectProvider<ClusterChannel> clusterChannel;
+    private final ObjectMapper objectMapper;
+
+    @PostConstruct
+    public void start() {
+        ClusterChannel channel = clusterChannel.getIfAvailable();
+        if (channel != null) {
+            channel.subscribe(this::onClusterEvent);
+        }
+    }
+
+    //deadline is null when the poll has no time limit
+    public void launched(String code, Instant timerStartedAt, Instant deadline) {
+        Map<String, Object> event = event("LAUNCHED", code);
+        event.put("timerStartedAt", timerStartedAt.toEpochMilli());
+        event.put("deadline", deadline != null ? deadline.toEpochMilli() : null);
+        publish(event);
+    }
+
+    public void joined(String code, Long participantId, String name) {
+        Map<String, Object> event = event("JOINED", code);
+        event.put("participantId", participantId);
+        event.put("name", name);
+        publish(event);
+    }
+
+    public void left(String code, Long participantId, String name) {
+        Map<String, Object> event = event("LEFT", code);
+        event.put("participantId", participantId);
+        event.put("name", name);
+        publish(event);
+    }
+
+    //Closed or deleted: the other nodes drop their copy.
+    public void closed(String code) {
+        publish(event("CLOSED", code));
+    }
+
+    public void voted(String code, LiveSession.ParticipantRef participant, Integer completionTimeSeconds,
+            LiveSession.Delta delta) {
+        Map<String, Object> event = event("VOTED", code);
+        event.put("participantId", participant.id());
+        event.put("name", participant.name());
+        event.put("completionTimeSeconds", completionTimeSeconds);
+        event.put("votes", delta.accepted().stream().map(vote -> List.of(vote.questionId(), vote.optionId())).toList());
+        event.put("version", delta.version());
+        publish(event);
+    }
+
+    void onClusterEvent(String json) {
+        Map<String, Object> event;
+        try {
+            event = objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (JsonProcessingException e) {
+            log.warn("Malformed cluster event: {}", e.getMessage());
+            return;
+        }
+        if (!(event.get("type") instanceof String type) || !(event.get("code") instanceof String code))
+            return;
+
+        switch (type) {
+            case "LAUNCHED" -> {
+                liveSessionRegistry.find(code).ifPresent(live ->
+                        live.start(Instant.ofEpochMilli(toLong(event.get("timerStartedAt")))));
+                if (event.get("deadline") != null) {
+                    sessionTimerService.schedule(code, Instant.ofEpochMilli(toLong(event.get("deadline"))));
+                }
+            }
+            case "JOINED" -> liveSessionRegistry.find(code).ifPresent(live -> {
+                String name = (String) event.get("name");
+                // Votes of the participant may have arrived first
+                if (live.findParticipant(name).isEmpty()) {
+                    Long participantId = toLong(event.get("participantId"));
+                    live.putParticipant(new LiveSession.ParticipantRef(participantId, name, null));
+                    live.getLeaderboard().update(participantId, name, 0, 0, null);
+                }
+            });
+            case "LEFT" -> liveSessionRegistry.find(code).ifPresent(live -> {
+                live.removeParticipant((String) event.get("name"));
+                live.getLeaderboard().remove(toLong(event.get("participantId")));
+            });
+            case "CLOSED" -> {
+                liveSessionRegistry.evict(code);
+                sessionTimerService.cancel(code);
+            }
+            case "VOTED" -> liveSessionRegistry.applyRemote(code, new LiveSession.RemoteSubmission(
+                    toLong(event.get("participantId")), (String) event.get("name"),
+                    event.get("completionTimeSeconds") != null ? ((Number) event.get("completionTimeSeconds")).intValue() : null,
+                    ((List<?>) event.get("votes")).stream()
+                            .map(vote -> (List<?>) vote)
+                            .map(vote -> new LiveSession.AcceptedVote(toLong(vote.get(0)), toLong(vote.get(1))))
+                            .toList(),
+                    toLong(event.get("version"))));
+            default -> {
+                // Events of other components (e.g. presence)
+            }
+        }
+    }
+
+    private static Map<String, Object> event(String type, String code) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", type);
+        event.put("code", code.toUpperCase());
+        return event;
+    }
+
+    //Other nodes read the database when they load the session, so the event waits for the commit.
+    private void publish(Map<String, Object> event) {
+        ClusterChannel channel = clusterChannel.getIfAvailable();
+        if (channel == null)
+            return;
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.error("Error publishing {} of {}: {}", event.get("type"), event.get("code"), e.getMessage());
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    channel.publishEvent(json);
+                }
+            });
+        } else {
+            channel.publishEvent(json);
+        }
+    }
+
+    private static Long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,198 @@
+package it.unical.xpoll.service.live;
+
+import it.unical.xpoll.domain.Option;
+import it.unical.xpoll.domain.Poll;
+import it.unical.xpoll.domain.Question;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Immutable, compact copy of a poll's structure.
+//A poll cannot change once a session is started, so scoring and validation run against this copy
+//instead of reloading the Poll -> Questions -> Options graph.
+public final class PollSnapshot {
+    private final Long pollId;
+    private final String title;
+    private final String description;
+    private final Integer timeLimit;
+    private final Boolean hasScore;
+    private final Boolean isAnonymous;
+    private final List<QuestionSnapshot> questions;
+    private final Map<Long, QuestionSnapshot> questionsById;
+    private final int maxScore;
+
+    private PollSnapshot(Poll poll) {
+        this.pollId = poll.getId();
+        this.title = poll.getTitle();
+        this.description = poll.getDescription();
+        this.timeLimit = poll.getTimeLimit();
+        this.hasScore = poll.getHasScore();
+        this.isAnonymous = poll.getIsAnonymous();
+
+        List<QuestionSnapshot> questionList = new ArrayList<>();
+        Map<Long, QuestionSnapshot> byId = new HashMap<>();
+        int max = 0;
+        for (Question question : poll.getQuestions()) {
+            QuestionSnapshot snapshot = new QuestionSnapshot(question);
+            questionList.add(snapshot);
+            byId.put(snapshot.getId(), snapshot);
+            max += snapshot.getMaxPoints();
+        }
+        this.maxScore = max;
+        this.questions = Collections.unmodifiableList(questionList);
+        this.questionsById = Collections.unmodifiableMap(byId);
+    }
+
+    public static PollSnapshot of(Poll poll) {
+        return new PollSnapshot(poll);
+    }
+
+    public Long getPollId() {
+        return pollId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Integer getTimeLimit() {
+        return timeLimit;
+    }
+
+    public Boolean getHasScore() {
+        return hasScore;
+    }
+
+    public Boolean getIsAnonymous() {
+        return isAnonymous;
+    }
+
+    public List<QuestionSnapshot> getQuestions() {
+        return questions;
+    }
+
+    //Best score a participant can reach in this poll.
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    //Returns null if the question does not belong to this poll.
+    public QuestionSnapshot getQuestion(Long questionId) {
+        return questionsById.get(questionId);
+    }
+
+    public static final class QuestionSnapshot {
+        private final Long id;
+        private final String text;
+        private final Integer orderIndex;
+        private final Question.QuestionType type;
+        private final Boolean isAIGenerated;
+        private final List<OptionSnapshot> options;
+        private final long[] optionIds;
+        //score of each option, see ScoringEngine
+        private final int[] points;
+        private final int maxPoints;
+        //options a participant must pick (and nothing else) to answer correctly
+        private final List<Integer> correctIndices;
+
+        private QuestionSnapshot(Question question) {
+            this.id = question.getId();
+            this.text = question.getText();
+            this.orderIndex = question.getOrderIndex();
+            this.type = question.getType();
+            this.isAIGenerated = question.getIsAIGenerated();
+
+            int size = question.getOptions().size();
+            List<OptionSnapshot> optionList = new ArrayList<>(size);
+            List<Integer> correctList = new ArrayList<>();
+            optionIds = new long[size];
+            points = new int[size];
+
+            for (int i = 0; i < size; i++) {
+                Option option = question.getOptions().get(i);
+                boolean isCorrect = option.getIsCorrect() != null && option.getIsCorrect();
+
+                optionList.add(new OptionSnapshot(option.getId(), option.getText(), option.getValue(), isCorrect,
+                        option.getIsAIGenerated()));
+                optionIds[i] = option.getId();
+                points[i] = ScoringEngine.points(option.getValue(), isCorrect);
+
+                if (ScoringEngine.isCorrectOption(option.getValue(), isCorrect)) {
+                    correctList.add(i);
+                }
+            }
+            this.maxPoints = ScoringEngine.maxPoints(type, points);
+            this.options = Collections.unmodifiableList(optionList);
+            this.correctIndices = Collections.unmodifiableList(correctList);
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public Integer getOrderIndex() {
+            return orderIndex;
+        }
+
+        public Question.QuestionType getType() {
+            return type;
+        }
+
+        public Boolean getIsAIGenerated() {
+            return isAIGenerated;
+        }
+
+        public List<OptionSnapshot> getOptions() {
+            return options;
+        }
+
+        public int getOptionCount() {
+            return optionIds.length;
+        }
+
+        public long getOptionId(int index) {
+            return optionIds[index];
+        }
+
+        //Position of an option inside the question, -1 if it belongs to another question.
+        public int indexOf(Long optionId) {
+            for (int i = 0; i < optionIds.length; i++) {
+                if (optionIds[i] == optionId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public int getPoints(int index) {
+            return points[index];
+        }
+
+        public int getMaxPoints() {
+            return maxPoints;
+        }
+
+        public boolean isCorrectAnswer(Collection<Integer> selectedIndices) {
+            return ScoringEngine.isCorrectAnswer(selectedIndices, correctIndices);
+        }
+
+        public List<Integer> getCorrectIndices() {
+            return correctIndices;
+        }
+    }
+
+    public record OptionSnapshot(Long id, String text, Integer value, boolean isCorrect, Boolean isAIGenerated) {
+    }
+}
@@ -0,0 +1,80 @@
+package it.unical.xpoll.service.live;
+
+import it.unical.xpoll.domain.Question;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//Scoring rules shared by the live ranking, personal results, participation history and the score ledger.
+//- an option with a non-zero value is worth that value (negative values are penalties),
+//  otherwise an option marked correct is worth 1 point
+//- the correct options of a question are the ones marked correct or with a positive value,
+//  a question is answered correctly when exactly those options are selected
+//- the best score of a question is the sum of its positive points for multiple choice, the highest one otherwise
+public final class ScoringEngine {
+
+    private ScoringEngine() {
+    }
+
+    public static int points(Integer value, boolean isCorrect) {
+        if (value != null && value != 0) {
+            return value;
+        }
+        return isCorrect ? 1 : 0;
+    }
+
+    public static boolean isCorrectOption(Integer value, boolean isCorrect) {
+        return isCorrect || (value != null && value > 0);
+    }
+
+    public static boolean isCorrectAnswer(Collection<Integer> selectedIndices, List<Integer> correctIndices) {
+        if (selectedIndices.isEmpty() || correctIndices.isEmpty()) {
+            return false;
+        }
+        Set<Integer> selected = new HashSet<>(selectedIndices);
+        return selected.size() == correctIndices.size() && selected.containsAll(correctIndices);
+    }
+
+    public static int maxPoints(Question.QuestionType type, int[] points) {
+        int max = 0;
+        for (int value : points) {
+            if (value > 0) {
+                max = type == Question.QuestionType.MULTIPLE_CHOICE ? max + value : Math.max(max, value);
+            }
+        }
+        return max;
+    }
+
+    //Scores the selections of one participant (questionIds and optionIds are aligned).
+    //Selections outside the poll are ignored.
+    public static Score score(PollSnapshot snapshot, List<Long> questionIds, List<Long> optionIds) {
+        Map<PollSnapshot.QuestionSnapshot, Set<Integer>> selected = new LinkedHashMap<>();
+        for (int i = 0; i < questionIds.size(); i++) {
+            PollSnapshot.QuestionSnapshot question = snapshot.getQuestion(questionIds.get(i));
+            int optionIndex = question != null ? question.indexOf(optionIds.get(i)) : -1;
+            if (optionIndex >= 0) {
+                selected.computeIfAbsent(question, q -> new HashSet<>()).add(optionIndex);
+            }
+        }
+
+        int total = 0;
+        int correctCount = 0;
+        for (Map.Entry<PollSnapshot.QuestionSnapshot, Set<Integer>> entry : selected.entrySet()) {
+            PollSnapshot.QuestionSnapshot question = entry.getKey();
+            for (int optionIndex : entry.getValue()) {
+                total += question.getPoints(optionIndex);
+            }
+            if (question.isCorrectAnswer(entry.getValue())) {
+                correctCount++;
+            }
+        }
+        return new Score(total, correctCount);
+    }
+
+    public record Score(int score, int correctCount) {
+    }
+}
@@ -0,0 +1,310 @@
+package it.unical.xpoll.service.presence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unical.xpoll.repository.ParticipantRepository;
+import it.unical.xpoll.service.broadcast.ClusterChannel;
+import it.unical.xpoll.service.broadcast.SessionBroadcaster;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+//Participant presence driven by STOMP events: a participant is connected while at least one websocket
+//carrying their token (participantToken connect header) is open. Dead tabs are dropped by the broker
+//heartbeats, which end in a disconnect event.
+//Changes are coalesced per token and written to Participant.isConnected in batches; presenters get one
+//PRESENCE_CHANGED message per changed session and flush.
+//With several nodes, each publishes the participants connected to it on the cluster channel (on change, and
+//every PRESENCE_REFRESH_MS) and counts the union; a node not heard from for PRESENCE_EXPIRY_MS is dropped.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PresenceTracker {
+    static final String TOKEN_HEADER = "participantToken";
+    static final String CODE_HEADER = "sessionCode";
+    private static final String TOPIC_PREFIX = "/topic/session/";
+    private static final int BATCH_SIZE = 500;
+    private static final long PRESENCE_REFRESH_MS = 30_000;
+    private static final long PRESENCE_EXPIRY_MS = 90_000;
+
+    private final ParticipantRepository participantRepository;
+    private final SessionBroadcaster sessionBroadcaster;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ClusterChannel> clusterChannel;
+    private final ObjectMapper objectMapper;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    //STOMP session id -> participant it belongs to
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+    //session code -> participant token -> presence
+    private final Map<String, Map<String, Presence>> sessions = new ConcurrentHashMap<>();
+    //last unflushed state per token
+    private final Map<String, Boolean> dirty = new ConcurrentHashMap<>();
+    private final Set<String> changedCodes = ConcurrentHashMap.newKeySet();
+    //session code -> other node -> participants connected there
+    private final Map<String, Map<String, RemotePresence>> remote = new ConcurrentHashMap<>();
+    private volatile long lastRefreshMillis = System.currentTimeMillis();
+
+    @PostConstruct
+    public void start() {
+        ClusterChannel channel = clusterChannel.getIfAvailable();
+        if (channel != null) {
+            channel.subscribe(this::onClusterEvent);
+        }
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String token = accessor.getFirstNativeHeader(TOKEN_HEADER);
+        if (token == null || token.isBlank() || accessor.getSessionId() == null)
+            return;
+
+        // Presenters and spectators connect without a token
+        Optional<ParticipantRepository.PresenceRef> ref = participantRepository.findPresenceBySessionToken(token);
+        if (ref.isEmpty())
+            return;
+
+        String code = ref.get().getSessionCode().toUpperCase();
+        String requestedCode = accessor.getFirstNativeHeader(CODE_HEADER);
+        if (requestedCode != null && !requestedCode.equalsIgnoreCase(code))
+            return;
+
+        connections.put(accessor.getSessionId(), new Connection(code, token, ref.get().getId()));
+    }
+
+    //Counts the participant as connected once they listen to their session's topic.
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Connection connection = accessor.getSessionId() != null ? connections.get(accessor.getSessionId()) : null;
+        String destination = accessor.getDestination();
+        if (connection == null || destination == null || !destination.equalsIgnoreCase(TOPIC_PREFIX + connection.code)
+                || !connection.subscribed.compareAndSet(false, true))
+            return;
+
+        connect(connection);
+    }
+
+    //A participant that joined over an already subscribed websocket (STOMP join), so no CONNECT header carried the token.
+    public void attach(String stompSessionId, String code, String token, Long participantId) {
+        Connection connection = new Connection(code.toUpperCase(), token, participantId);
+        connection.subscribed.set(true);
+        if (connections.putIfAbsent(stompSessionId, connection) == null) {
+            connect(connection);
+        }
+    }
+
+    //The websocket stays open but no longer belongs to a participant (STOMP leave).
+    public void detach(String stompSessionId) {
+        disconnect(connections.remove(stompSessionId));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        disconnect(connections.remove(event.getSessionId()));
+    }
+
+    //First and last connection are decided inside compute on the session entry, so a concurrent connect and
+    //disconnect of the same participant cannot both see a stale count or drop a map another thread just used.
+    private void connect(Connection connection) {
+        sessions.compute(connection.code, (code, participants) -> {
+            Map<String, Presence> updated = participants != null ? participants : new ConcurrentHashMap<>();
+            Presence presence = updated.computeIfAbsent(connection.token, token -> new Presence(connection.participantId));
+            if (++presence.connections == 1) {
+                markChanged(code, connection.token, true);
+            }
+            return updated;
+        });
+    }
+
+    private void disconnect(Connection connection) {
+        if (connection == null || !connection.subscribed.get())
+            return;
+
+        sessions.computeIfPresent(connection.code, (code, participants) -> {
+            Presence presence = participants.get(connection.token);
+            if (presence != null && --presence.connections <= 0) {
+                participants.remove(connection.token);
+                markChanged(code, connection.token, false);
+            }
+            return participants.isEmpty() ? null : participants;
+        });
+    }
+
+    public int getConnectedCount(String code) {
+        return getConnectedParticipantIds(code).size();
+    }
+
+    //Participants connected to any node
+    public Set<Long> getConnectedParticipantIds(String code) {
+        String key = code.toUpperCase();
+        Set<Long> connected = new HashSet<>(localParticipantIds(key));
+        Map<String, RemotePresence> nodes = remote.get(key);
+        if (nodes != null) {
+            long now = System.currentTimeMillis();
+            nodes.values().removeIf(presence -> now - presence.receivedAt() > PRESENCE_EXPIRY_MS);
+            nodes.values().forEach(presence -> connected.addAll(presence.participantIds()));
+        }
+        return connected;
+    }
+
+    private List<Long> localParticipantIds(String code) {
+        Map<String, Presence> participants = sessions.get(code);
+        if (participants == null)
+            return List.of();
+        return participants.values().stream().map(presence -> presence.participantId).toList();
+    }
+
+    //Writes the coalesced changes and notifies the presenters of the sessions involved.
+    @Scheduled(fixedDelayString = "${app.presence.flush-interval-ms:2000}")
+    public void flush() {
+        refreshPresence();
+        if (dirty.isEmpty() && changedCodes.isEmpty())
+            return;
+
+        List<String> connected = new ArrayList<>();
+        List<String> disconnected = new ArrayList<>();
+        for (String token : new ArrayList<>(dirty.keySet())) {
+            Boolean state = dirty.remove(token);
+            if (state != null) {
+                (state ? connected : disconnected).add(token);
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < connected.size(); i += BATCH_SIZE) {
+                    participantRepository.updateConnected(connected.subList(i, Math.min(i + BATCH_SIZE, connected.size())), true);
+                }
+                for (int i = 0; i < disconnected.size(); i += BATCH_SIZE) {
+                    participantRepository.updateConnected(disconnected.subList(i, Math.min(i + BATCH_SIZE, disconnected.size())), false);
+                }
+            });
+        } catch (Exception e) {
+            // Retried on the next flush unless a newer state arrived meanwhile
+            log.warn("Failed to write participant presence: {}", e.getMessage());
+            connected.forEach(token -> dirty.putIfAbsent(token, true));
+            disconnected.forEach(token -> dirty.putIfAbsent(token, false));
+        }
+
+        for (String code : new ArrayList<>(changedCodes)) {
+            changedCodes.remove(code);
+            publishPresence(code);
+            Set<Long> connectedIds = getConnectedParticipantIds(code);
+            Map<String, Object> message = new HashMap<>();
+            message.put("type", "PRESENCE_CHANGED");
+            message.put("connectedCount", connectedIds.size());
+            message.put("connectedParticipantIds", new ArrayList<>(connectedIds));
+            sessionBroadcaster.broadcast(code, message);
+        }
+    }
+
+    //Keeps this node's presence alive on the other nodes
+    private void refreshPresence() {
+        long now = System.currentTimeMillis();
+        if (now - lastRefreshMillis >= PRESENCE_REFRESH_MS) {
+            lastRefreshMillis = now;
+            sessions.keySet().forEach(this::publishPresence);
+        }
+    }
+
+    private void publishPresence(String code) {
+        ClusterChannel channel = clusterChannel.getIfAvailable();
+        if (channel == null)
+            return;
+
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "PRESENCE");
+        event.put("node", nodeId);
+        event.put("code", code);
+        event.put("participantIds", localParticipantIds(code));
+        try {
+            channel.publishEvent(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            log.error("Error publishing presence of {}: {}", code, e.getMessage());
+        }
+    }
+
+    //Presence published by another node replaces what it reported before for that session.
+    void onClusterEvent(String json) {
+        Map<String, Object> event;
+        try {
+            event = objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (JsonProcessingException e) {
+            log.warn("Malformed cluster event: {}", e.getMessage());
+            return;
+        }
+        if (!"PRESENCE".equals(event.get("type")) || nodeId.equals(event.get("node")))
+            return;
+
+        String code = ((String) event.get("code")).toUpperCase();
+        String node = (String) event.get("node");
+        Set<Long> participantIds = ((List<?>) event.get("participantIds")).stream()
+                .map(id -> ((Number) id).longValue())
+                .collect(Collectors.toSet());
+        remote.compute(code, (key, nodes) -> {
+            Map<String, RemotePresence> updated = nodes != null ? nodes : new ConcurrentHashMap<>();
+            if (participantIds.isEmpty()) {
+                updated.remove(node);
+            } else {
+                updated.put(node, new RemotePresence(participantIds, System.currentTimeMillis()));
+            }
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    private void markChanged(String code, String token, boolean connected) {
+        dirty.put(token, connected);
+        changedCodes.add(code);
+    }
+
+    private static final class Connection {
+        final String code;
+        final String token;
+        final Long participantId;
+        final AtomicBoolean subscribed = new AtomicBoolean();
+
+        Connection(String code, String token, Long participantId) {
+            this.code = code;
+            this.token = token;
+            this.participantId = participantId;
+        }
+    }
+
+    private record RemotePresence(Set<Long> participantIds, long receivedAt) {
+    }
+
+    private static final class Presence {
+        final Long participantId;
+        //open websockets of this participant (several tabs or devices), changed only inside sessions.compute
+        int connections;
+
+        Presence(Long participantId) {
+            this.participantId = participantId;
+        }
+    }
+}
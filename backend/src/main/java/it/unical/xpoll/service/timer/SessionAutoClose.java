@@ -0,0 +1,40 @@
+package it.unical.xpoll.service.timer;
+
+import it.unical.xpoll.repository.SessionRepository;
+import it.unical.xpoll.service.SessionService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+//Connects the session timer to SessionService: expired sessions are closed, and on startup
+//the deadlines of sessions still open are registered again (expired ones close right away).
+//Every node arms every open session, here and on each launch (see LiveSessionSync); closing is a conditional
+//update, so only the first node to fire closes the session and writes its participation history.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionAutoClose {
+    private final SessionTimerService sessionTimerService;
+    private final SessionService sessionService;
+    private final SessionRepository sessionRepository;
+
+    @PostConstruct
+    public void register() {
+        sessionTimerService.onExpiry(sessionService::closeExpired);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rearm() {
+        List<SessionRepository.OpenSessionTimer> timers = sessionRepository.findOpenSessionTimers();
+        for (SessionRepository.OpenSessionTimer timer : timers) {
+            sessionTimerService.schedule(timer.getCode(), timer.getTimerStartedAt().plusSeconds(timer.getTimeLimit()));
+        }
+        if (!timers.isEmpty())
+            log.info("Re-armed the timers of {} open sessions", timers.size());
+    }
+}
@@ -0,0 +1,171 @@
+package it.unical.xpoll.service.timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+//Server-side session deadlines on a hashed timing wheel.
+//One scheduler thread advances the wheel every tick-ms; a deadline lands in bucket (tick % wheel-size)
+//with the number of full wheel rounds left, so scheduling and cancelling are O(1) whatever the number of sessions.
+//Expired codes are handed to the expiry handler on a separate thread, so slow closes never delay the wheel.
+//Registrations are queued and placed by the wheel thread, which is the only one touching the buckets.
+@Slf4j
+@Component
+public class SessionTimerService {
+    private final long tickMillis;
+    private final int mask;
+    private final List<Timeout>[] wheel;
+    //latest deadline per session code
+    private final Map<String, Timeout> active = new ConcurrentHashMap<>();
+    private final Queue<Timeout> registrations = new ConcurrentLinkedQueue<>();
+    private volatile Consumer<String> expiryHandler = code -> {
+    };
+    private ScheduledExecutorService scheduler;
+    private ExecutorService expiryExecutor;
+    private long startMillis;
+    //next tick to process, only touched by the wheel thread
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public SessionTimerService(@Value("${app.sessions.timer.tick-ms:250}") long tickMillis,
+            @Value("${app.sessions.timer.wheel-size:512}") int wheelSize) {
+        this.tickMillis = tickMillis;
+        // Rounded up to a power of two so the bucket is a mask of the tick
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.mask = size - 1;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        startMillis = System.currentTimeMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "session-timer-wheel"));
+        expiryExecutor = Executors.newSingleThreadExecutor(r -> daemon(r, "session-timer-expiry"));
+        scheduler.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        expiryExecutor.shutdown();
+    }
+
+    //Called with the code of each session whose deadline passed.
+    public void onExpiry(Consumer<String> handler) {
+        this.expiryHandler = handler;
+    }
+
+    //Registers (or moves) the deadline of a session.
+    public void schedule(String code, Instant deadline) {
+        Timeout timeout = new Timeout(code.toUpperCase(), deadline.toEpochMilli());
+        Timeout previous = active.put(timeout.code, timeout);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        registrations.add(timeout);
+    }
+
+    public void cancel(String code) {
+        Timeout timeout = active.remove(code.toUpperCase());
+        if (timeout != null) {
+            timeout.cancelled = true;
+        }
+    }
+
+    public int size() {
+        return active.size();
+    }
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            Timeout registration;
+            while ((registration = registrations.poll()) != null) {
+                if (!registration.cancelled) {
+                    place(registration);
+                }
+            }
+
+            // Catches up if the thread was late, one bucket per elapsed tick
+            long lastTick = (now - startMillis) / tickMillis;
+            for (; currentTick <= lastTick; currentTick++) {
+                expire(wheel[(int) (currentTick & mask)], now);
+            }
+        } catch (Exception e) {
+            log.error("Session timer tick failed", e);
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long tick = Math.max(currentTick, (timeout.deadlineMillis - startMillis + tickMillis - 1) / tickMillis);
+        timeout.rounds = (tick - currentTick) / wheel.length;
+        wheel[(int) (tick & mask)].add(timeout);
+    }
+
+    private void expire(List<Timeout> bucket, long now) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+
+        List<Timeout> remaining = new ArrayList<>();
+        for (Timeout timeout : bucket) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            if (timeout.rounds > 0 || timeout.deadlineMillis > now) {
+                timeout.rounds = Math.max(0, timeout.rounds - 1);
+                remaining.add(timeout);
+                continue;
+            }
+            if (active.remove(timeout.code, timeout)) {
+                expiryExecutor.execute(() -> fire(timeout.code));
+            }
+        }
+        bucket.clear();
+        bucket.addAll(remaining);
+    }
+
+    private void fire(String code) {
+        try {
+            expiryHandler.accept(code);
+        } catch (Exception e) {
+            log.error("Failed to close expired session {}", code, e);
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class Timeout {
+        final String code;
+        final long deadlineMillis;
+        long rounds;
+        volatile boolean cancelled;
+
+        Timeout(String code, long deadlineMillis) {
+            this.code = code;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package it.unical.xpoll.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Ids left by the IDENTITY columns: the pooled sequences must hand out blocks above them.
+class IdSequenceMigrationTest {
+
+    @Test
+    void sequencesBehindTheExistingIdsAreMovedPastThem() {
+        ScriptedDatabase database = new ScriptedDatabase("PostgreSQL");
+        database.values.put("SELECT COALESCE(MAX(id), 0) FROM votes", 120L);
+        database.values.put("SELECT last_value FROM votes_seq", 1L);
+        // Already ahead: a node that ran the migration before
+        database.values.put("SELECT COALESCE(MAX(id), 0) FROM options", 40L);
+        database.values.put("SELECT last_value FROM options_seq", 51L);
+        database.values.put("SELECT COALESCE(MAX(id), 0) FROM questions", 0L);
+        database.values.put("SELECT last_value FROM questions_seq", 1L);
+        database.values.put("SELECT COALESCE(MAX(id), 0) FROM participants", 7L);
+        database.values.put("SELECT last_value FROM participants_seq", 1L);
+
+        new IdSequenceMigration(database, null).alignSequences();
+
+        // The next block (value - 49 .. value) starts right after the highest id
+        assertThat(database.executed).containsExactlyInAnyOrder(
+                "SELECT setval('votes_seq', 169)",
+                "SELECT setval('participants_seq', 56)");
+    }
+
+    @Test
+    void otherDatabasesAreLeftAlone() {
+        ScriptedDatabase database = new ScriptedDatabase("H2");
+
+        new IdSequenceMigration(database, null).alignSequences();
+
+        assertThat(database.queried).isEmpty();
+        assertThat(database.executed).isEmpty();
+    }
+
+    //Answers the migration's queries from a map and records its statements.
+    private static final class ScriptedDatabase extends JdbcTemplate {
+        private final String productName;
+        private final Map<String, Long> values = new HashMap<>();
+        private final List<String> queried = new ArrayList<>();
+        private final List<String> executed = new ArrayList<>();
+
+        ScriptedDatabase(String productName) {
+            this.productName = productName;
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            queried.add(sql);
+            return requiredType.cast(values.get(sql));
+        }
+
+        @Override
+        public void execute(String sql) {
+            executed.add(sql);
+        }
+
+        @Override
+        public <T> T execute(ConnectionCallback<T> action) {
+            DatabaseMetaData metaData = (DatabaseMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { DatabaseMetaData.class },
+                    (proxy, method, args) -> "getDatabaseProductName".equals(method.getName()) ? productName : null);
+            Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    (proxy, method, args) -> "getMetaData".equals(method.getName()) ? metaData : null);
+            try {
+                return action.doInConnection(connection);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
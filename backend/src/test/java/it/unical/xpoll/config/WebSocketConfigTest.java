@@ -0,0 +1,67 @@
+package it.unical.xpoll.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//STOMP channel executors follow spring.threads.virtual.enabled.
+class WebSocketConfigTest {
+    private final WebSocketConfig config = new WebSocketConfig();
+    private final RecordingRegistration inbound = new RecordingRegistration();
+    private final RecordingRegistration outbound = new RecordingRegistration();
+
+    @Test
+    void virtualThreadsAlsoRunTheStompChannels() throws Exception {
+        ReflectionTestUtils.setField(config, "virtualThreads", true);
+
+        config.configureClientInboundChannel(inbound);
+        config.configureClientOutboundChannel(outbound);
+
+        assertThat(inbound.executor).isInstanceOf(VirtualThreadTaskExecutor.class);
+        assertThat(outbound.executor).isInstanceOf(VirtualThreadTaskExecutor.class);
+        Thread inboundThread = threadOf(inbound.executor);
+        assertThat(inboundThread.isVirtual()).isTrue();
+        assertThat(inboundThread.getName()).startsWith("ws-inbound-");
+        assertThat(threadOf(outbound.executor).getName()).startsWith("ws-outbound-");
+    }
+
+    @Test
+    void platformThreadsKeepTheDefaultChannelPools() {
+        ReflectionTestUtils.setField(config, "virtualThreads", false);
+
+        config.configureClientInboundChannel(inbound);
+        config.configureClientOutboundChannel(outbound);
+
+        assertThat(inbound.executor).isNull();
+        assertThat(outbound.executor).isNull();
+        // The cluster topic guard is installed either way
+        assertThat(inbound.interceptorsSet()).isTrue();
+    }
+
+    private static Thread threadOf(TaskExecutor executor) throws Exception {
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        executor.execute(() -> thread.complete(Thread.currentThread()));
+        return thread.get(5, TimeUnit.SECONDS);
+    }
+
+    private static final class RecordingRegistration extends ChannelRegistration {
+        private TaskExecutor executor;
+
+        @Override
+        public ChannelRegistration executor(TaskExecutor executor) {
+            this.executor = executor;
+            return super.executor(executor);
+        }
+
+        boolean interceptorsSet() {
+            return hasInterceptors();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package it.unical.xpoll.controller;
+
+import it.unical.xpoll.domain.Participant;
+import it.unical.xpoll.domain.Session;
+import it.unical.xpoll.domain.SessionState;
+import it.unical.xpoll.model.AccessMode;
+import it.unical.xpoll.model.User;
+import it.unical.xpoll.repository.UserRepository;
+import it.unical.xpoll.service.SessionService;
+import it.unical.xpoll.service.UserService;
+import it.unical.xpoll.service.live.ScoringEngine;
+import it.unical.xpoll.service.presence.PresenceTracker;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//Session snapshot: the participants are built from the score ledger and one batched user lookup.
+class SessionControllerTest {
+    private final SessionService sessionService = mock(SessionService.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PresenceTracker presenceTracker = mock(PresenceTracker.class);
+    private final SessionController controller = new SessionController(sessionService, userRepository,
+            mock(UserService.class), presenceTracker);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void participantsAreBuiltWithOneUserLookupWhateverTheirNumber() {
+        Session session = Session.builder().id(7L).code("ABC123").creatorId("presenter").state(SessionState.OPEN)
+                .build();
+        session.addParticipant(Participant.builder().id(1L).name("Presenter").userId(10L).build());
+        session.addParticipant(Participant.builder().id(2L).name("Ann").userId(11L).score(3).correctCount(2).build());
+        session.addParticipant(Participant.builder().id(3L).name("Bob").userId(12L).score(1).correctCount(1).build());
+        session.addParticipant(Participant.builder().id(4L).name("Guest").build());
+        when(sessionService.getSession("ABC123")).thenReturn(Optional.of(session));
+        when(sessionService.getScore(any(), any())).thenReturn(new ScoringEngine.Score(2, 1));
+        when(presenceTracker.getConnectedParticipantIds("ABC123")).thenReturn(Set.of(2L));
+        when(userRepository.findAllById(any())).thenReturn(List.of(
+                User.builder().id(11L).accessMode(AccessMode.GOOGLE).build(),
+                User.builder().id(12L).accessMode(AccessMode.LOCAL).build()));
+
+        Map<String, Object> body = (Map<String, Object>) controller.getSession("ABC123").getBody();
+
+        List<Map<String, Object>> participants = (List<Map<String, Object>>) body.get("participants");
+        assertThat(participants.stream().map(p -> p.get("name")).toList()).containsExactly("Ann", "Bob", "Guest");
+        assertThat(participants.stream().map(p -> p.get("isGoogleUser")).toList()).containsExactly(true, false, false);
+        assertThat(participants.stream().map(p -> p.get("isConnected")).toList()).containsExactly(true, false, false);
+        assertThat(participants.get(0).get("score")).isEqualTo(2);
+        assertThat(body.get("connectedCount")).isEqualTo(1);
+        verify(userRepository).findAllById(any());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void sessionWithoutRegisteredUsersSkipsTheUserLookup() {
+        Session session = Session.builder().id(7L).code("ABC123").creatorId("presenter").state(SessionState.OPEN)
+                .build();
+        session.addParticipant(Participant.builder().id(4L).name("Guest").build());
+        when(sessionService.getSession("ABC123")).thenReturn(Optional.of(session));
+        when(sessionService.getScore(any(), any())).thenReturn(new ScoringEngine.Score(0, 0));
+        when(presenceTracker.getConnectedParticipantIds("ABC123")).thenReturn(Set.of());
+
+        assertThat(controller.getSession("ABC123").getBody()).isNotNull();
+
+        verify(userRepository, never()).findAllById(any());
+    }
+}
@@ -0,0 +1,95 @@
+package it.unical.xpoll.controller;
+
+import it.unical.xpoll.service.SessionService;
+import it.unical.xpoll.service.presence.PresenceTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//Join, vote and leave over STOMP: replies echo the requestId and the socket's presence follows the join/leave.
+class SessionMessageControllerTest {
+    private final SessionService sessionService = mock(SessionService.class);
+    private final PresenceTracker presenceTracker = mock(PresenceTracker.class);
+    private final SessionMessageController controller = new SessionMessageController(sessionService, presenceTracker);
+
+    @Test
+    void joinOverTheSocketMakesItTheParticipantsConnection() {
+        when(sessionService.joinSession("abc123", "Ann", null)).thenReturn(new SessionService.JoinResult(
+                Map.of("success", true, "participantId", 5L, "sessionToken", "token-a"), 5L, "token-a"));
+
+        Map<String, Object> reply = controller.joinSession("abc123", new SessionController.JoinRequest("Ann", null),
+                "req-1", headers("ws-1"));
+
+        assertThat(reply.get("type")).isEqualTo("JOIN");
+        assertThat(reply.get("requestId")).isEqualTo("req-1");
+        assertThat(reply.get("success")).isEqualTo(true);
+        assertThat(reply.get("sessionToken")).isEqualTo("token-a");
+        verify(presenceTracker).attach("ws-1", "abc123", "token-a", 5L);
+    }
+
+    @Test
+    void refusedJoinLeavesPresenceAlone() {
+        when(sessionService.joinSession("ABC123", "Ann", null)).thenReturn(new SessionService.JoinResult(
+                Map.of("success", false, "error", "Name already taken"), null, null));
+
+        Map<String, Object> reply = controller.joinSession("ABC123", new SessionController.JoinRequest("Ann", null),
+                "req-1", headers("ws-1"));
+
+        assertThat(reply.get("success")).isEqualTo(false);
+        assertThat(reply.get("error")).isEqualTo("Name already taken");
+        verify(presenceTracker, never()).attach(any(), any(), any(), any());
+    }
+
+    @Test
+    void votesReplyWithTheOutcome() {
+        when(sessionService.submitVotes("ABC123", "Ann", Map.of("10", 0))).thenReturn(true);
+        when(sessionService.submitVotes("ABC123", "Bob", Map.of("10", 0))).thenReturn(false);
+
+        Map<String, Object> accepted = controller.submitVotes("ABC123",
+                new SessionController.VoteRequest("Ann", Map.of("10", 0)), "req-2");
+        Map<String, Object> refused = controller.submitVotes("ABC123",
+                new SessionController.VoteRequest("Bob", Map.of("10", 0)), "req-3");
+
+        assertThat(accepted).isEqualTo(Map.of("success", true, "type", "VOTES", "requestId", "req-2"));
+        assertThat(refused.get("success")).isEqualTo(false);
+        assertThat(refused.get("requestId")).isEqualTo("req-3");
+    }
+
+    @Test
+    void onlyASuccessfulLeaveReleasesTheSocket() {
+        when(sessionService.leaveSession("ABC123", "Bob")).thenReturn(false);
+        controller.leaveSession("ABC123", new SessionController.LeaveRequest("Bob"), "req-4", headers("ws-2"));
+        verify(presenceTracker, never()).detach(any());
+
+        when(sessionService.leaveSession("ABC123", "Ann")).thenReturn(true);
+        Map<String, Object> reply = controller.leaveSession("ABC123", new SessionController.LeaveRequest("Ann"),
+                "req-5", headers("ws-1"));
+
+        assertThat(reply.get("type")).isEqualTo("LEAVE");
+        assertThat(reply.get("success")).isEqualTo(true);
+        verify(presenceTracker).detach("ws-1");
+    }
+
+    @Test
+    void failedRequestStillGetsAnAnswer() {
+        Map<String, Object> reply = controller.handleException(new IllegalStateException("boom"), "req-6");
+
+        assertThat(reply.get("type")).isEqualTo("ERROR");
+        assertThat(reply.get("requestId")).isEqualTo("req-6");
+        assertThat(reply.get("success")).isEqualTo(false);
+    }
+
+    private static SimpMessageHeaderAccessor headers(String stompSessionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+        headers.setSessionId(stompSessionId);
+        return headers;
+    }
+}
@@ -0,0 +1,148 @@
+package it.unical.xpoll.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import it.unical.xpoll.model.User;
+import it.unical.xpoll.repository.UserRepository;
+import it.unical.xpoll.service.broadcast.ClusterChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PrincipalCacheTest {
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JwtTokenProvider tokenProvider = mock(JwtTokenProvider.class);
+    private final List<String> published = new ArrayList<>();
+    private final PrincipalCache cache = new PrincipalCache(userRepository, tokenProvider, provider(new ClusterChannel() {
+        @Override
+        public void publishEvent(String event) {
+            published.add(event);
+        }
+
+        @Override
+        public void subscribe(Consumer<String> listener) {
+        }
+    }), new ObjectMapper());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        for (long id = 1; id <= 3; id++) {
+            when(userRepository.findById(id)).thenReturn(Optional.of(user(id)));
+        }
+    }
+
+    @Test
+    void repeatedRequestsHitTheDatabaseOnce() {
+        Claims claims = claims(1L);
+
+        assertThat(cache.resolve(claims)).isPresent();
+        assertThat(cache.resolve(claims)).isPresent();
+
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void fullCacheEvictsTheLeastRecentlyUsedPrincipal() {
+        cache.resolve(claims(1L));
+        cache.resolve(claims(2L));
+        // 1 is used again, so 2 is the least recently used when 3 arrives
+        cache.resolve(claims(1L));
+        cache.resolve(claims(3L));
+
+        assertThat(cache.size()).isEqualTo(2);
+        cache.resolve(claims(1L));
+        verify(userRepository, times(1)).findById(1L);
+        cache.resolve(claims(2L));
+        verify(userRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    void expiredPrincipalsAreReloaded() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+
+        cache.resolve(claims(1L));
+        cache.resolve(claims(1L));
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void invalidatedPrincipalsAreReloaded() {
+        cache.resolve(claims(1L));
+        cache.invalidate(1L);
+        cache.resolve(claims(1L));
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void changesToAResolvedPrincipalDoNotReachTheCache() {
+        User first = cache.resolve(claims(1L)).orElseThrow();
+        first.setUsername("changed");
+
+        User second = cache.resolve(claims(1L)).orElseThrow();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getUsername()).isEqualTo("user1");
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void invalidationReachesTheOtherNodes() {
+        cache.resolve(claims(1L));
+        cache.resolve(claims(2L));
+
+        cache.invalidate(1L);
+        cache.onClusterEvent(published.get(0));
+        cache.onClusterEvent("{\"type\":\"PRINCIPAL_INVALIDATED\",\"userId\":2}");
+        cache.onClusterEvent("{\"type\":\"CLOSED\",\"code\":\"ABC123\"}");
+
+        assertThat(published).hasSize(1);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void tokenOfAnotherEmailIsNotResolved() {
+        Claims claims = claims(1L);
+        when(claims.getSubject()).thenReturn("someone.else@example.com");
+
+        assertThat(cache.resolve(claims)).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    private Claims claims(Long userId) {
+        Claims claims = mock(Claims.class);
+        when(claims.getSubject()).thenReturn("user" + userId + "@example.com");
+        when(tokenProvider.getUserId(claims)).thenReturn(userId);
+        return claims;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@example.com");
+        user.setUsername("user" + id);
+        return user;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<ClusterChannel> provider(ClusterChannel channel) {
+        ObjectProvider<ClusterChannel> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(channel);
+        return provider;
+    }
+}
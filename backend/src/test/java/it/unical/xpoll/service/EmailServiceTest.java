@@ -0,0 +1,57 @@
+package it.unical.xpoll.service;
+
+import it.unical.xpoll.config.AsyncConfig;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+//Password reset emails go through the @Async proxy: the caller returns while SMTP is still busy.
+class EmailServiceTest {
+
+    @Test
+    void resetEmailIsSentWithoutHoldingTheCaller() throws Exception {
+        CountDownLatch smtpDone = new CountDownLatch(1);
+        CompletableFuture<MimeMessage> sent = new CompletableFuture<>();
+        CompletableFuture<Thread> sentOn = new CompletableFuture<>();
+        JavaMailSender mailSender = mock(JavaMailSender.class);
+        when(mailSender.createMimeMessage()).thenReturn(new MimeMessage((jakarta.mail.Session) null));
+        doAnswer(invocation -> {
+            sent.complete(invocation.getArgument(0));
+            sentOn.complete(Thread.currentThread());
+            smtpDone.await();
+            return null;
+        }).when(mailSender).send(any(MimeMessage.class));
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.getEnvironment().getPropertySources()
+                    .addFirst(new MapPropertySource("test", Map.of("app.frontend.url", "http://localhost:5173")));
+            context.registerBean(JavaMailSender.class, () -> mailSender);
+            context.register(AsyncConfig.class, EmailService.class);
+            context.refresh();
+
+            try {
+                // Returns even though the send below has not finished
+                context.getBean(EmailService.class).sendPasswordResetEmail("ann@example.com", "reset-token");
+
+                assertThat(sentOn.get(5, TimeUnit.SECONDS)).isNotSameAs(Thread.currentThread());
+                assertThat(sent.get().getAllRecipients()[0].toString()).isEqualTo("ann@example.com");
+                assertThat(sent.get().getSubject()).isEqualTo("XPoll - Password Reset Request");
+            } finally {
+                smtpDone.countDown();
+            }
+        }
+    }
+}
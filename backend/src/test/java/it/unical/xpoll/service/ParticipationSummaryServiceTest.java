@@ -0,0 +1,141 @@
+package it.unical.xpoll.service;
+
+import it.unical.xpoll.domain.ParticipationSummary;
+import it.unical.xpoll.domain.Poll;
+import it.unical.xpoll.domain.Session;
+import it.unical.xpoll.dto.ParticipationResponse;
+import it.unical.xpoll.repository.ParticipantRepository;
+import it.unical.xpoll.repository.ParticipationSummaryRepository;
+import it.unical.xpoll.repository.VoteRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ParticipationSummaryServiceTest {
+    private static final Comparator<ParticipationSummary> NEWEST_FIRST = Comparator
+            .comparing(ParticipationSummary::getParticipationDate)
+            .thenComparing(ParticipationSummary::getParticipantId)
+            .reversed();
+
+    private final ParticipationSummaryRepository summaryRepository = mock(ParticipationSummaryRepository.class);
+    private final ParticipantRepository participantRepository = mock(ParticipantRepository.class);
+    private final VoteRepository voteRepository = mock(VoteRepository.class);
+    private final ParticipationSummaryService service = new ParticipationSummaryService(summaryRepository,
+            participantRepository, voteRepository);
+
+    @Test
+    void pagesFollowTheCursorWithoutGapsOrDuplicates() {
+        // Participations sharing a date are told apart by participantId
+        Instant day = Instant.parse("2026-01-10T10:00:00Z");
+        List<ParticipationSummary> history = new ArrayList<>(List.of(
+                summary(1L, day.minusSeconds(60)), summary(2L, day), summary(3L, day),
+                summary(4L, day), summary(5L, day.plusSeconds(60)), summary(6L, day.minusSeconds(120)),
+                summary(7L, day)));
+        history.sort(NEWEST_FIRST);
+        answerWithKeysetQueries(history);
+
+        List<Long> seen = new ArrayList<>();
+        List<ParticipationResponse> page = service.getParticipations(42L, null, null, 3);
+        while (!page.isEmpty()) {
+            page.forEach(item -> seen.add(item.getParticipantId()));
+            ParticipationResponse last = page.get(page.size() - 1);
+            page = service.getParticipations(42L, last.getParticipationDate(), last.getParticipantId(), 3);
+        }
+
+        assertThat(seen).containsExactly(5L, 7L, 4L, 3L, 2L, 1L, 6L);
+    }
+
+    @Test
+    void pageSizeIsKeptWithinBounds() {
+        ArgumentCaptor<Limit> limits = ArgumentCaptor.forClass(Limit.class);
+
+        service.getParticipations(42L, null, null, 0);
+        service.getParticipations(42L, null, null, 10_000);
+
+        verify(summaryRepository, times(2)).findFirstPage(eq(42L), limits.capture());
+        assertThat(limits.getAllValues()).extracting(Limit::max)
+                .containsExactly(1, ParticipationSummaryService.MAX_PAGE_SIZE);
+    }
+
+    @Test
+    void summarizesThePresenterAndParticipantsThatVotedOnly() {
+        Session session = Session.builder().id(7L).creatorUserId(10L)
+                .poll(Poll.builder().title("Quiz").timeLimit(60).build())
+                .createdAt(Instant.parse("2026-01-10T09:00:00Z"))
+                .build();
+        when(voteRepository.findVoterIdsBySessionId(7L)).thenReturn(List.of(2L));
+        when(participantRepository.findRegisteredLedgerBySessionId(7L)).thenReturn(List.of(
+                new Row(1L, 10L, null, null, null, null),
+                new Row(2L, 11L, Instant.parse("2026-01-10T09:01:00Z"), 3, 5, 42),
+                new Row(3L, 12L, Instant.parse("2026-01-10T09:02:00Z"), 0, 5, null)));
+        List<ParticipationSummary> saved = new ArrayList<>();
+        when(summaryRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<ParticipationSummary> summaries = invocation.getArgument(0);
+            summaries.forEach(saved::add);
+            return saved;
+        });
+
+        service.summarize(session);
+
+        verify(summaryRepository).deleteBySessionId(7L);
+        assertThat(saved).extracting(ParticipationSummary::getParticipantId).containsExactly(1L, 2L);
+
+        ParticipationSummary presenter = saved.get(0);
+        assertThat(presenter.getIsPresenter()).isTrue();
+        assertThat(presenter.getHasParticipated()).isFalse();
+        assertThat(presenter.getScore()).isZero();
+        assertThat(presenter.getParticipationDate()).isEqualTo(session.getCreatedAt());
+
+        ParticipationSummary voter = saved.get(1);
+        assertThat(voter.getIsPresenter()).isFalse();
+        assertThat(voter.getScore()).isEqualTo(3);
+        assertThat(voter.getMaxScore()).isEqualTo(5);
+        assertThat(voter.getTotalTimeSeconds()).isEqualTo(60);
+    }
+
+    //Answers the two page queries the way their JPQL does, on a list sorted newest first
+    private void answerWithKeysetQueries(List<ParticipationSummary> history) {
+        when(summaryRepository.findFirstPage(eq(42L), any())).thenAnswer(invocation -> {
+            Limit limit = invocation.getArgument(1);
+            return history.stream().limit(limit.max()).toList();
+        });
+        when(summaryRepository.findPageBefore(eq(42L), any(), anyLong(), any())).thenAnswer(invocation -> {
+            Instant before = invocation.getArgument(1);
+            Long beforeId = invocation.getArgument(2);
+            Limit limit = invocation.getArgument(3);
+            return history.stream()
+                    .filter(s -> s.getParticipationDate().isBefore(before)
+                            || (s.getParticipationDate().equals(before) && s.getParticipantId() < beforeId))
+                    .limit(limit.max())
+                    .toList();
+        });
+    }
+
+    private static ParticipationSummary summary(Long participantId, Instant participationDate) {
+        return ParticipationSummary.builder()
+                .userId(42L)
+                .participantId(participantId)
+                .sessionId(participantId * 10)
+                .pollTitle("Poll " + participantId)
+                .participationDate(participationDate)
+                .build();
+    }
+
+    private record Row(Long getId, Long getUserId, Instant getJoinedAt, Integer getScore, Integer getMaxScore,
+            Integer getCompletionTimeSeconds) implements ParticipantRepository.LedgerRow {
+    }
+}
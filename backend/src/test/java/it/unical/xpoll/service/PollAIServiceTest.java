@@ -0,0 +1,136 @@
+package it.unical.xpoll.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unical.xpoll.service.ai.cache.AIResultCache;
+import it.unical.xpoll.service.ai.exec.AIExecutor;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.QuestionData;
+import it.unical.xpoll.service.ai.provider.AIProvider;
+import it.unical.xpoll.service.ai.stream.PollStreamHandle;
+import it.unical.xpoll.service.ai.stream.PollStreamListener;
+import it.unical.xpoll.service.ai.strategy.AnswerGenerationStrategy;
+import it.unical.xpoll.service.ai.strategy.PollGenerationStrategy;
+import it.unical.xpoll.service.ai.strategy.PromptStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Streamed generations against a model that sends one chunk and then stalls.
+class PollAIServiceTest {
+    private final OneSecondPollStrategy pollStrategy = new OneSecondPollStrategy();
+    private final StallingProvider provider = new StallingProvider();
+    private final AIExecutor aiExecutor = new AIExecutor(List.of(pollStrategy), 1, 5, 1, false);
+    private final PollAIService service = new PollAIService(provider, new AIResponseFactory(new ObjectMapper()),
+            pollStrategy, new AnswerGenerationStrategy(), new AIResultCache(new ObjectMapper(), 10, 60, ""),
+            aiExecutor, 2, false);
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        provider.release.countDown();
+        service.stop();
+        aiExecutor.stop();
+    }
+
+    @Test
+    void stalledStreamIsStoppedAtTheStrategyTimeout() throws Exception {
+        service.streamPollFromPrompt("rome", listener());
+
+        waitFor(() -> events.size() == 2);
+        assertThat(events).containsExactly("title=Rome", "error=AI generation timed out after 1s");
+        assertThat(provider.interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        // The permit came back with the stream thread
+        waitFor(() -> canStartAnotherStream());
+    }
+
+    @Test
+    void cancelledStreamStopsTheModelCallWithoutTellingTheListener() throws Exception {
+        PollStreamHandle stream = service.streamPollFromPrompt("rome", listener());
+        waitFor(() -> events.size() == 1);
+
+        stream.cancel();
+
+        assertThat(provider.interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        waitFor(() -> canStartAnotherStream());
+        Thread.sleep(1200);
+        assertThat(events).containsExactly("title=Rome");
+    }
+
+    private boolean canStartAnotherStream() {
+        try {
+            aiExecutor.acquire(pollStrategy).release();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private PollStreamListener listener() {
+        return new PollStreamListener() {
+            @Override
+            public void onField(String name, String value) {
+                events.add(name + "=" + value);
+            }
+
+            @Override
+            public void onQuestion(QuestionData question) {
+                events.add("question=" + question.text());
+            }
+
+            @Override
+            public void onComplete(int questionCount) {
+                events.add("done=" + questionCount);
+            }
+
+            @Override
+            public void onError(String message) {
+                events.add("error=" + message);
+            }
+        };
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 150 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(20);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static final class OneSecondPollStrategy extends PollGenerationStrategy {
+        @Override
+        public int getTimeoutSeconds() {
+            return 1;
+        }
+    }
+
+    //Sends the title, then waits for a chunk that never comes (no deadline of its own)
+    private static final class StallingProvider implements AIProvider {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        @Override
+        public String generate(String prompt, PromptStrategy strategy) {
+            return null;
+        }
+
+        @Override
+        public boolean stream(String prompt, PromptStrategy strategy, Consumer<String> onChunk) {
+            onChunk.accept("{\"title\": \"Rome\", ");
+            try {
+                release.await();
+                return true;
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                return false;
+            }
+        }
+    }
+}
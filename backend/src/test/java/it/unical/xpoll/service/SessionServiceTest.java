@@ -0,0 +1,180 @@
+package it.unical.xpoll.service;
+
+import it.unical.xpoll.domain.Option;
+import it.unical.xpoll.domain.Participant;
+import it.unical.xpoll.domain.Poll;
+import it.unical.xpoll.domain.Question;
+import it.unical.xpoll.domain.Session;
+import it.unical.xpoll.domain.SessionState;
+import it.unical.xpoll.repository.OptionRepository;
+import it.unical.xpoll.repository.ParticipantRepository;
+import it.unical.xpoll.repository.QuestionRepository;
+import it.unical.xpoll.repository.SessionRepository;
+import it.unical.xpoll.repository.VoteRepository;
+import it.unical.xpoll.service.broadcast.SessionBroadcaster;
+import it.unical.xpoll.service.ingestion.PendingSubmission;
+import it.unical.xpoll.service.ingestion.VoteIngestionQueue;
+import it.unical.xpoll.service.live.LiveSession;
+import it.unical.xpoll.service.live.LiveSessionRegistry;
+import it.unical.xpoll.service.live.LiveSessionSync;
+import it.unical.xpoll.service.timer.SessionTimerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//Vote submission against a live copy that missed changes made on another node (synchronous ingestion),
+//the live participant index when async ingestion refuses a submission, and closes racing across nodes.
+class SessionServiceTest {
+    private final SessionRepository sessionRepository = mock(SessionRepository.class);
+    private final VoteRepository voteRepository = mock(VoteRepository.class);
+    private final ParticipantRepository participantRepository = mock(ParticipantRepository.class);
+    private final LiveSessionRegistry registry = new LiveSessionRegistry(voteRepository, provider(null));
+    private final LiveSessionSync liveSessionSync = mock(LiveSessionSync.class);
+    private final ParticipationSummaryService participationSummaryService = mock(ParticipationSummaryService.class);
+    private final SessionService service = new SessionService(sessionRepository, voteRepository,
+            participantRepository, mock(QuestionRepository.class), mock(OptionRepository.class),
+            mock(SessionBroadcaster.class), null, null, null, registry, liveSessionSync, provider(null), null,
+            participationSummaryService, mock(SessionTimerService.class), null);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "maxSize", 10);
+        ReflectionTestUtils.setField(registry, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(service, "leaderboardBroadcastSize", 10);
+    }
+
+    @Test
+    void copyThatMissedTheLaunchAndTheJoinChecksTheDatabase() {
+        LiveSession live = registry.getOrLoad(session(SessionState.WAITING));
+        Session launched = session(SessionState.OPEN);
+        launched.addParticipant(Participant.builder().id(2L).name("Bob").build());
+        when(sessionRepository.findByCode("ABC123")).thenReturn(Optional.of(launched));
+
+        assertThat(service.submitVotes("abc123", "bob", Map.of("10", 0))).isTrue();
+
+        assertThat(live.getState()).isEqualTo(SessionState.OPEN);
+        assertThat(live.getTally(10L)).containsExactly(1, 0);
+        assertThat(live.findParticipant("Bob")).isPresent();
+        verify(voteRepository).saveAll(any());
+        verify(liveSessionSync).voted(any(), any(), any(), any());
+    }
+
+    @Test
+    void copyOfASessionClosedElsewhereIsDropped() {
+        registry.getOrLoad(session(SessionState.OPEN));
+        when(sessionRepository.findByCode("ABC123")).thenReturn(Optional.of(session(SessionState.CLOSED)));
+
+        assertThat(service.submitVotes("ABC123", "Carl", Map.of("10", 0))).isFalse();
+
+        assertThat(registry.find("ABC123")).isEmpty();
+        verify(voteRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void unknownParticipantOfAnOpenSessionIsRejected() {
+        LiveSession live = registry.getOrLoad(session(SessionState.OPEN));
+        when(sessionRepository.findByCode("ABC123")).thenReturn(Optional.of(session(SessionState.OPEN)));
+
+        assertThat(service.submitVotes("ABC123", "Carl", Map.of("10", 0))).isFalse();
+
+        assertThat(live.getTally(10L)).containsExactly(0, 0);
+        verify(voteRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void completionTimeIsKeptOnlyOnceTheSubmissionIsQueued() {
+        Session launched = session(SessionState.OPEN);
+        launched.addParticipant(Participant.builder().id(2L).name("Bob").build());
+        LiveSession live = registry.getOrLoad(launched);
+
+        assertThat(asyncService(new FailingQueue()).submitVotes("ABC123", "Bob", Map.of("10", 0))).isFalse();
+        assertThat(live.findParticipant("Bob").get().completionTimeSeconds()).isNull();
+
+        // Rebuilt without the vote that was never queued
+        registry.evict("ABC123");
+        live = registry.getOrLoad(launched);
+        assertThat(asyncService(new FailingQueue() {
+            @Override
+            public void submit(PendingSubmission submission) {
+            }
+        }).submitVotes("ABC123", "Bob", Map.of("10", 0))).isTrue();
+        assertThat(live.findParticipant("Bob").get().completionTimeSeconds()).isNotNull();
+    }
+
+    @Test
+    void onlyTheCloseThatEndsTheSessionWritesItsHistory() {
+        when(sessionRepository.findByCode("ABC123")).thenReturn(Optional.of(session(SessionState.OPEN)));
+
+        // Another node's timer closed it between the read and the update
+        when(sessionRepository.closeIfNotClosed(any(), any())).thenReturn(0);
+        assertThat(service.closeExpired("ABC123")).isFalse();
+        verify(participationSummaryService, never()).summarize(any());
+
+        when(sessionRepository.findByCode("ABC123")).thenReturn(Optional.of(session(SessionState.OPEN)));
+        when(sessionRepository.closeIfNotClosed(any(), any())).thenReturn(1);
+        assertThat(service.closeExpired("ABC123")).isTrue();
+        verify(participationSummaryService).summarize(any());
+        assertThat(registry.find("ABC123")).isEmpty();
+    }
+
+    private SessionService asyncService(VoteIngestionQueue ingestionQueue) {
+        SessionService asyncService = new SessionService(sessionRepository, voteRepository,
+                participantRepository, mock(QuestionRepository.class), mock(OptionRepository.class),
+                mock(SessionBroadcaster.class), null, null, null, registry, liveSessionSync, provider(ingestionQueue),
+                null, null, mock(SessionTimerService.class), null);
+        ReflectionTestUtils.setField(asyncService, "leaderboardBroadcastSize", 10);
+        return asyncService;
+    }
+
+    private static Session session(SessionState state) {
+        return Session.builder()
+                .id(7L)
+                .code("ABC123")
+                .creatorId("presenter")
+                .state(state)
+                .timerStartedAt(state == SessionState.WAITING ? null : Instant.now().minusSeconds(5))
+                .poll(poll())
+                .build();
+    }
+
+    //question 10: options 100 (correct), 101
+    private static Poll poll() {
+        Question question = Question.builder().id(10L).text("Capital?").type(Question.QuestionType.SINGLE_CHOICE).build();
+        question.addOption(Option.builder().id(100L).text("Rome").value(0).isCorrect(true).build());
+        question.addOption(Option.builder().id(101L).text("Milan").value(0).isCorrect(false).build());
+        Poll poll = Poll.builder().id(1L).title("Quiz").hasScore(true).build();
+        poll.addQuestion(question);
+        return poll;
+    }
+
+    //Never started: submit is all that is called
+    private static class FailingQueue extends VoteIngestionQueue {
+        FailingQueue() {
+            super(null, 1, 1, 1, 1);
+        }
+
+        @Override
+        public void submit(PendingSubmission submission) {
+            throw new IllegalStateException("Queue unavailable");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectProvider<T> provider(T bean) {
+        ObjectProvider<T> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(bean);
+        return provider;
+    }
+}
@@ -0,0 +1,112 @@
+package it.unical.xpoll.service;
+
+import it.unical.xpoll.model.User;
+import it.unical.xpoll.repository.UserRepository;
+import it.unical.xpoll.security.JwtTokenProvider;
+import it.unical.xpoll.security.PrincipalCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//Password reset tokens (only their hash is stored and looked up) and profile changes.
+class UserServiceTest {
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final PrincipalCache principalCache = mock(PrincipalCache.class);
+    private final UserService userService = new UserService(userRepository, emailService, passwordEncoder,
+            mock(JwtTokenProvider.class), principalCache, mock(ParticipationSummaryService.class));
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void storesTheHashOfTheEmailedTokenOnly() {
+        User user = user();
+        when(userRepository.findByEmail("anna@example.com")).thenReturn(Optional.of(user));
+
+        userService.requestPasswordReset("anna@example.com");
+
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(emailService).sendPasswordResetEmail(any(), token.capture());
+        assertThat(user.getResetTokenHash()).hasSize(64).isNotEqualTo(token.getValue());
+        assertThat(user.getResetTokenExpiry()).isAfter(LocalDateTime.now());
+    }
+
+    @Test
+    void resetFindsTheUserByTheTokenHashAndClearsIt() {
+        User user = user();
+        when(userRepository.findByEmail("anna@example.com")).thenReturn(Optional.of(user));
+        userService.requestPasswordReset("anna@example.com");
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(emailService).sendPasswordResetEmail(any(), token.capture());
+
+        when(userRepository.findByResetTokenHash(user.getResetTokenHash())).thenReturn(Optional.of(user));
+        when(passwordEncoder.encode("new-password")).thenReturn("encoded");
+
+        userService.resetPassword(token.getValue(), "new-password");
+
+        assertThat(user.getPassword()).isEqualTo("encoded");
+        assertThat(user.getResetTokenHash()).isNull();
+        assertThat(user.getResetTokenExpiry()).isNull();
+        verify(principalCache).invalidate(1L);
+    }
+
+    @Test
+    void unknownTokenIsRejected() {
+        when(userRepository.findByResetTokenHash(anyString())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> userService.resetPassword("not-a-token", "new-password"))
+                .hasMessageContaining("Invalid or expired reset token");
+        verify(passwordEncoder, never()).encode(any());
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        User user = user();
+        user.setResetTokenHash("hash");
+        user.setResetTokenExpiry(LocalDateTime.now().minusMinutes(1));
+        when(userRepository.findByResetTokenHash(anyString())).thenReturn(Optional.of(user));
+
+        assertThatThrownBy(() -> userService.resetPassword("token", "new-password"))
+                .hasMessageContaining("Reset token has expired");
+        assertThat(user.getResetTokenHash()).isEqualTo("hash");
+    }
+
+    @Test
+    void usernameIsChangedOnTheStoredUserNotOnThePrincipal() {
+        User principal = user();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+        User stored = user();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(userRepository.findByUsername("anna2")).thenReturn(Optional.empty());
+        when(userRepository.save(stored)).thenThrow(new IllegalStateException("database down"));
+
+        assertThatThrownBy(() -> userService.updateUsername("anna2")).hasMessageContaining("database down");
+        assertThat(principal.getUsername()).isEqualTo("anna");
+        verify(principalCache, never()).invalidate(any());
+    }
+
+    private static User user() {
+        return User.builder().id(1L).email("anna@example.com").username("anna").password("old").build();
+    }
+}
@@ -0,0 +1,113 @@
+package it.unical.xpoll.service.ai.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.OptionData;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.PollData;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.QuestionData;
+import it.unical.xpoll.service.ai.strategy.AnswerGenerationStrategy;
+import it.unical.xpoll.service.ai.strategy.PollGenerationStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AIResultCacheTest {
+    private static final PollData POLL = new PollData("Roman Empire", "A quiz",
+            List.of(new QuestionData("First emperor?", List.of(new OptionData("Augustus", 1, true),
+                    new OptionData("Nero", 0, false)))));
+    private static final List<OptionData> ANSWERS = List.of(new OptionData("Rome", 1, true),
+            new OptionData("Milan", 0, false));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void promptsDifferingInCaseAndWhitespaceShareOneEntry() {
+        AIResultCache cache = new AIResultCache(objectMapper, 10, 60, "");
+
+        cache.putPoll("  Roman\tEmpire ", PollGenerationStrategy.class, POLL);
+
+        assertThat(cache.getPoll("roman   empire", PollGenerationStrategy.class)).contains(POLL);
+        assertThat(cache.getPoll("roman empire", AnswerGenerationStrategy.class)).isEmpty();
+        assertThat(cache.getAnswers("roman empire", 0, AnswerGenerationStrategy.class)).isEmpty();
+    }
+
+    @Test
+    void answersAreKeyedByTheirNumber() {
+        AIResultCache cache = new AIResultCache(objectMapper, 10, 60, "");
+
+        cache.putAnswers("Capital of Italy?", 2, AnswerGenerationStrategy.class, ANSWERS);
+
+        assertThat(cache.getAnswers("capital of italy?", 2, AnswerGenerationStrategy.class)).contains(ANSWERS);
+        assertThat(cache.getAnswers("capital of italy?", 4, AnswerGenerationStrategy.class)).isEmpty();
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        AIResultCache cache = new AIResultCache(objectMapper, 2, 60, "");
+        cache.putPoll("first", PollGenerationStrategy.class, POLL);
+        cache.putPoll("second", PollGenerationStrategy.class, POLL);
+        cache.getPoll("first", PollGenerationStrategy.class);
+
+        cache.putPoll("third", PollGenerationStrategy.class, POLL);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getPoll("second", PollGenerationStrategy.class)).isEmpty();
+        assertThat(cache.getPoll("first", PollGenerationStrategy.class)).isPresent();
+        assertThat(cache.getPoll("third", PollGenerationStrategy.class)).isPresent();
+    }
+
+    @Test
+    void expiredEntriesAreDropped() {
+        AIResultCache cache = new AIResultCache(objectMapper, 10, 0, "");
+
+        cache.putPoll("Roman Empire", PollGenerationStrategy.class, POLL);
+
+        assertThat(cache.getPoll("Roman Empire", PollGenerationStrategy.class)).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void zeroSizeDisablesTheCache() {
+        AIResultCache cache = new AIResultCache(objectMapper, 0, 60, "");
+
+        cache.putPoll("Roman Empire", PollGenerationStrategy.class, POLL);
+
+        assertThat(cache.getPoll("Roman Empire", PollGenerationStrategy.class)).isEmpty();
+    }
+
+    @Test
+    void entriesSurviveARestartThroughTheCacheFile() {
+        String file = dir.resolve("ai-cache.json").toString();
+        AIResultCache cache = new AIResultCache(objectMapper, 10, 60, file);
+        cache.putPoll("Roman Empire", PollGenerationStrategy.class, POLL);
+        cache.putAnswers("Capital of Italy?", 2, AnswerGenerationStrategy.class, ANSWERS);
+
+        cache.stop();
+        AIResultCache restarted = new AIResultCache(objectMapper, 10, 60, file);
+        restarted.load();
+
+        assertThat(restarted.getPoll("roman empire", PollGenerationStrategy.class)).contains(POLL);
+        assertThat(restarted.getAnswers("capital of italy?", 2, AnswerGenerationStrategy.class)).contains(ANSWERS);
+    }
+
+    @Test
+    void expiredEntriesAreNotLoaded() {
+        String file = dir.resolve("ai-cache.json").toString();
+        AIResultCache cache = new AIResultCache(objectMapper, 10, 0, file);
+        cache.putPoll("Roman Empire", PollGenerationStrategy.class, POLL);
+        cache.save();
+
+        AIResultCache restarted = new AIResultCache(objectMapper, 10, 60, file);
+        restarted.load();
+
+        assertThat(Files.exists(Path.of(file))).isTrue();
+        assertThat(restarted.size()).isZero();
+    }
+}
@@ -0,0 +1,170 @@
+package it.unical.xpoll.service.ai.exec;
+
+import it.unical.xpoll.service.ai.strategy.PromptStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AIExecutorTest {
+    private final OneSecondStrategy strategy = new OneSecondStrategy();
+    private final AIExecutor executor = new AIExecutor(List.of(strategy), 1, 5, 1, false);
+
+    @AfterEach
+    void tearDown() {
+        executor.stop();
+    }
+
+    @Test
+    void permitIsHeldUntilATimedOutCallReallyEnds() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Like an HTTP client that ignores interrupts
+        assertThatThrownBy(() -> executor.execute(strategy, "slow", () -> awaitIgnoringInterrupts(release)))
+                .isInstanceOf(AIUnavailableException.class)
+                .satisfies(e -> assertThat(((AIUnavailableException) e).isTimedOut()).isTrue());
+
+        assertThat(executor.availablePermits(strategy)).isZero();
+        assertThatThrownBy(() -> executor.execute(strategy, "other", () -> "ok"))
+                .isInstanceOf(AIUnavailableException.class)
+                .satisfies(e -> assertThat(((AIUnavailableException) e).isTimedOut()).isFalse());
+
+        release.countDown();
+        waitFor(() -> executor.availablePermits(strategy) == 1);
+        assertThat(executor.execute(strategy, "other", () -> "ok")).isEqualTo("ok");
+        assertThat(executor.inFlight()).isZero();
+    }
+
+    @Test
+    void lastWaiterLeavingInterruptsTheCall() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> executor.execute(strategy, "slow", () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        })).isInstanceOf(AIUnavailableException.class);
+
+        assertThat(interrupted.await(2, TimeUnit.SECONDS)).isTrue();
+        waitFor(() -> executor.availablePermits(strategy) == 1);
+    }
+
+    @Test
+    void identicalPromptsShareOneCall() throws Exception {
+        AtomicInteger modelCalls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> executor.execute(strategy, "same", () -> {
+            modelCalls.incrementAndGet();
+            started.countDown();
+            release.await();
+            return "poll";
+        }));
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        // Would be rejected if it needed its own permit
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> executor.execute(strategy, "same", () -> {
+            modelCalls.incrementAndGet();
+            return "other";
+        }));
+        waitFor(() -> executor.inFlight() == 1);
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(first.get(2, TimeUnit.SECONDS)).isEqualTo("poll");
+        assertThat(second.get(2, TimeUnit.SECONDS)).isEqualTo("poll");
+        assertThat(modelCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void joinerKeepsWaitingAfterTheFirstCallerTimesOut() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> executor.execute(strategy, "same", () -> {
+            started.countDown();
+            release.await();
+            return "poll";
+        }));
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(600);
+        CompletableFuture<String> joiner = CompletableFuture.supplyAsync(() -> executor.execute(strategy, "same", () -> "other"));
+
+        // The first caller's second is up; the joiner still has about 600ms
+        assertThatThrownBy(() -> first.get(2, TimeUnit.SECONDS)).hasMessageContaining("timed out");
+        release.countDown();
+
+        assertThat(joiner.get(2, TimeUnit.SECONDS)).isEqualTo("poll");
+    }
+
+    @Test
+    void joinersBeyondTheLimitFailAtOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> executor.execute(strategy, "same", () -> {
+            started.countDown();
+            release.await();
+            return "poll";
+        }));
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> joiner = CompletableFuture.supplyAsync(() -> executor.execute(strategy, "same", () -> "other"));
+        Thread.sleep(100);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> executor.execute(strategy, "same", () -> "other"))
+                .isInstanceOf(AIUnavailableException.class)
+                .satisfies(e -> assertThat(((AIUnavailableException) e).isTimedOut()).isFalse());
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+
+        release.countDown();
+        assertThat(first.get(2, TimeUnit.SECONDS)).isEqualTo("poll");
+        assertThat(joiner.get(2, TimeUnit.SECONDS)).isEqualTo("poll");
+    }
+
+    private static String awaitIgnoringInterrupts(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return "late";
+            } catch (InterruptedException e) {
+                // keeps going, as a blocking socket read would
+            }
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(20);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static final class OneSecondStrategy implements PromptStrategy {
+        @Override
+        public String buildPrompt(String input) {
+            return input;
+        }
+
+        @Override
+        public String getSystemInstruction() {
+            return "";
+        }
+
+        @Override
+        public int getTimeoutSeconds() {
+            return 1;
+        }
+    }
+}
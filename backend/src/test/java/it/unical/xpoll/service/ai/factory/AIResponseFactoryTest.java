@@ -0,0 +1,82 @@
+package it.unical.xpoll.service.ai.factory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.OptionData;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.PollData;
+import it.unical.xpoll.service.ai.factory.AIResponseFactory.QuestionData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AIResponseFactoryTest {
+    private final AIResponseFactory factory = new AIResponseFactory(new ObjectMapper());
+
+    @Test
+    void readsThePollOutOfAMarkdownFence() {
+        String response = """
+                Here is your poll:
+                ```json
+                {"title": " <b>Rome</b> {quiz}", "description": "Say \\"}\\"", "extra": {"ignored": [1, 2]},
+                 "questions": [
+                   {"text": "First emperor?", "hint": "none", "options": [
+                     {"text": "Augustus", "points": 1, "isCorrect": true}, {"text": "Nero"}]},
+                   {"text": "Only one option", "options": [{"text": "Alone"}]}
+                 ]}
+                ```""";
+
+        PollData poll = factory.createPollFromJson(response);
+
+        assertThat(poll).isEqualTo(new PollData("Rome {quiz}", "Say \"}\"", List.of(
+                new QuestionData("First emperor?", List.of(new OptionData("Augustus", 1, true),
+                        new OptionData("Nero", 0, false))))));
+    }
+
+    @Test
+    void pollWithoutValidQuestionsOrUnclosedIsRejected() {
+        assertThat(factory.createPollFromJson("{\"title\": \"Empty\", \"questions\": []}")).isNull();
+        assertThat(factory.createPollFromJson("{\"title\": \"Cut\", \"questions\": [{\"text\": ")).isNull();
+        assertThat(factory.createPollFromJson("no json here")).isNull();
+        assertThat(factory.createPollFromJson("  ")).isNull();
+    }
+
+    @Test
+    void readsTheAnswersArrayAndNeedsTwoOptions() {
+        assertThat(factory.createAnswersFromJson("Options: [{\"text\": \"<i>Rome</i>\", \"points\": 1}, \"skip\", "
+                + "{\"text\": \"Milan\", \"isCorrect\": false}] done"))
+                .containsExactly(new OptionData("Rome", 1, false), new OptionData("Milan", 0, false));
+        assertThat(factory.createAnswersFromJson("[{\"text\": \"Rome\"}]")).isNull();
+        assertThat(factory.createAnswersFromJson("[{\"text\": \"Rome\"}")).isNull();
+    }
+
+    @Test
+    void readsStreamedFragments() {
+        assertThat(factory.createQuestionFromJson(
+                "{\"text\": \"Capital?\", \"options\": [{\"text\": \"Rome\"}, {\"text\": \"Milan\"}]}"))
+                .isEqualTo(new QuestionData("Capital?", List.of(new OptionData("Rome", 0, false),
+                        new OptionData("Milan", 0, false))));
+        assertThat(factory.createQuestionFromJson("{\"text\": \"Capital?\", \"options\": []}")).isNull();
+        assertThat(factory.createTextFromJson("\" <p>Capitals</p> \"")).isEqualTo("Capitals");
+        assertThat(factory.createTextFromJson("\"cut")).isEmpty();
+    }
+
+    @Test
+    void closingIndexSkipsBracketsInsideStrings() {
+        char[] text = "x{\"a\": \"}]\\\"{\", \"b\": [1, {}]} tail".toCharArray();
+
+        assertThat(AIResponseFactory.closingIndex(text, 1)).isEqualTo(new String(text).indexOf(" tail") - 1);
+        assertThat(AIResponseFactory.closingIndex("{\"a\": [1, 2]".toCharArray(), 0)).isEqualTo(-1);
+    }
+
+    @Test
+    void sanitizeDropsTagsAndTrims() {
+        String clean = "Capital of Italy";
+
+        assertThat(AIResponseFactory.sanitize(clean)).isSameAs(clean);
+        assertThat(AIResponseFactory.sanitize("  Capital  ")).isEqualTo("Capital");
+        assertThat(AIResponseFactory.sanitize(" <b> Bold</b> and <i>italic</i> ")).isEqualTo("Bold and italic");
+        assertThat(AIResponseFactory.sanitize("1 < 2")).isEqualTo("1 < 2");
+        assertThat(AIResponseFactory.sanitize(null)).isEmpty();
+    }
+}
@@ -0,0 +1,69 @@
+package it.unical.xpoll.service.ai.provider;
+
+import it.unical.xpoll.service.ai.strategy.AnswerGenerationStrategy;
+import it.unical.xpoll.service.ai.strategy.PollGenerationStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StubAIProviderTest {
+
+    @Test
+    void sameSeedDrawsTheSameLatencies() {
+        List<Long> first = latencies(new StubAIProvider("exponential", 800, 0, 0, 1, 40, 7));
+        List<Long> second = latencies(new StubAIProvider("exponential", 800, 0, 0, 1, 40, 7));
+        List<Long> otherSeed = latencies(new StubAIProvider("exponential", 800, 0, 0, 1, 40, 8));
+
+        assertThat(first).isEqualTo(second);
+        assertThat(first).isNotEqualTo(otherSeed);
+    }
+
+    @Test
+    void latenciesFollowTheConfiguredDistribution() {
+        assertThat(latencies(new StubAIProvider("fixed", 800, 200, 0, 1, 40, 42))).containsOnly(800L);
+        assertThat(latencies(new StubAIProvider(" Uniform ", 800, 200, 0, 1, 40, 42)))
+                .allMatch(latency -> latency >= 600 && latency <= 1000);
+        assertThat(latencies(new StubAIProvider("exponential", 800, 0, 0, 1, 40, 42)))
+                .allMatch(latency -> latency >= 0);
+    }
+
+    @Test
+    void streamedChunksAddUpToTheWholeResponse() {
+        StubAIProvider provider = new StubAIProvider("fixed", 0, 0, 0, 3, 7, 42);
+        List<String> chunks = new ArrayList<>();
+
+        boolean completed = provider.stream("Rome", new PollGenerationStrategy(), chunks::add);
+
+        assertThat(completed).isTrue();
+        assertThat(chunks).allMatch(chunk -> chunk.length() <= 7);
+        assertThat(String.join("", chunks)).isEqualTo(provider.generate("Rome", new PollGenerationStrategy()));
+    }
+
+    @Test
+    void answerStrategyGetsAnArrayOfFourOptions() {
+        StubAIProvider provider = new StubAIProvider("fixed", 0, 0, 0, 3, 40, 42);
+
+        String answers = provider.generate("Capital of Italy?", new AnswerGenerationStrategy());
+
+        assertThat(answers).startsWith("[").endsWith("]");
+        assertThat(answers.split("\"text\"")).hasSize(5);
+    }
+
+    @Test
+    void failingCallsReturnNullOrStopTheStreamHalfway() {
+        StubAIProvider provider = new StubAIProvider("fixed", 0, 0, 1, 3, 7, 42);
+        List<String> chunks = new ArrayList<>();
+
+        assertThat(provider.generate("Rome", new PollGenerationStrategy())).isNull();
+        assertThat(provider.stream("Rome", new PollGenerationStrategy(), chunks::add)).isFalse();
+        assertThat(chunks).isNotEmpty();
+    }
+
+    private static List<Long> latencies(StubAIProvider provider) {
+        return LongStream.range(0, 20).map(i -> provider.sampleLatency()).boxed().toList();
+    }
+}
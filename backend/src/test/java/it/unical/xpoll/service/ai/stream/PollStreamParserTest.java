@@ -0,0 +1,86 @@
+package it.unical.xpoll.service.ai.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PollStreamParserTest {
+    private static final String POLL = """
+            {"title": "Capitals {of} \\"Europe\\"", "description": "A [short] quiz",
+             "questions": [
+               {"text": "Capital of Italy?", "options": [{"text": "Rome", "isCorrect": true}]},
+               {"text": "Say \\"}\\"", "options": []}
+             ]}""";
+
+    private final List<String> events = new ArrayList<>();
+    private final PollStreamParser parser = recordingParser();
+
+    @Test
+    void reportsFieldsAndQuestionsIgnoringBracketsInsideStrings() {
+        parser.feed(POLL);
+
+        assertThat(events).containsExactly(
+                "title=\"Capitals {of} \\\"Europe\\\"\"",
+                "description=\"A [short] quiz\"",
+                "question {\"text\": \"Capital of Italy?\", \"options\": [{\"text\": \"Rome\", \"isCorrect\": true}]}",
+                "question {\"text\": \"Say \\\"}\\\"\", \"options\": []}");
+        assertThat(parser.isFinished()).isTrue();
+    }
+
+    @Test
+    void chunkBoundariesDoNotChangeTheEvents() {
+        parser.feed(POLL);
+        List<String> whole = List.copyOf(events);
+
+        for (int size = 1; size <= 7; size++) {
+            events.clear();
+            PollStreamParser chunked = recordingParser();
+            for (int i = 0; i < POLL.length(); i += size) {
+                chunked.feed(POLL.substring(i, Math.min(POLL.length(), i + size)));
+            }
+
+            assertThat(events).isEqualTo(whole);
+            assertThat(chunked.isFinished()).isTrue();
+        }
+    }
+
+    @Test
+    void questionIsReportedOnlyOnceItsObjectCloses() {
+        parser.feed("{\"questions\": [{\"text\": \"Capital of Italy?\", \"options\": [");
+
+        assertThat(events).isEmpty();
+
+        parser.feed("]}");
+
+        assertThat(events).containsExactly("question {\"text\": \"Capital of Italy?\", \"options\": []}");
+        assertThat(parser.isFinished()).isFalse();
+    }
+
+    @Test
+    void ignoresTextBeforeTheObjectAndAfterItCloses() {
+        parser.feed("```json\n");
+        parser.feed("{\"title\": \"Quiz\"}\n```");
+        parser.feed("{\"title\": \"Again\"}");
+
+        assertThat(events).containsExactly("title=\"Quiz\"");
+        assertThat(parser.isFinished()).isTrue();
+    }
+
+    //Records every event as "name=raw" or "question raw" into events
+    private PollStreamParser recordingParser() {
+        return new PollStreamParser(new PollStreamParser.Listener() {
+            @Override
+            public void onField(String name, String rawJson) {
+                events.add(name + "=" + rawJson);
+            }
+
+            @Override
+            public void onQuestion(String rawJson) {
+                events.add("question " + rawJson);
+            }
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package it.unical.xpoll.service.broadcast;
+
+import it.unical.xpoll.XPollApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Runs two application contexts against the same local database and checks that
+//a broadcast sent by one node reaches a subscriber connected to the other one.
+//Needs the PostgreSQL of docker-compose running, so it only runs with XPOLL_MULTINODE_TESTS=true.
+@Tag("multinode")
+@EnabledIfEnvironmentVariable(named = "XPOLL_MULTINODE_TESTS", matches = "true")
+class MultiNodeBroadcastTest {
+
+    @Test
+    void broadcastReachesSubscriberOnOtherNode() throws Exception {
+        try (ConfigurableApplicationContext nodeA = startNode();
+                ConfigurableApplicationContext nodeB = startNode()) {
+            int portB = nodeB.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+
+            WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+            StompSession stompSession = stompClient
+                    .connectAsync("ws://localhost:" + portB + "/ws/websocket", new StompSessionHandlerAdapter() {
+                    })
+                    .get(5, TimeUnit.SECONDS);
+
+            BlockingQueue<String> received = new LinkedBlockingQueue<>();
+            stompSession.subscribe("/topic/session/TEST23", new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    received.add(new String((byte[]) payload, StandardCharsets.UTF_8));
+                }
+            });
+
+            //Subscription is asynchronous: keeps publishing from node A until node B delivers.
+            SessionBroadcaster broadcasterA = nodeA.getBean(SessionBroadcaster.class);
+            String message = null;
+            for (int attempt = 0; attempt < 20 && message == null; attempt++) {
+                broadcasterA.broadcast("TEST23", Map.of("type", "PING"));
+                message = received.poll(500, TimeUnit.MILLISECONDS);
+            }
+
+            assertThat(message).contains("PING");
+            stompSession.disconnect();
+        }
+    }
+
+    private ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(XPollApplication.class)
+                .properties(
+                        "server.port=0",
+                        "app.websocket.broker=postgres",
+                        "spring.docker.compose.enabled=false",
+                        "gemini.api.key=test",
+                        "spring.security.oauth2.client.registration.google.client-id=test",
+                        "spring.security.oauth2.client.registration.google.client-secret=test")
+                .run();
+    }
+}
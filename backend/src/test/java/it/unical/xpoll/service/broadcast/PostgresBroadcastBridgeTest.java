@@ -0,0 +1,123 @@
+package it.unical.xpoll.service.broadcast;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+//Splitting and reassembly of NOTIFY payloads, without a database.
+class PostgresBroadcastBridgeTest {
+    private static final String DESTINATION = "/topic/session/ABC123/leaderboard";
+
+    @Test
+    void smallUpdateFitsInOnePayload() {
+        List<String> payloads = PostgresBroadcastBridge.split("node-a", 1, DESTINATION, "{\"type\":\"PING\"}");
+
+        assertThat(payloads).hasSize(1);
+        PostgresBroadcastBridge.Parts.Update update = new PostgresBroadcastBridge.Parts(1000).add(payloads.get(0), 0);
+        assertThat(update.destination()).isEqualTo(DESTINATION);
+        assertThat(update.json()).isEqualTo("{\"type\":\"PING\"}");
+    }
+
+    @Test
+    void largeUpdateIsSplitWithinTheNotifyLimitAndReassembledInAnyOrder() {
+        String json = largeJson();
+        List<String> payloads = new ArrayList<>(PostgresBroadcastBridge.split("node-a", 7, DESTINATION, json));
+
+        assertThat(payloads.size()).isGreaterThan(2);
+        assertThat(payloads).allMatch(payload ->
+                payload.getBytes(StandardCharsets.UTF_8).length <= PostgresBroadcastBridge.MAX_PAYLOAD_BYTES);
+
+        Collections.reverse(payloads);
+        PostgresBroadcastBridge.Parts parts = new PostgresBroadcastBridge.Parts(1000);
+        PostgresBroadcastBridge.Parts.Update update = null;
+        for (String payload : payloads) {
+            assertThat(update).isNull();
+            update = parts.add(payload, 0);
+        }
+
+        assertThat(update.destination()).isEqualTo(DESTINATION);
+        assertThat(update.json()).isEqualTo(json);
+        assertThat(parts.pendingCount()).isZero();
+    }
+
+    @Test
+    void incompleteUpdatesExpire() {
+        List<String> payloads = PostgresBroadcastBridge.split("node-a", 7, DESTINATION, largeJson());
+        PostgresBroadcastBridge.Parts parts = new PostgresBroadcastBridge.Parts(1000);
+
+        assertThat(parts.add(payloads.get(0), 0)).isNull();
+        assertThat(parts.pendingCount()).isEqualTo(1);
+
+        // The rest never arrives: the next notification drops it
+        parts.add(PostgresBroadcastBridge.split("node-b", 1, DESTINATION, "{}").get(0), 5000);
+        assertThat(parts.pendingCount()).isZero();
+    }
+
+    @Test
+    void partsOfDifferentNodesAreNotMixed() {
+        String json = largeJson();
+        List<String> fromA = PostgresBroadcastBridge.split("node-a", 1, DESTINATION, json);
+        List<String> fromB = PostgresBroadcastBridge.split("node-b", 1, DESTINATION, json.replace('é', 'e'));
+        PostgresBroadcastBridge.Parts parts = new PostgresBroadcastBridge.Parts(1000);
+
+        List<PostgresBroadcastBridge.Parts.Update> updates = new ArrayList<>();
+        for (int i = 0; i < Math.max(fromA.size(), fromB.size()); i++) {
+            for (List<String> payloads : List.of(fromA, fromB)) {
+                if (i < payloads.size()) {
+                    PostgresBroadcastBridge.Parts.Update update = parts.add(payloads.get(i), 0);
+                    if (update != null) {
+                        updates.add(update);
+                    }
+                }
+            }
+        }
+
+        assertThat(updates).hasSize(2);
+        assertThat(updates.get(0).json()).isEqualTo(json);
+        assertThat(updates.get(1).json()).isEqualTo(json.replace('é', 'e'));
+    }
+
+    @Test
+    void clusterEventsGoToTheListenersInsteadOfTheBroker() {
+        SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+        PostgresBroadcastBridge bridge = new PostgresBroadcastBridge(messagingTemplate, null, null);
+        List<String> received = new ArrayList<>();
+        bridge.subscribe(received::add);
+        bridge.subscribe(event -> {
+            throw new IllegalStateException("listener failed");
+        });
+
+        for (String payload : PostgresBroadcastBridge.split("node-b", 1, PostgresBroadcastBridge.CLUSTER_DESTINATION,
+                largeJson())) {
+            bridge.deliver(payload);
+        }
+        bridge.deliver(PostgresBroadcastBridge.split("node-b", 2, PostgresBroadcastBridge.CLUSTER_DESTINATION,
+                "{\"type\":\"CLOSED\"}").get(0));
+
+        assertThat(received).containsExactly(largeJson(), "{\"type\":\"CLOSED\"}");
+        verify(messagingTemplate, never()).send(anyString(), any());
+    }
+
+    //A leaderboard-sized update with multi-byte characters, so slices are cut by bytes, not chars
+    private static String largeJson() {
+        StringBuilder json = new StringBuilder("{\"type\":\"LEADERBOARD\",\"entries\":[");
+        for (int i = 0; i < 400; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"name\":\"Participant é ").append(i).append(" 🎉\",\"score\":").append(i).append('}');
+        }
+        return json.append("]}").toString();
+    }
+}
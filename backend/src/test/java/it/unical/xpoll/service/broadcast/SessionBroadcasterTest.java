@@ -0,0 +1,105 @@
+package it.unical.xpoll.service.broadcast;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SessionBroadcasterTest {
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final SessionBroadcaster broadcaster = new SessionBroadcaster(messagingTemplate,
+            mock(ObjectProvider.class));
+    private final ArgumentCaptor<String> destinations = ArgumentCaptor.forClass(String.class);
+    private final ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+
+    @Test
+    void updatesInsideTheWindowGoOutAsOneBatchBeforeTheNextUpdate() {
+        window(10_000);
+        Map<String, Object> joined = message("PARTICIPANT_JOINED", 1);
+        Map<String, Object> firstVote = message("VOTE_SUBMITTED", 1);
+        Map<String, Object> secondVote = message("VOTE_SUBMITTED", 2);
+        Map<String, Object> closed = message("SESSION_CLOSED", 0);
+
+        broadcaster.broadcast("abc123", joined);
+        broadcaster.broadcast("abc123", firstVote);
+        broadcaster.broadcast("abc123", secondVote);
+        verify(messagingTemplate, never()).convertAndSend(destinations.capture(), payloads.capture());
+
+        broadcaster.broadcast("abc123", closed);
+
+        verify(messagingTemplate, times(2)).convertAndSend(destinations.capture(), payloads.capture());
+        assertThat(destinations.getAllValues()).containsOnly("/topic/session/ABC123");
+        assertThat(payloads.getAllValues()).containsExactly(
+                Map.of("type", "BATCH", "events", List.of(joined, firstVote, secondVote)), closed);
+    }
+
+    @Test
+    void singlePendingUpdateIsSentUnwrappedWhenTheWindowEnds() throws InterruptedException {
+        window(20);
+        Map<String, Object> vote = message("VOTE_SUBMITTED", 1);
+
+        broadcaster.broadcast("ABC123", vote);
+        Thread.sleep(300);
+
+        verify(messagingTemplate).convertAndSend(destinations.capture(), payloads.capture());
+        assertThat(payloads.getValue()).isEqualTo(vote);
+    }
+
+    @Test
+    void sessionsAreBufferedSeparatelyAndFlushedOnStop() {
+        window(10_000);
+        Map<String, Object> first = message("PRESENCE_CHANGED", 1);
+        Map<String, Object> second = message("PARTICIPANT_LEFT", 2);
+
+        broadcaster.broadcast("AAA111", first);
+        broadcaster.broadcast("BBB222", second);
+        broadcaster.stop();
+
+        verify(messagingTemplate, times(2)).convertAndSend(destinations.capture(), payloads.capture());
+        assertThat(destinations.getAllValues()).containsExactlyInAnyOrder("/topic/session/AAA111",
+                "/topic/session/BBB222");
+        assertThat(payloads.getAllValues()).containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    void zeroWindowSendsEveryUpdateRightAway() {
+        window(0);
+        Map<String, Object> vote = message("VOTE_SUBMITTED", 1);
+
+        broadcaster.broadcast("ABC123", vote);
+
+        verify(messagingTemplate).convertAndSend(destinations.capture(), payloads.capture());
+        assertThat(payloads.getValue()).isEqualTo(vote);
+    }
+
+    @Test
+    void leaderboardUpdatesAreNeverBuffered() {
+        window(10_000);
+        Map<String, Object> leaderboard = message("LEADERBOARD", 0);
+
+        broadcaster.broadcastLeaderboard("abc123", leaderboard);
+
+        verify(messagingTemplate).convertAndSend(destinations.capture(), payloads.capture());
+        assertThat(destinations.getValue()).isEqualTo("/topic/session/ABC123/leaderboard");
+        assertThat(payloads.getValue()).isEqualTo(leaderboard);
+    }
+
+    private void window(long millis) {
+        ReflectionTestUtils.setField(broadcaster, "coalesceWindowMs", millis);
+    }
+
+    private static Map<String, Object> message(String type, long participantId) {
+        return Map.of("type", type, "participantId", participantId);
+    }
+}
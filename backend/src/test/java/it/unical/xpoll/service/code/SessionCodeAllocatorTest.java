@@ -0,0 +1,86 @@
+package it.unical.xpoll.service.code;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Two allocators share one block source, as two nodes share the database sequence.
+class SessionCodeAllocatorTest {
+
+    @Test
+    void concurrentAllocationsOnTwoNodesAreUnique() throws Exception {
+        AtomicLong blocks = new AtomicLong();
+        SessionCodeAllocator nodeA = new SessionCodeAllocator(blocks::getAndIncrement, code -> false);
+        SessionCodeAllocator nodeB = new SessionCodeAllocator(blocks::getAndIncrement, code -> false);
+
+        int threads = 8;
+        int perThread = 5_000;
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                SessionCodeAllocator allocator = t % 2 == 0 ? nodeA : nodeB;
+                Callable<Integer> task = () -> {
+                    start.await();
+                    int duplicates = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        if (!codes.add(allocator.allocate())) {
+                            duplicates++;
+                        }
+                    }
+                    return duplicates;
+                };
+                results.add(executor.submit(task));
+            }
+            start.countDown();
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get()).isZero();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(codes).hasSize(threads * perThread);
+        assertThat(codes).allMatch(code -> code.length() == SessionCodeAllocator.CODE_LENGTH
+                && code.chars().allMatch(c -> SessionCodeAllocator.ALPHABET.indexOf(c) >= 0));
+    }
+
+    @Test
+    void skipsExistingCodesAndRecyclesReleasedOnes() {
+        AtomicLong blocks = new AtomicLong();
+        List<String> firstBlock = new ArrayList<>();
+        SessionCodeAllocator probe = new SessionCodeAllocator(blocks::getAndIncrement, code -> false);
+        for (int i = 0; i < SessionCodeAllocator.BLOCK_SIZE; i++) {
+            firstBlock.add(probe.allocate());
+        }
+
+        // Same counter range, but the first two codes belong to sessions from before the allocator
+        blocks.set(0);
+        Set<String> legacyCodes = Set.of(firstBlock.get(0), firstBlock.get(1));
+        List<String> probed = new ArrayList<>();
+        SessionCodeAllocator allocator = new SessionCodeAllocator(blocks::getAndIncrement, code -> {
+            probed.add(code);
+            return legacyCodes.contains(code);
+        });
+        assertThat(allocator.allocate()).isEqualTo(firstBlock.get(2));
+        assertThat(probed).containsExactly(firstBlock.get(0), firstBlock.get(1), firstBlock.get(2));
+
+        allocator.release(firstBlock.get(0));
+        assertThat(allocator.allocate()).isEqualTo(firstBlock.get(0));
+        assertThat(allocator.allocate()).isEqualTo(firstBlock.get(3));
+    }
+}
@@ -0,0 +1,208 @@
+package it.unical.xpoll.service.ingestion;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//Runs the writer against an in-memory stand-in for the votes and participants tables.
+class VoteBatchWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void spilledSubmissionsAreReplayedOnceTheDatabaseIsBack() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        VoteBatchWriter writer = writer(database);
+
+        database.down = true;
+        assertThat(writer.write(List.of(submission(1L, 10L, 1, 1), submission(2L, 20L, 2, 1)))).isFalse();
+        assertThat(Files.readAllLines(spillFile())).hasSize(2);
+        assertThat(database.votes).isEmpty();
+
+        database.down = false;
+        assertThat(writer.replaySpill()).isTrue();
+        assertThat(Files.exists(spillFile())).isFalse();
+        assertThat(database.votes).hasSize(2);
+        assertThat(database.scores.get(1L)).containsExactly(1, 1);
+        assertThat(database.scores.get(2L)).containsExactly(2, 1);
+    }
+
+    @Test
+    void replayNeverOverwritesANewerScore() {
+        FakeDatabase database = new FakeDatabase();
+        VoteBatchWriter writer = writer(database);
+
+        database.down = true;
+        writer.write(List.of(submission(1L, 10L, 1, 1)));
+        // The participant answers another question once the database is back, before the replay
+        database.down = false;
+        writer.write(List.of(submission(1L, 11L, 3, 2)));
+
+        assertThat(writer.replaySpill()).isTrue();
+        assertThat(database.votes).hasSize(2);
+        assertThat(database.scores.get(1L)).containsExactly(3, 2);
+    }
+
+    @Test
+    void rejectedLinesAreQuarantinedAndTheOthersReplayed() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        VoteBatchWriter writer = writer(database);
+
+        database.down = true;
+        writer.write(List.of(submission(1L, 10L, 1, 1), submission(2L, 20L, 1, 1), submission(3L, 30L, 1, 1)));
+        Files.write(spillFile(), List.of("not a submission"), StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+        database.down = false;
+        database.rejected.add(2L);
+
+        assertThat(writer.replaySpill()).isTrue();
+        assertThat(Files.exists(spillFile())).isFalse();
+        assertThat(database.scores.keySet()).containsExactlyInAnyOrder(1L, 3L);
+        List<String> rejected = Files.readAllLines(dir.resolve("vote-spill.log.rejected"));
+        assertThat(rejected).hasSize(2);
+        assertThat(rejected.get(0)).startsWith("7;2;");
+        assertThat(rejected.get(1)).isEqualTo("not a submission");
+    }
+
+    @Test
+    void linesStayInTheSpillFileWhileTheDatabaseIsDown() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        VoteBatchWriter writer = writer(database);
+
+        database.down = true;
+        writer.write(List.of(submission(1L, 10L, 1, 1), submission(2L, 20L, 1, 1)));
+        database.failAfter = 1;
+        database.down = false;
+
+        assertThat(writer.replaySpill()).isFalse();
+        assertThat(database.votes).hasSize(1);
+        List<String> left = Files.readAllLines(spillFile());
+        assertThat(left).hasSize(1);
+        assertThat(left.get(0)).startsWith("7;2;");
+        assertThat(Files.exists(dir.resolve("vote-spill.log.rejected"))).isFalse();
+    }
+
+    @Test
+    void votesOfRemovedParticipantsAreSkipped() {
+        FakeDatabase database = new FakeDatabase();
+        database.removed.add(1L);
+        VoteBatchWriter writer = writer(database);
+
+        assertThat(writer.write(List.of(submission(1L, 10L, 1, 1), submission(2L, 20L, 1, 1)))).isTrue();
+        assertThat(database.votes).hasSize(1);
+    }
+
+    @Test
+    void spillLinesRoundTrip() {
+        PendingSubmission submission = new PendingSubmission(7L, 1L,
+                List.of(new PendingSubmission.PendingVote(10L, 100L), new PendingSubmission.PendingVote(11L, 110L)),
+                Instant.ofEpochMilli(1_700_000_000_000L), 42, 5, 2, 9, 2);
+
+        assertThat(VoteBatchWriter.parse(VoteBatchWriter.format(submission))).isEqualTo(submission);
+        // Lines written before the score ledger existed
+        assertThat(VoteBatchWriter.parse("7;1;1700000000000;;10:100").score()).isNull();
+    }
+
+    @Test
+    void relativeSpillPathIsRefused() {
+        assertThatThrownBy(() -> new VoteBatchWriter(new FakeDatabase(), transactions(), "vote-spill.log"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("absolute");
+    }
+
+    private VoteBatchWriter writer(FakeDatabase database) {
+        return new VoteBatchWriter(database, transactions(), spillFile().toString());
+    }
+
+    private Path spillFile() {
+        return dir.resolve("vote-spill.log");
+    }
+
+    private static TransactionTemplate transactions() {
+        return new TransactionTemplate(new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        });
+    }
+
+    private static PendingSubmission submission(Long participantId, Long questionId, int score, int scoreVersion) {
+        return new PendingSubmission(7L, participantId, List.of(new PendingSubmission.PendingVote(questionId, questionId * 10)),
+                Instant.now(), null, score, score > 1 ? 1 : 0, 10, scoreVersion);
+    }
+
+    //Applies the writer's statements the way the database would.
+    private static final class FakeDatabase extends JdbcTemplate {
+        private final List<Object[]> votes = new ArrayList<>();
+        //participantId -> {score, scoreVersion}
+        private final Map<Long, List<Integer>> scores = new HashMap<>();
+        private final Set<Long> removed = new HashSet<>();
+        private final Set<Long> rejected = new HashSet<>();
+        private boolean down;
+        //submissions written before the database goes down (-1 = never)
+        private int failAfter = -1;
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> rows) {
+            if (down || failAfter == 0)
+                throw new DataAccessResourceFailureException("connection refused");
+
+            int[] counts = new int[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                if (sql.startsWith("INSERT INTO votes")) {
+                    Long participantId = (Long) row[1];
+                    if (rejected.contains(participantId))
+                        throw new DataIntegrityViolationException("foreign key violation");
+                    if (!removed.contains(participantId)) {
+                        votes.add(row);
+                        counts[i] = 1;
+                    }
+                } else if (sql.contains("score_version")) {
+                    Long participantId = (Long) row[4];
+                    int version = (Integer) row[3];
+                    List<Integer> current = scores.get(participantId);
+                    if (current == null || current.get(1) < version) {
+                        scores.put(participantId, List.of((Integer) row[0], version));
+                        counts[i] = 1;
+                    }
+                }
+            }
+            if (sql.contains("score_version") && failAfter > 0) {
+                failAfter--;
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package it.unical.xpoll.service.ingestion;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VoteIngestionQueueTest {
+    private final ScriptedWriter writer = new ScriptedWriter();
+    //long flush interval: only a flush request ends a batch early
+    private final VoteIngestionQueue queue = new VoteIngestionQueue(writer, 100, 500, 60_000, 50);
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        queue.stop();
+    }
+
+    @Test
+    void flushCompletesOnceQueuedSubmissionsAreWritten() throws Exception {
+        queue.start();
+        queue.submit(submission(1L));
+        queue.submit(submission(2L));
+
+        queue.flush(1000).get(5, TimeUnit.SECONDS);
+
+        assertThat(writer.written).hasSize(2);
+    }
+
+    @Test
+    void flushWaitsForSpilledSubmissionsToBeReplayed() throws Exception {
+        writer.databaseUp = false;
+        queue.start();
+        queue.submit(submission(1L));
+
+        CompletableFuture<Void> flushed = queue.flush(1000);
+        Thread.sleep(300);
+        assertThat(flushed.isDone()).isFalse();
+
+        writer.databaseUp = true;
+        flushed.get(5, TimeUnit.SECONDS);
+        assertThat(writer.written).hasSize(1);
+    }
+
+    @Test
+    void stopWritesWhatIsStillQueued() throws Exception {
+        queue.submit(submission(1L));
+        queue.submit(submission(2L));
+
+        queue.stop();
+
+        assertThat(writer.written).hasSize(2);
+    }
+
+    @Test
+    void votesArePendingUntilTheyReachTheDatabase() throws Exception {
+        queue.start();
+        queue.submit(submission(1L));
+
+        assertThat(queue.hasPendingVotes(7L)).isTrue();
+        assertThat(queue.hasPendingVotes(8L)).isFalse();
+        queue.flush(1000).get(5, TimeUnit.SECONDS);
+        assertThat(queue.hasPendingVotes(7L)).isFalse();
+
+        // Spilled votes are not in the database either
+        writer.databaseUp = false;
+        queue.submit(submission(2L));
+        CompletableFuture<Void> flushed = queue.flush(1000);
+        Thread.sleep(300);
+        assertThat(queue.hasPendingVotes(8L)).isTrue();
+
+        writer.databaseUp = true;
+        flushed.get(5, TimeUnit.SECONDS);
+        assertThat(queue.hasPendingVotes(7L)).isFalse();
+    }
+
+    @Test
+    void flushOfAFullQueueFailsInsteadOfBlocking() throws Exception {
+        VoteIngestionQueue full = new VoteIngestionQueue(writer, 1, 500, 60_000, 50);
+        full.submit(submission(1L));
+
+        CompletableFuture<Void> flushed = full.flush(100);
+
+        assertThat(flushed.isCompletedExceptionally()).isTrue();
+        // Room again once the flusher runs
+        full.start();
+        full.flush(1000).get(5, TimeUnit.SECONDS);
+        assertThat(writer.written).hasSize(1);
+        full.stop();
+    }
+
+    private static PendingSubmission submission(Long participantId) {
+        return new PendingSubmission(7L, participantId, List.of(new PendingSubmission.PendingVote(10L, 100L)),
+                Instant.now(), null, 1, 1, 1, 1);
+    }
+
+    //Keeps what it was asked to write; while the database is down it holds them as the spill file would.
+    private static final class ScriptedWriter extends VoteBatchWriter {
+        private final List<PendingSubmission> written = new CopyOnWriteArrayList<>();
+        private final List<PendingSubmission> spilled = new CopyOnWriteArrayList<>();
+        private volatile boolean databaseUp = true;
+
+        ScriptedWriter() {
+            super(new JdbcTemplate(), null, System.getProperty("java.io.tmpdir") + "/unused-vote-spill.log");
+        }
+
+        @Override
+        public boolean write(List<PendingSubmission> submissions) {
+            if (!databaseUp) {
+                spilled.addAll(submissions);
+                return false;
+            }
+            written.addAll(submissions);
+            return true;
+        }
+
+        @Override
+        public boolean replaySpill() {
+            if (!databaseUp)
+                return spilled.isEmpty();
+            written.addAll(spilled);
+            spilled.clear();
+            return true;
+        }
+
+        @Override
+        public boolean hasSpilledVotes() {
+            return !spilled.isEmpty();
+        }
+    }
+}
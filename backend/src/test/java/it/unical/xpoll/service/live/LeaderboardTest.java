@@ -0,0 +1,75 @@
+package it.unical.xpoll.service.live;
+
+import it.unical.xpoll.domain.Participant;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeaderboardTest {
+    private final Leaderboard leaderboard = new Leaderboard();
+
+    @Test
+    void ranksByScoreThenCompletionTimeThenId() {
+        leaderboard.update(3L, "Carla", 5, 5, 40);
+        leaderboard.update(1L, "Anna", 5, 5, 40);
+        leaderboard.update(2L, "Bruno", 5, 5, 20);
+        leaderboard.update(4L, "Dario", 7, 6, 90);
+        // Still answering: ranked after everyone with the same score
+        leaderboard.update(5L, "Elena", 5, 5, null);
+
+        assertThat(leaderboard.top(10)).extracting(Leaderboard.Entry::participantId)
+                .containsExactly(4L, 2L, 1L, 3L, 5L);
+    }
+
+    @Test
+    void updateMovesTheParticipantInsteadOfAddingIt() {
+        leaderboard.update(1L, "Anna", 1, 1, 10);
+        leaderboard.update(2L, "Bruno", 2, 2, 10);
+
+        leaderboard.update(1L, "Anna", 3, 2, 10);
+
+        assertThat(leaderboard.size()).isEqualTo(2);
+        assertThat(leaderboard.top(1)).extracting(Leaderboard.Entry::participantId).containsExactly(1L);
+        assertThat(leaderboard.isInTop(2L, 1)).isFalse();
+        assertThat(leaderboard.isInTop(2L, 2)).isTrue();
+    }
+
+    @Test
+    void olderScoreDoesNotOverwriteANewerOne() {
+        // Second submission ranked first, then the first one catches up
+        assertThat(leaderboard.update(1L, "Anna", 3, 2, 10, 2)).isTrue();
+        assertThat(leaderboard.update(1L, "Anna", 1, 1, 10, 1)).isFalse();
+        // A join arriving late does not reset the score either
+        leaderboard.update(1L, "Anna", 0, 0, null);
+
+        assertThat(leaderboard.top(10)).containsExactly(new Leaderboard.Entry(1L, "Anna", 3, 2, 10));
+
+        leaderboard.remove(1L);
+        assertThat(leaderboard.update(1L, "Anna", 1, 1, 10, 1)).isTrue();
+    }
+
+    @Test
+    void removedParticipantsLeaveTheRanking() {
+        leaderboard.update(1L, "Anna", 1, 1, 10);
+        leaderboard.update(2L, "Bruno", 2, 2, 10);
+
+        leaderboard.remove(2L);
+        leaderboard.remove(9L);
+
+        assertThat(leaderboard.top(10)).extracting(Leaderboard.Entry::participantId).containsExactly(1L);
+    }
+
+    @Test
+    void buildsFromTheScoreLedgerWithoutThePresenter() {
+        Leaderboard built = Leaderboard.from(List.of(
+                Participant.builder().id(1L).name("Presenter").build(),
+                Participant.builder().id(2L).name("Anna").score(null).correctCount(null).build(),
+                Participant.builder().id(3L).name("Bruno").score(4).correctCount(2).completionTimeSeconds(30).build()));
+
+        assertThat(built.top(10)).containsExactly(
+                new Leaderboard.Entry(3L, "Bruno", 4, 2, 30),
+                new Leaderboard.Entry(2L, "Anna", 0, 0, null));
+    }
+}
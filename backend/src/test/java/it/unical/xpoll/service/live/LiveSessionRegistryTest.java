@@ -0,0 +1,94 @@
+package it.unical.xpoll.service.live;
+
+import it.unical.xpoll.domain.Session;
+import it.unical.xpoll.domain.SessionState;
+import it.unical.xpoll.repository.VoteRepository;
+import it.unical.xpoll.service.ingestion.VoteIngestionQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+//Eviction and remote submissions; the votes table is empty.
+class LiveSessionRegistryTest {
+    private final VoteIngestionQueue ingestionQueue = mock(VoteIngestionQueue.class);
+    private final LiveSessionRegistry registry = new LiveSessionRegistry(mock(VoteRepository.class),
+            provider(ingestionQueue));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "maxSize", 1);
+        ReflectionTestUtils.setField(registry, "ttlMinutes", 60L);
+    }
+
+    @Test
+    void expiredSessionsWithPendingVotesStayAttached() throws InterruptedException {
+        ReflectionTestUtils.setField(registry, "maxSize", 10);
+        ReflectionTestUtils.setField(registry, "ttlMinutes", 0L);
+        when(ingestionQueue.hasPendingVotes(7L)).thenReturn(true);
+        registry.getOrLoad(session(7L, "ABC123"));
+        registry.getOrLoad(session(8L, "DEF456"));
+
+        Thread.sleep(5);
+
+        assertThat(registry.find("ABC123")).isPresent();
+        assertThat(registry.find("DEF456")).isEmpty();
+    }
+
+    @Test
+    void fullRegistrySkipsSessionsWithPendingVotes() {
+        when(ingestionQueue.hasPendingVotes(7L)).thenReturn(true);
+        registry.getOrLoad(session(7L, "ABC123"));
+        registry.getOrLoad(session(8L, "DEF456"));
+
+        assertThat(registry.find("ABC123")).isPresent();
+        assertThat(registry.find("DEF456")).isEmpty();
+
+        // Once written, the least recently used goes first again
+        when(ingestionQueue.hasPendingVotes(7L)).thenReturn(false);
+        registry.getOrLoad(session(9L, "GHI789"));
+
+        assertThat(registry.find("ABC123")).isEmpty();
+        assertThat(registry.find("GHI789")).isPresent();
+    }
+
+    @Test
+    void remoteSubmissionsAreReplayedWhenTheSessionIsLoaded() {
+        registry.applyRemote("abc123", remote(1L, 100L));
+
+        LiveSession live = registry.getOrLoad(session(7L, "ABC123"));
+        assertThat(live.getTally(10L)).containsExactly(1, 0);
+
+        registry.applyRemote("ABC123", remote(2L, 101L));
+        assertThat(live.getTally(10L)).containsExactly(1, 1);
+        assertThat(live.getVoterCount()).isEqualTo(2);
+    }
+
+    private static LiveSession.RemoteSubmission remote(Long participantId, Long optionId) {
+        return new LiveSession.RemoteSubmission(participantId, "Participant " + participantId, null,
+                List.of(new LiveSession.AcceptedVote(10L, optionId)), 1);
+    }
+
+    private static Session session(Long id, String code) {
+        return Session.builder()
+                .id(id)
+                .code(code)
+                .creatorId("presenter")
+                .state(SessionState.OPEN)
+                .poll(LiveSessionTest.poll())
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<VoteIngestionQueue> provider(VoteIngestionQueue ingestionQueue) {
+        ObjectProvider<VoteIngestionQueue> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(ingestionQueue);
+        return provider;
+    }
+}
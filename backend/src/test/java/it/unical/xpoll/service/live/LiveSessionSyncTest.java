@@ -0,0 +1,131 @@
+package it.unical.xpoll.service.live;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unical.xpoll.domain.Session;
+import it.unical.xpoll.domain.SessionState;
+import it.unical.xpoll.repository.VoteRepository;
+import it.unical.xpoll.service.broadcast.ClusterChannel;
+import it.unical.xpoll.service.timer.SessionTimerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+//Two nodes: events published by this one are applied to the other node's copy of the session.
+class LiveSessionSyncTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> published = new ArrayList<>();
+    private final ClusterChannel channel = new ClusterChannel() {
+        @Override
+        public void publishEvent(String event) {
+            published.add(event);
+        }
+
+        @Override
+        public void subscribe(Consumer<String> listener) {
+        }
+    };
+    private final LiveSessionRegistry registry = new LiveSessionRegistry(mock(VoteRepository.class), provider(null));
+    private final LiveSessionSync sync = new LiveSessionSync(registry, new SessionTimerService(250, 512),
+            provider(channel), objectMapper);
+    private final LiveSessionRegistry otherRegistry = new LiveSessionRegistry(mock(VoteRepository.class),
+            provider(null));
+    //never started: only records the deadlines
+    private final SessionTimerService otherTimer = new SessionTimerService(250, 512);
+    private final LiveSessionSync otherSync = new LiveSessionSync(otherRegistry, otherTimer, provider(null),
+            objectMapper);
+
+    @BeforeEach
+    void setUp() {
+        for (LiveSessionRegistry nodeRegistry : List.of(registry, otherRegistry)) {
+            ReflectionTestUtils.setField(nodeRegistry, "maxSize", 10);
+            ReflectionTestUtils.setField(nodeRegistry, "ttlMinutes", 60L);
+        }
+    }
+
+    @Test
+    void votesAcceptedHereReachTheOtherNodesCopy() {
+        LiveSession copy = otherRegistry.getOrLoad(session(SessionState.OPEN));
+        LiveSession live = registry.getOrLoad(session(SessionState.OPEN));
+        LiveSession.Delta delta = live.record(1L, List.of(10L, 20L), List.of(0, 2));
+
+        sync.voted("abc123", new LiveSession.ParticipantRef(1L, "Ann", 4), 4, delta);
+        otherSync.onClusterEvent(lastEvent());
+
+        assertThat(copy.getTally(10L)).containsExactly(1, 0);
+        assertThat(copy.getTally(20L)).containsExactly(0, 0, 1);
+        assertThat(copy.getScore(1L)).isEqualTo(live.getScore(1L));
+        assertThat(copy.getVersion()).isEqualTo(1);
+        assertThat(copy.findParticipant("ann")).contains(new LiveSession.ParticipantRef(1L, "Ann", 4));
+    }
+
+    @Test
+    void launchJoinLeaveAndCloseReachTheOtherNode() {
+        LiveSession copy = otherRegistry.getOrLoad(session(SessionState.WAITING));
+        Instant timerStartedAt = Instant.ofEpochMilli(1_700_000_000_000L);
+
+        sync.launched("ABC123", timerStartedAt, timerStartedAt.plusSeconds(60));
+        otherSync.onClusterEvent(lastEvent());
+        assertThat(copy.getState()).isEqualTo(SessionState.OPEN);
+        assertThat(copy.getTimerStartedAt()).isEqualTo(timerStartedAt);
+        // The other node closes the session too if its timer fires first
+        assertThat(otherTimer.size()).isEqualTo(1);
+
+        sync.joined("ABC123", 2L, "Bob");
+        otherSync.onClusterEvent(lastEvent());
+        assertThat(copy.findParticipant("BOB")).contains(new LiveSession.ParticipantRef(2L, "Bob", null));
+        assertThat(copy.getLeaderboard().size()).isEqualTo(1);
+
+        sync.left("ABC123", 2L, "Bob");
+        otherSync.onClusterEvent(lastEvent());
+        assertThat(copy.findParticipant("Bob")).isEmpty();
+        assertThat(copy.getLeaderboard().size()).isZero();
+
+        sync.closed("ABC123");
+        otherSync.onClusterEvent(lastEvent());
+        assertThat(otherRegistry.find("ABC123")).isEmpty();
+        assertThat(otherTimer.size()).isZero();
+    }
+
+    @Test
+    void malformedAndUnrelatedEventsAreIgnored() {
+        LiveSession copy = otherRegistry.getOrLoad(session(SessionState.WAITING));
+
+        otherSync.onClusterEvent("{not json");
+        otherSync.onClusterEvent("{\"type\":\"PRESENCE\",\"code\":\"ABC123\",\"participantIds\":[1]}");
+        otherSync.onClusterEvent("{\"type\":\"CLOSED\"}");
+
+        assertThat(otherRegistry.find("ABC123")).contains(copy);
+        assertThat(copy.getState()).isEqualTo(SessionState.WAITING);
+    }
+
+    private String lastEvent() {
+        return published.get(published.size() - 1);
+    }
+
+    private static Session session(SessionState state) {
+        return Session.builder()
+                .id(7L)
+                .code("ABC123")
+                .creatorId("presenter")
+                .state(state)
+                .poll(LiveSessionTest.poll())
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectProvider<T> provider(T bean) {
+        ObjectProvider<T> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(bean);
+        return provider;
+    }
+}
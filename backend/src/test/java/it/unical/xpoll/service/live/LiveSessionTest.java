@@ -0,0 +1,198 @@
+package it.unical.xpoll.service.live;
+
+import it.unical.xpoll.domain.Option;
+import it.unical.xpoll.domain.Poll;
+import it.unical.xpoll.domain.Question;
+import it.unical.xpoll.domain.Session;
+import it.unical.xpoll.domain.SessionState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Vote counters and answered questions of a live session, without the database.
+class LiveSessionTest {
+    //question 10: options 100 (correct), 101; question 20: options 200, 201 (correct), 202
+    private final LiveSession live = new LiveSession(session(), PollSnapshot.of(poll()), new Leaderboard());
+
+    @Test
+    void countsVotesPerOption() {
+        live.record(1L, List.of(10L, 20L), List.of(0, 2));
+        live.record(2L, List.of(10L, 20L), List.of(0, 1));
+
+        assertThat(live.getTally(10L)).containsExactly(2, 0);
+        assertThat(live.getTally(20L)).containsExactly(0, 1, 1);
+        assertThat(live.getVoterCount()).isEqualTo(2);
+    }
+
+    @Test
+    void skipsUnknownOptionsAndQuestionsAlreadyAnswered() {
+        live.record(1L, List.of(10L), List.of(0));
+
+        LiveSession.Delta delta = live.record(1L, List.of(10L, 20L, 30L, 20L), List.of(1, 5, 0, 1));
+
+        assertThat(delta.accepted()).containsExactly(new LiveSession.AcceptedVote(20L, 201L));
+        assertThat(live.getTally(10L)).containsExactly(1, 0);
+        assertThat(live.getTally(20L)).containsExactly(0, 1, 0);
+    }
+
+    @Test
+    void keepsTheRunningScoreOfEachParticipant() {
+        live.record(1L, List.of(10L), List.of(0));
+        LiveSession.Delta delta = live.record(1L, List.of(20L), List.of(0));
+
+        assertThat(delta.score()).isEqualTo(1);
+        assertThat(delta.correctCount()).isEqualTo(1);
+        assertThat(delta.scoreVersion()).isEqualTo(2);
+        assertThat(live.getScore(1L)).isEqualTo(new ScoringEngine.Score(1, 1));
+        assertThat(live.getScore(2L)).isNull();
+    }
+
+    @Test
+    void restoresTalliesAndAnswersFromPersistedVotes() {
+        live.restoreVotes(10L, 100L, 3);
+        live.restoreVotes(20L, 999L, 1);
+        live.restoreAnswer(1L, 10L);
+        live.restoreScore(1L, 1, 1);
+        live.restoreScore(2L, 5, 5);
+
+        assertThat(live.getTally(10L)).containsExactly(3, 0);
+        assertThat(live.getTally(20L)).containsExactly(0, 0, 0);
+        assertThat(live.record(1L, List.of(10L), List.of(1)).accepted()).isEmpty();
+        assertThat(live.getScore(1L)).isEqualTo(new ScoringEngine.Score(1, 1));
+        // Only participants that answered have a ledger to restore
+        assertThat(live.getScore(2L)).isNull();
+    }
+
+    @Test
+    void deltaCarriesTheNewVersionAndTheCountersOfTouchedQuestionsOnly() {
+        LiveSession.Delta first = live.record(1L, List.of(10L), List.of(0));
+        LiveSession.Delta second = live.record(2L, List.of(10L), List.of(1));
+
+        assertThat(first.version()).isEqualTo(1);
+        assertThat(second.version()).isEqualTo(2);
+        assertThat(second.tallies()).containsOnlyKeys(10L);
+        assertThat(second.tallies().get(10L)).containsExactly(1, 1);
+        assertThat(live.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedSubmissionKeepsTheVersion() {
+        live.record(1L, List.of(10L), List.of(0));
+
+        LiveSession.Delta delta = live.record(1L, List.of(10L), List.of(1));
+
+        assertThat(delta.version()).isEqualTo(1);
+        assertThat(delta.tallies()).isEmpty();
+        assertThat(delta.firstSubmission()).isFalse();
+    }
+
+    @Test
+    void deltaCountersAreNotChangedByLaterVotes() {
+        LiveSession.Delta delta = live.record(1L, List.of(10L), List.of(0));
+        live.record(2L, List.of(10L), List.of(0));
+
+        assertThat(delta.tallies().get(10L)).containsExactly(1, 0);
+        assertThat(delta.firstSubmission()).isTrue();
+    }
+
+    @Test
+    void remoteSubmissionsAreCountedOnceAndScoredLocally() {
+        live.record(1L, List.of(10L), List.of(0));
+        LiveSession.RemoteSubmission remote = new LiveSession.RemoteSubmission(2L, "Bob", 12,
+                List.of(new LiveSession.AcceptedVote(10L, 100L), new LiveSession.AcceptedVote(20L, 201L)), 5);
+
+        assertThat(live.applyRemote(remote)).isTrue();
+        assertThat(live.applyRemote(remote)).isFalse();
+
+        assertThat(live.getTally(10L)).containsExactly(2, 0);
+        assertThat(live.getTally(20L)).containsExactly(0, 1, 0);
+        assertThat(live.getScore(2L)).isEqualTo(new ScoringEngine.Score(2, 2));
+        assertThat(live.findParticipant("bob")).contains(new LiveSession.ParticipantRef(2L, "Bob", 12));
+        assertThat(live.getLeaderboard().top(1)).containsExactly(new Leaderboard.Entry(2L, "Bob", 2, 2, 12));
+        // Deltas broadcast after a remote one are not older than it
+        assertThat(live.getVersion()).isEqualTo(5);
+        assertThat(live.record(3L, List.of(10L), List.of(1)).version()).isEqualTo(6);
+    }
+
+    @Test
+    void remoteSubmissionSkipsQuestionsAlreadyAnsweredHere() {
+        live.restoreAnswer(2L, 10L);
+
+        live.applyRemote(new LiveSession.RemoteSubmission(2L, "Bob", null,
+                List.of(new LiveSession.AcceptedVote(10L, 101L), new LiveSession.AcceptedVote(20L, 200L)), 1));
+
+        assertThat(live.getTally(10L)).containsExactly(0, 0);
+        assertThat(live.getTally(20L)).containsExactly(1, 0, 0);
+        assertThat(live.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentSubmissionsAreAllCounted() throws Exception {
+        int threads = 8;
+        int participantsPerThread = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long firstId = (long) t * participantsPerThread;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (long id = firstId; id < firstId + participantsPerThread; id++) {
+                        live.record(id, List.of(10L, 20L), List.of((int) (id % 2), (int) (id % 3)));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long[] first = live.getTally(10L);
+        long[] second = live.getTally(20L);
+        assertThat(first[0] + first[1]).isEqualTo(threads * participantsPerThread);
+        assertThat(second[0] + second[1] + second[2]).isEqualTo(threads * participantsPerThread);
+        assertThat(live.getVoterCount()).isEqualTo(threads * participantsPerThread);
+    }
+
+    static Session session() {
+        return Session.builder()
+                .id(7L)
+                .code("ABC123")
+                .creatorId("presenter")
+                .state(SessionState.OPEN)
+                .build();
+    }
+
+    static Poll poll() {
+        Poll poll = Poll.builder().id(1L).title("Quiz").hasScore(true).build();
+        poll.addQuestion(question(10L, Question.QuestionType.SINGLE_CHOICE,
+                option(100L, 0, true), option(101L, 0, false)));
+        poll.addQuestion(question(20L, Question.QuestionType.SINGLE_CHOICE,
+                option(200L, 0, false), option(201L, 0, true), option(202L, 0, false)));
+        return poll;
+    }
+
+    static Question question(Long id, Question.QuestionType type, Option... options) {
+        Question question = Question.builder().id(id).text("Question " + id).type(type).build();
+        for (Option option : options) {
+            question.addOption(option);
+        }
+        return question;
+    }
+
+    static Option option(Long id, int value, boolean isCorrect) {
+        return Option.builder().id(id).text("Option " + id).value(value).isCorrect(isCorrect).build();
+    }
+}
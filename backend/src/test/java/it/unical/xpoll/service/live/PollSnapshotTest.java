@@ -0,0 +1,69 @@
+package it.unical.xpoll.service.live;
+
+import it.unical.xpoll.domain.Option;
+import it.unical.xpoll.domain.Poll;
+import it.unical.xpoll.domain.Question;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PollSnapshotTest {
+
+    @Test
+    void copiesQuestionsAndOptionsInOrder() {
+        PollSnapshot snapshot = PollSnapshot.of(poll());
+
+        assertThat(snapshot.getTitle()).isEqualTo("Quiz");
+        assertThat(snapshot.getQuestions())
+                .extracting(PollSnapshot.QuestionSnapshot::getId).containsExactly(10L, 20L);
+
+        PollSnapshot.QuestionSnapshot question = snapshot.getQuestion(20L);
+        assertThat(question.getOptionCount()).isEqualTo(3);
+        assertThat(question.getOptionId(2)).isEqualTo(202L);
+        assertThat(question.getOptions().get(1).text()).isEqualTo("Option 201");
+    }
+
+    @Test
+    void findsOptionPositionsWithinTheirQuestionOnly() {
+        PollSnapshot snapshot = PollSnapshot.of(poll());
+
+        assertThat(snapshot.getQuestion(20L).indexOf(201L)).isEqualTo(1);
+        assertThat(snapshot.getQuestion(20L).indexOf(100L)).isEqualTo(-1);
+        assertThat(snapshot.getQuestion(30L)).isNull();
+    }
+
+    @Test
+    void isNotAffectedByLaterChangesToThePoll() {
+        Poll poll = poll();
+        PollSnapshot snapshot = PollSnapshot.of(poll);
+
+        poll.setTitle("Renamed");
+        poll.getQuestions().get(0).addOption(option(102L, 0, false));
+        poll.addQuestion(question(30L, option(300L, 0, true)));
+
+        assertThat(snapshot.getTitle()).isEqualTo("Quiz");
+        assertThat(snapshot.getQuestion(10L).getOptionCount()).isEqualTo(2);
+        assertThat(snapshot.getQuestion(30L)).isNull();
+        assertThatThrownBy(() -> snapshot.getQuestions().clear()).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    private static Poll poll() {
+        Poll poll = Poll.builder().id(1L).title("Quiz").build();
+        poll.addQuestion(question(10L, option(100L, 0, true), option(101L, 0, false)));
+        poll.addQuestion(question(20L, option(200L, 0, false), option(201L, 0, true), option(202L, 0, false)));
+        return poll;
+    }
+
+    private static Question question(Long id, Option... options) {
+        Question question = Question.builder().id(id).text("Question " + id).build();
+        for (Option option : options) {
+            question.addOption(option);
+        }
+        return question;
+    }
+
+    private static Option option(Long id, int value, boolean isCorrect) {
+        return Option.builder().id(id).text("Option " + id).value(value).isCorrect(isCorrect).build();
+    }
+}
@@ -0,0 +1,73 @@
+package it.unical.xpoll.service.live;
+
+import it.unical.xpoll.domain.Option;
+import it.unical.xpoll.domain.Poll;
+import it.unical.xpoll.domain.Question;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoringEngineTest {
+
+    @Test
+    void valueWinsOverTheCorrectFlag() {
+        assertThat(ScoringEngine.points(3, false)).isEqualTo(3);
+        assertThat(ScoringEngine.points(-2, true)).isEqualTo(-2);
+        assertThat(ScoringEngine.points(0, true)).isEqualTo(1);
+        assertThat(ScoringEngine.points(null, false)).isZero();
+    }
+
+    @Test
+    void answerIsCorrectOnlyWithExactlyTheCorrectOptions() {
+        List<Integer> correct = List.of(0, 2);
+
+        assertThat(ScoringEngine.isCorrectAnswer(List.of(2, 0), correct)).isTrue();
+        assertThat(ScoringEngine.isCorrectAnswer(List.of(0), correct)).isFalse();
+        assertThat(ScoringEngine.isCorrectAnswer(List.of(0, 1, 2), correct)).isFalse();
+        assertThat(ScoringEngine.isCorrectAnswer(List.of(), correct)).isFalse();
+        assertThat(ScoringEngine.isCorrectAnswer(List.of(0), List.of())).isFalse();
+    }
+
+    @Test
+    void maxPointsAddsPositivePointsForMultipleChoiceOnly() {
+        int[] points = { 2, -1, 3 };
+
+        assertThat(ScoringEngine.maxPoints(Question.QuestionType.MULTIPLE_CHOICE, points)).isEqualTo(5);
+        assertThat(ScoringEngine.maxPoints(Question.QuestionType.SINGLE_CHOICE, points)).isEqualTo(3);
+    }
+
+    @Test
+    void scoresSelectionsAgainstTheSnapshot() {
+        PollSnapshot snapshot = PollSnapshot.of(poll());
+
+        // question 10: correct; question 20: one of two correct options plus a penalty
+        ScoringEngine.Score score = ScoringEngine.score(snapshot,
+                List.of(10L, 20L, 20L, 99L), List.of(100L, 200L, 202L, 999L));
+
+        assertThat(score).isEqualTo(new ScoringEngine.Score(1 + 2 - 1, 1));
+        assertThat(snapshot.getMaxScore()).isEqualTo(1 + 2 + 3);
+    }
+
+    private static Poll poll() {
+        Poll poll = Poll.builder().id(1L).title("Quiz").hasScore(true).build();
+
+        Question single = Question.builder().id(10L).text("Single").build();
+        single.addOption(option(100L, 0, true));
+        single.addOption(option(101L, 0, false));
+        poll.addQuestion(single);
+
+        Question multiple = Question.builder().id(20L).text("Multiple")
+                .type(Question.QuestionType.MULTIPLE_CHOICE).build();
+        multiple.addOption(option(200L, 2, false));
+        multiple.addOption(option(201L, 3, false));
+        multiple.addOption(option(202L, -1, false));
+        poll.addQuestion(multiple);
+        return poll;
+    }
+
+    private static Option option(Long id, int value, boolean isCorrect) {
+        return Option.builder().id(id).text("Option " + id).value(value).isCorrect(isCorrect).build();
+    }
+}
@@ -0,0 +1,143 @@
+package it.unical.xpoll.service.presence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unical.xpoll.service.broadcast.ClusterChannel;
+import it.unical.xpoll.service.broadcast.SessionBroadcaster;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//Connection counting: attach/detach do not touch the database; flush runs against mocks.
+class PresenceTrackerTest {
+    private final SessionBroadcaster broadcaster = mock(SessionBroadcaster.class);
+    private final ClusterChannel channel = mock(ClusterChannel.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PresenceTracker tracker = new PresenceTracker(null, broadcaster, mock(TransactionTemplate.class),
+            provider(channel), objectMapper);
+
+    @Test
+    void participantStaysConnectedUntilTheLastTabCloses() {
+        tracker.attach("ws-1", "abc123", "token-a", 1L);
+        tracker.attach("ws-2", "ABC123", "token-a", 1L);
+        tracker.attach("ws-3", "ABC123", "token-b", 2L);
+
+        assertThat(tracker.getConnectedCount("ABC123")).isEqualTo(2);
+
+        tracker.detach("ws-1");
+        assertThat(tracker.getConnectedParticipantIds("ABC123")).containsExactlyInAnyOrder(1L, 2L);
+
+        tracker.detach("ws-2");
+        assertThat(tracker.getConnectedParticipantIds("ABC123")).containsExactly(2L);
+
+        tracker.detach("ws-3");
+        assertThat(tracker.getConnectedCount("ABC123")).isZero();
+    }
+
+    @Test
+    void detachingTwiceCountsOnce() {
+        tracker.attach("ws-1", "ABC123", "token-a", 1L);
+        tracker.attach("ws-2", "ABC123", "token-a", 1L);
+
+        tracker.detach("ws-1");
+        tracker.detach("ws-1");
+
+        assertThat(tracker.getConnectedParticipantIds("ABC123")).containsExactly(1L);
+    }
+
+    @Test
+    void concurrentTabsOfOneParticipantEndDisconnected() throws Exception {
+        int threads = 8;
+        int rounds = 2_000;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < rounds; i++) {
+                        String stompSession = "ws-" + thread + "-" + i;
+                        tracker.attach(stompSession, "ABC123", "token-a", 1L);
+                        tracker.detach(stompSession);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(tracker.getConnectedCount("ABC123")).isZero();
+        tracker.attach("ws-last", "ABC123", "token-a", 1L);
+        assertThat(tracker.getConnectedCount("ABC123")).isEqualTo(1);
+    }
+
+    @Test
+    void participantsConnectedToOtherNodesAreCounted() {
+        tracker.attach("ws-1", "ABC123", "token-a", 1L);
+
+        tracker.onClusterEvent("{\"type\":\"PRESENCE\",\"node\":\"node-b\",\"code\":\"abc123\",\"participantIds\":[2,3]}");
+        tracker.onClusterEvent("{\"type\":\"PRESENCE\",\"node\":\"node-c\",\"code\":\"ABC123\",\"participantIds\":[3]}");
+
+        assertThat(tracker.getConnectedParticipantIds("ABC123")).containsExactlyInAnyOrder(1L, 2L, 3L);
+
+        tracker.onClusterEvent("{\"type\":\"PRESENCE\",\"node\":\"node-b\",\"code\":\"ABC123\",\"participantIds\":[]}");
+
+        assertThat(tracker.getConnectedParticipantIds("ABC123")).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(tracker.getConnectedCount("ABC123")).isEqualTo(2);
+    }
+
+    @Test
+    void otherClusterEventsAreIgnored() {
+        tracker.onClusterEvent("{\"type\":\"CLOSED\",\"code\":\"ABC123\"}");
+        tracker.onClusterEvent("not json");
+
+        assertThat(tracker.getConnectedCount("ABC123")).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushPublishesLocalPresenceAndBroadcastsEveryNode() throws Exception {
+        tracker.onClusterEvent("{\"type\":\"PRESENCE\",\"node\":\"node-b\",\"code\":\"ABC123\",\"participantIds\":[2]}");
+        tracker.attach("ws-1", "ABC123", "token-a", 1L);
+
+        tracker.flush();
+
+        ArgumentCaptor<String> event = ArgumentCaptor.forClass(String.class);
+        verify(channel).publishEvent(event.capture());
+        Map<String, Object> published = objectMapper.readValue(event.getValue(), Map.class);
+        assertThat(published.get("code")).isEqualTo("ABC123");
+        assertThat(published.get("participantIds")).isEqualTo(List.of(1));
+
+        ArgumentCaptor<Map<String, Object>> message = ArgumentCaptor.forClass(Map.class);
+        verify(broadcaster).broadcast(eq("ABC123"), message.capture());
+        assertThat(message.getValue().get("connectedCount")).isEqualTo(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<ClusterChannel> provider(ClusterChannel channel) {
+        ObjectProvider<ClusterChannel> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(channel);
+        return provider;
+    }
+}
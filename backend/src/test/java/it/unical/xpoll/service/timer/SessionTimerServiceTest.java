@@ -0,0 +1,86 @@
+package it.unical.xpoll.service.timer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionTimerServiceTest {
+    //10 ms ticks on a 4-bucket wheel: deadlines past 40 ms need more than one round
+    private final SessionTimerService timer = new SessionTimerService(10, 4);
+    private final BlockingQueue<Expiry> expired = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void start() {
+        timer.onExpiry(code -> expired.add(new Expiry(code, System.currentTimeMillis())));
+        timer.start();
+    }
+
+    @AfterEach
+    void stop() {
+        timer.stop();
+    }
+
+    @Test
+    void firesOnceAfterSeveralRoundsOfTheWheel() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 200;
+        timer.schedule("abc123", Instant.ofEpochMilli(deadline));
+
+        Expiry expiry = expired.poll(2, TimeUnit.SECONDS);
+
+        assertThat(expiry.code()).isEqualTo("ABC123");
+        assertThat(expiry.atMillis()).isGreaterThanOrEqualTo(deadline);
+        assertThat(expired.poll(100, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(timer.size()).isZero();
+    }
+
+    @Test
+    void cancelledDeadlineNeverFires() throws InterruptedException {
+        timer.schedule("ABC123", Instant.now().plusMillis(50));
+        timer.cancel("abc123");
+
+        assertThat(expired.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(timer.size()).isZero();
+    }
+
+    @Test
+    void reschedulingMovesTheDeadline() throws InterruptedException {
+        timer.schedule("ABC123", Instant.now().plusMillis(30));
+        long deadline = System.currentTimeMillis() + 250;
+        timer.schedule("ABC123", Instant.ofEpochMilli(deadline));
+
+        Expiry expiry = expired.poll(2, TimeUnit.SECONDS);
+
+        assertThat(expiry.atMillis()).isGreaterThanOrEqualTo(deadline);
+        assertThat(expired.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void pastDeadlineFiresOnTheNextTick() throws InterruptedException {
+        timer.schedule("ABC123", Instant.now().minusSeconds(60));
+
+        assertThat(expired.poll(1, TimeUnit.SECONDS).code()).isEqualTo("ABC123");
+    }
+
+    @Test
+    void failingHandlerDoesNotStopTheWheel() throws InterruptedException {
+        timer.onExpiry(code -> {
+            if (code.equals("FAIL01"))
+                throw new IllegalStateException("close failed");
+            expired.add(new Expiry(code, System.currentTimeMillis()));
+        });
+        timer.schedule("FAIL01", Instant.now().plusMillis(20));
+        timer.schedule("ABC123", Instant.now().plusMillis(60));
+
+        assertThat(expired.poll(2, TimeUnit.SECONDS).code()).isEqualTo("ABC123");
+    }
+
+    private record Expiry(String code, long atMillis) {
+    }
+}
@@ -13,6 +13,11 @@ const SessionContext = createContext(null)
 const API_URL = '/api'
 const WS_URL = '/ws'
 const USER_ID_KEY = 'xpoll_user_id'
+const PARTICIPANT_TOKEN_KEY = 'xpoll_participant_token_'
+//STOMP heartbeats, matching app.websocket.heartbeat-ms on the server
+const HEARTBEAT_MS = 10000
+//How long a websocket request waits for its reply before falling back to HTTP
+const SOCKET_REPLY_TIMEOUT_MS = 5000
 
 //Generates/retrieves unique userId
 const getUserId = () => {
@@ -30,6 +35,10 @@ export function SessionProvider({ children }) {
     const [currentSession, setCurrentSession] = useState(null)
     const stompClientRef = useRef(null)
     const subscriptionRef = useRef(null)
+    //Session code the websocket is subscribed to
+    const socketCodeRef = useRef(null)
+    //Websocket requests waiting for their reply, by requestId
+    const pendingRepliesRef = useRef(new Map())
 
     //Fetches session from backend.
     const fetchSession = useCallback(async (code) => {
@@ -51,8 +60,12 @@ export function SessionProvider({ children }) {
     }, [])
 
     //Handles websocket messages.
-    const handleWebSocketMessage = useCallback((data, code) => {
+    const handleWebSocketMessage = useCallback((data) => {
         switch (data.type) {
+            case 'BATCH':
+                //Updates coalesced by the server, applied in order.
+                data.events.forEach(event => handleWebSocketMessage(event))
+                break
             case 'PARTICIPANT_JOINED':
                 //Updates local session state immediately.
                 setCurrentSession(prev => {
@@ -77,8 +90,40 @@ export function SessionProvider({ children }) {
                 setCurrentSession(null)
                 break
             case 'VOTE_SUBMITTED':
-                //Updates scores and vote count.
-                fetchSession(code)
+                //Applies the vote delta locally instead of refetching the whole session.
+                setCurrentSession(prev => {
+                    if (!prev) return prev
+                    //Tallies and scores are absolute values: a stale delta would roll them back.
+                    if (data.version <= (prev.version || 0)) return prev
+
+                    const participants = prev.participants?.map(p => p.id === data.participant.id
+                        ? {
+                            ...p,
+                            score: data.participant.score,
+                            correctCount: data.participant.correctCount,
+                            completionTimeSeconds: data.participant.completionTimeSeconds
+                        }
+                        : p) || []
+                    return {
+                        ...prev,
+                        participants,
+                        version: data.version,
+                        voteCount: (prev.voteCount || 0) + 1,
+                        tallies: { ...(prev.tallies || {}), ...data.tallies }
+                    }
+                })
+                break
+            case 'PRESENCE_CHANGED':
+                //Live connections, coalesced by the server.
+                setCurrentSession(prev => {
+                    if (!prev) return prev
+                    const connectedIds = new Set(data.connectedParticipantIds)
+                    return {
+                        ...prev,
+                        connectedCount: data.connectedCount,
+                        participants: prev.participants?.map(p => ({ ...p, isConnected: connectedIds.has(p.id) })) || []
+                    }
+                })
                 break
             case 'PARTICIPANT_LEFT':
                 //Updates local session state immediately.
@@ -91,7 +136,7 @@ export function SessionProvider({ children }) {
                 })
                 break
         }
-    }, [fetchSession])
+    }, [])
 
     //Connects to Websocket for a specific session.
     const connectWebSocket = useCallback((code) => {
@@ -99,9 +144,15 @@ export function SessionProvider({ children }) {
             stompClientRef.current.deactivate()
         }
 
+        //Participants identify themselves so the server can track their presence.
+        const participantToken = sessionStorage.getItem(PARTICIPANT_TOKEN_KEY + code.toUpperCase())
+        socketCodeRef.current = null
         const client = new Client({
             webSocketFactory: () => new SockJS(WS_URL),
             reconnectDelay: 5000,
+            heartbeatIncoming: HEARTBEAT_MS,
+            heartbeatOutgoing: HEARTBEAT_MS,
+            connectHeaders: participantToken ? { participantToken, sessionCode: code.toUpperCase() } : {},
             onConnect: () => {
                 console.log('WebSocket connected')
                 subscriptionRef.current = client.subscribe(
@@ -109,18 +160,60 @@ export function SessionProvider({ children }) {
                     (message) => {
                         const data = JSON.parse(message.body)
                         console.log('WebSocket message:', data)
-                        handleWebSocketMessage(data, code)
+                        handleWebSocketMessage(data)
                     }
                 )
+                //Replies to this client's own requests (join, votes, leave).
+                client.subscribe('/user/queue/reply', (message) => {
+                    const reply = JSON.parse(message.body)
+                    const pending = pendingRepliesRef.current.get(reply.requestId)
+                    if (pending) {
+                        pendingRepliesRef.current.delete(reply.requestId)
+                        pending(reply)
+                    }
+                })
+                socketCodeRef.current = code.toUpperCase()
             },
             onDisconnect: () => {
                 console.log('WebSocket disconnected')
-            }
+                socketCodeRef.current = null
+            },
+            onWebSocketClose: () => { socketCodeRef.current = null }
         })
         client.activate()
         stompClientRef.current = client
     }, [handleWebSocketMessage])
 
+    //Sends a participant action over the open websocket and waits for its reply.
+    //Resolves to null when the socket is not available or does not answer in time, so callers can fall back to HTTP.
+    const sendOverSocket = useCallback((code, action, body) => {
+        const client = stompClientRef.current
+        if (!client?.connected || socketCodeRef.current !== code.toUpperCase()) return Promise.resolve(null)
+
+        const requestId = `${Date.now()}_${Math.random().toString(36).substring(2, 9)}`
+        return new Promise((resolve) => {
+            const timeout = setTimeout(() => {
+                pendingRepliesRef.current.delete(requestId)
+                resolve(null)
+            }, SOCKET_REPLY_TIMEOUT_MS)
+            pendingRepliesRef.current.set(requestId, (reply) => {
+                clearTimeout(timeout)
+                resolve(reply)
+            })
+            try {
+                client.publish({
+                    destination: `/app/session/${code.toUpperCase()}/${action}`,
+                    headers: { requestId },
+                    body: JSON.stringify(body)
+                })
+            } catch (error) {
+                clearTimeout(timeout)
+                pendingRepliesRef.current.delete(requestId)
+                resolve(null)
+            }
+        })
+    }, [])
+
     //Cleans websocket when needed (like closing the browser).
     useEffect(() => {
         return () => {
@@ -232,17 +325,19 @@ export function SessionProvider({ children }) {
                 }
             }
 
-            const response = await fetch(`${API_URL}/sessions/${code}/join`, {
+            //Joins over the open websocket when possible; it then already counts as this participant's connection.
+            const socketResult = await sendOverSocket(code, 'join', { displayName, userId })
+            const result = socketResult?.type === 'JOIN' ? socketResult : await (await fetch(`${API_URL}/sessions/${code}/join`, {
                 method: 'POST',
                 headers: { 'Content-Type': 'application/json' },
                 body: JSON.stringify({ displayName, userId })
-            })
-
-            const result = await response.json()
+            })).json()
 
             if (result.success) {
-                const session = await fetchSession(code)
-                connectWebSocket(code)
+                sessionStorage.setItem(PARTICIPANT_TOKEN_KEY + code.toUpperCase(), result.sessionToken)
+                await fetchSession(code)
+                //Reconnects with the participant token when the join went over HTTP.
+                if (socketResult?.type !== 'JOIN') { connectWebSocket(code) }
 
                 return { success: true, participant: result.participant, sessionCode: code }
             }
@@ -252,7 +347,27 @@ export function SessionProvider({ children }) {
 
             return { success: false, error: 'Network error' }
         }
-    }, [fetchSession, connectWebSocket])
+    }, [fetchSession, connectWebSocket, sendOverSocket])
+
+    //Leaves a session as participant (lobby only).
+    const leaveSession = useCallback(async (code, participantName) => {
+        try {
+            const socketResult = await sendOverSocket(code, 'leave', { participantName })
+            if (socketResult?.type === 'LEAVE') return socketResult.success
+
+            const response = await fetch(`${API_URL}/sessions/${code}/leave`, {
+                method: 'POST',
+                headers: { 'Content-Type': 'application/json' },
+                body: JSON.stringify({ participantName })
+            })
+
+            return response.ok
+        } catch (error) {
+            console.error('Error leaving session:', error)
+
+            return false
+        }
+    }, [sendOverSocket])
 
     //Launches poll and starts timer (creator action).
     const launchPoll = useCallback(async (code) => {
@@ -387,6 +502,10 @@ export function SessionProvider({ children }) {
     //Submits votes for a participant
     const submitVotes = useCallback(async (code, participantName, answers) => {
         try {
+            //Over the open websocket when possible: no HTTP round trip in the end-of-timer burst.
+            const socketResult = await sendOverSocket(code, 'votes', { participantName, answers })
+            if (socketResult?.type === 'VOTES') return socketResult.success
+
             const response = await fetch(`${API_URL}/sessions/${code}/votes`, {
                 method: 'POST',
                 headers: { 'Content-Type': 'application/json' },
@@ -399,7 +518,7 @@ export function SessionProvider({ children }) {
 
             return false
         }
-    }, [])
+    }, [sendOverSocket])
 
     //Gets remaining time for a session.
     const getRemainingTime = useCallback(async (code) => {
@@ -458,7 +577,7 @@ export function SessionProvider({ children }) {
 
     const value = {
         currentSession, setCurrentSession, createSession, getSession,
-        getMySession, joinSession, launchPoll, closePoll, showResults,
+        getMySession, joinSession, leaveSession, launchPoll, closePoll, showResults,
         exitWithoutResults, deleteSession, submitVotes, getRemainingTime,
         calculateRemainingTime, getResults, getParticipantResults,
         SESSION_STATES, getUserId
@@ -1,7 +1,7 @@
 import { useState } from 'react'
 import { Link, useNavigate } from 'react-router-dom'
 import Navbar from '../components/Navbar.jsx'
-import { createPoll, generatePollFromAI, generateAnswersFromAI } from '../services/PollService.js'
+import { createPoll, streamPollFromAI, generateAnswersFromAI } from '../services/PollService.js'
 import { getCurrentUser } from '../services/AuthService.js'
 
 function CreatePoll() {
@@ -99,27 +99,32 @@ function CreatePoll() {
         if (!aiPrompt.trim()) return
         setIsGeneratingAll(true)
         setError('')
+        let received = 0
         try {
-            const generatedPoll = await generatePollFromAI(aiPrompt)
-
-            if (generatedPoll.title) setTitle(generatedPoll.title)
-            if (generatedPoll.description) setDescription(generatedPoll.description)
-
-            // Map generated questions to our state format
-            if (generatedPoll.questions && Array.isArray(generatedPoll.questions)) {
-                const mappedQuestions = generatedPoll.questions.map((q, index) => ({
-                    id: Date.now() + index,
-                    text: q.text,
-                    type: q.type || 'SINGLE_CHOICE',
-                    correctAnswer: q.correctAnswer || 0,
-                    options: q.options ? q.options.map(opt => ({
-                        text: opt.text,
-                        value: opt.value || 0,
-                        isCorrect: opt.isCorrect || false
-                    })) : [{ text: '', value: 0, isCorrect: false }, { text: '', value: 0, isCorrect: false }]
-                }))
-                setQuestions(mappedQuestions)
-            }
+            // Questions show up one by one while the AI is still writing the rest
+            await streamPollFromAI(aiPrompt, {
+                onField: (name, value) => {
+                    if (name === 'title' && value) setTitle(value)
+                    if (name === 'description' && value) setDescription(value)
+                },
+                onQuestion: (q) => {
+                    const mapped = {
+                        id: Date.now() + received,
+                        text: q.text,
+                        type: q.type || 'SINGLE_CHOICE',
+                        correctAnswer: q.correctAnswer || 0,
+                        options: q.options.map(opt => ({
+                            text: opt.text,
+                            value: opt.value || 0,
+                            isCorrect: opt.isCorrect || false
+                        }))
+                    }
+                    // The first generated question replaces the current ones
+                    const first = received === 0
+                    setQuestions(prev => first ? [mapped] : [...prev, mapped])
+                    received++
+                }
+            })
         } catch (err) {
             setError('AI Generation Failed: ' + err.message)
         } finally {
@@ -6,6 +6,8 @@ import NewPollCard from '../components/NewPollCard.jsx'
 import { getCurrentUser, getMyParticipations } from '../services/AuthService.js'
 import { getUserPolls } from '../services/PollService.js'
 
+const HISTORY_PAGE_SIZE = 20
+
 function Dashboard() {
     const navigate = useNavigate()
     const location = useLocation()
@@ -14,6 +16,8 @@ function Dashboard() {
     const [polls, setPolls] = useState([])
     const [participations, setParticipations] = useState([])
     const [loadingHistory, setLoadingHistory] = useState(false)
+    const [hasMoreHistory, setHasMoreHistory] = useState(false)
+    const [loadingMoreHistory, setLoadingMoreHistory] = useState(false)
     const [loadingPolls, setLoadingPolls] = useState(true)
     const [expandedParticipation, setExpandedParticipation] = useState(null)
 
@@ -50,8 +54,9 @@ function Dashboard() {
     const loadParticipationHistory = async () => {
         setLoadingHistory(true)
         try {
-            const history = await getMyParticipations()
+            const history = await getMyParticipations(null, HISTORY_PAGE_SIZE)
             setParticipations(history)
+            setHasMoreHistory(history.length === HISTORY_PAGE_SIZE)
         } catch (err) {
             console.error('Failed to load participation history:', err)
         } finally {
@@ -59,6 +64,19 @@ function Dashboard() {
         }
     }
 
+    const loadMoreHistory = async () => {
+        setLoadingMoreHistory(true)
+        try {
+            const page = await getMyParticipations(participations[participations.length - 1], HISTORY_PAGE_SIZE)
+            setParticipations(prev => [...prev, ...page])
+            setHasMoreHistory(page.length === HISTORY_PAGE_SIZE)
+        } catch (err) {
+            console.error('Failed to load participation history:', err)
+        } finally {
+            setLoadingMoreHistory(false)
+        }
+    }
+
     const handleJoin = () => {
         if (code.trim()) { navigate(`/lobby/${code.toUpperCase()}`) }
     }
@@ -203,6 +221,12 @@ function Dashboard() {
                                         )}
                                     </div>
                                 ))}
+                                {hasMoreHistory && (
+                                    <button onClick={loadMoreHistory} disabled={loadingMoreHistory}
+                                        className="w-full py-3 px-5 border-none rounded-btn font-medium text-sm text-on-primary bg-primary cursor-pointer transition-all duration-200 hover:bg-[#527d91] disabled:opacity-60 disabled:cursor-default">
+                                        {loadingMoreHistory ? 'Loading...' : 'Load more'}
+                                    </button>
+                                )}
                             </div>
                         ) : (
                             <div className="bg-surface rounded-card p-8 shadow-[0_4px_6px_rgba(0,0,0,0.2)]">
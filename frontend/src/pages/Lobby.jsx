@@ -7,7 +7,7 @@ import { getCurrentUser } from '../services/AuthService'
 function Lobby() {
     const { code } = useParams()
     const navigate = useNavigate()
-    const { getSession, joinSession, currentSession } = useSession()
+    const { getSession, joinSession, leaveSession, currentSession } = useSession()
     const [nickname, setNickname] = useState('')
     const [joined, setJoined] = useState(false)
     const [myParticipantId, setMyParticipantId] = useState(null)
@@ -48,15 +48,7 @@ function Lobby() {
         if(!joined || !nickname) return
 
         const leaveSession = async () => {
-            try {
-                await fetch(`/api/sessions/${code.toUpperCase()}/leave`, {
-                    method: 'POST',
-                    headers: { 'Content-Type': 'application/json' },
-                    body: JSON.stringify({ participantName: nickname })
-                })
-            } catch (e) {
-                console.error('Error leaving session:', e)
-            }
+            await leaveSession(code.toUpperCase(), nickname)
             //Uses sessionStorage for all users (per-tab isolation)
             const storageKey = `xpoll_participant_${code.toUpperCase()}`
             sessionStorage.removeItem(storageKey)
@@ -81,7 +73,7 @@ function Lobby() {
                 leaveSession()
             }
         }
-    }, [joined, nickname, code])
+    }, [joined, nickname, code, leaveSession])
 
     //Handles join form submission
     const handleJoin = async (e) => {
@@ -260,15 +252,7 @@ function Lobby() {
                     <button
                         onClick={async () => {
                             // Call backend to remove participant from session
-                            try {
-                                await fetch(`/api/sessions/${code.toUpperCase()}/leave`, {
-                                    method: 'POST',
-                                    headers: { 'Content-Type': 'application/json' },
-                                    body: JSON.stringify({ participantName: nickname })
-                                })
-                            } catch (e) {
-                                console.error('Error leaving session:', e)
-                            }
+                            await leaveSession(code.toUpperCase(), nickname)
 
                             const storageKey = `xpoll_participant_${code.toUpperCase()}`
                             sessionStorage.removeItem(storageKey)
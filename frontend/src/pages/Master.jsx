@@ -88,19 +88,15 @@ function Master() {
         console.log('Master: currentSession updated', currentSession)
     }, [currentSession])
 
-    //Updates timer every second.
+    //Updates timer every second. The server closes the session when it ends (SESSION_STATE_CHANGED).
     useEffect(() => {
         if (session?.state === SESSION_STATES.OPEN) {
-            const interval = setInterval(async () => {
-                const remaining = calculateRemainingTime(session)
-                setTimeLeft(remaining)
-
-                //Auto-closes when timer ends.
-                if (remaining <= 0) { await closePoll(session.code) }
+            const interval = setInterval(() => {
+                setTimeLeft(calculateRemainingTime(session))
             }, 1000)
             return () => clearInterval(interval)
         }
-    }, [session?.state, session?.timerStartedAt, calculateRemainingTime, closePoll])
+    }, [session?.state, session?.timerStartedAt, calculateRemainingTime])
 
     //Handles page unload to close session.
     useEffect(() => {
@@ -245,6 +241,7 @@ function Master() {
                             <path strokeLinecap="round" strokeLinejoin="round" strokeWidth={2} d="M17 20h5v-2a3 3 0 00-5.356-1.857M17 20H7m10 0v-2c0-.656-.126-1.283-.356-1.857M7 20H2v-2a3 3 0 015.356-1.857M7 20v-2c0-.656.126-1.283.356-1.857m0 0a5.002 5.002 0 019.288 0M15 7a3 3 0 11-6 0 3 3 0 016 0zm6 3a2 2 0 11-4 0 2 2 0 014 0zM7 10a2 2 0 11-4 0 2 2 0 014 0z" />
                         </svg>
                         {participantCount} participants
+                        {session.connectedCount !== undefined && ` (${session.connectedCount} online)`}
                     </span>
                     {session.state === SESSION_STATES.OPEN && (
                         <> <div className={`px-4 py-2 rounded-full font-mono font-bold ${timeLeft <= 60 ? 'bg-red-500/20 text-red-400' : 'bg-primary/20 text-on-primary'
@@ -311,7 +308,7 @@ function Master() {
                                 </h3>
                                 <div className="grid grid-cols-2 sm:grid-cols-3 gap-2">
                                     {session.participants.map(p => (
-                                        <div key={p.id} className="bg-primary/20 rounded-lg py-2 px-3 text-center">
+                                        <div key={p.id} className={`bg-primary/20 rounded-lg py-2 px-3 text-center ${p.isConnected === false ? 'opacity-50' : ''}`}>
                                             <span className="text-on-primary text-sm">{p.name}</span>
                                         </div>
                                     ))}
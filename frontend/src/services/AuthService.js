@@ -141,9 +141,15 @@ export const getMyPolls = async () => {
     return response.json();
 };
 
-//Get user's participation history
-export const getMyParticipations = async () => {
-    const response = await authFetch(`${BASE_URL}/api/users/me/participations`);
+//Get a page of the user's participation history, newest first.
+//Pass the last item of the previous page to get the next one.
+export const getMyParticipations = async (after = null, limit = 20) => {
+    const params = new URLSearchParams({ limit });
+    if (after) {
+        params.set('before', after.participationDate);
+        params.set('beforeId', after.participantId);
+    }
+    const response = await authFetch(`${BASE_URL}/api/users/me/participations?${params}`);
 
     if (!response.ok) { throw new Error('Failed to fetch participation history'); }
 
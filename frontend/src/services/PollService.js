@@ -121,6 +121,51 @@ export const generatePollFromAI = async (prompt) => {
     }
 };
 
+// Streams a generated poll (server-sent events): handlers.onField(name, value) for title/description,
+// handlers.onQuestion(question) as soon as each question is ready. Resolves with the question count.
+export const streamPollFromAI = async (prompt, handlers = {}) => {
+    const response = await fetch(`${AI_API_URL}/generate-poll/stream`, {
+        method: 'POST',
+        headers: { ...getAuthHeaders(), 'Accept': 'text/event-stream' },
+        body: JSON.stringify({ prompt }),
+    });
+
+    if (!response.ok || !response.body) {
+        throw new Error('Failed to generate poll');
+    }
+
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+
+    while (true) {
+        const { done, value } = await reader.read();
+        if (done) break;
+        buffer += decoder.decode(value, { stream: true }).replace(/\r\n/g, '\n');
+
+        // Events end with a blank line; the last piece may still be incomplete
+        const events = buffer.split('\n\n');
+        buffer = events.pop();
+
+        for (const raw of events) {
+            let name = 'message';
+            const data = [];
+            for (const line of raw.split('\n')) {
+                if (line.startsWith('event:')) name = line.slice(6).trim();
+                else if (line.startsWith('data:')) data.push(line.slice(5));
+            }
+            if (data.length === 0) continue;
+            const payload = JSON.parse(data.join('\n'));
+
+            if (name === 'field') handlers.onField?.(payload.name, payload.value);
+            else if (name === 'question') handlers.onQuestion?.(payload);
+            else if (name === 'done') return payload.questionCount;
+            else if (name === 'error') throw new Error(payload.error || 'Failed to generate poll');
+        }
+    }
+    throw new Error('Poll generation ended unexpectedly');
+};
+
 export const generateAnswersFromAI = async (question) => {
     try {
         const response = await fetch(`${AI_API_URL}/generate-answers`, {